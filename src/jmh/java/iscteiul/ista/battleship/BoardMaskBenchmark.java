@@ -0,0 +1,99 @@
+package iscteiul.ista.battleship;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the operations of {@link BoardMask} on whole masks, which go 64
+ * cells at a time, with the same operations done cell by cell, on large
+ * boards. Run with {@code mvn -Pjmh verify -Djmh.pattern=BoardMaskBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardMaskBenchmark {
+
+    @Param({"1000"})
+    public int boardSize;
+
+    private int cells;
+    private long[] shots;
+    private long[] ships;
+    private long[] into;
+    private int[] heat;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        cells = boardSize * boardSize;
+        shots = BoardMask.create(boardSize);
+        ships = BoardMask.create(boardSize);
+        into = BoardMask.create(boardSize);
+        heat = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (random.nextInt(2) == 0)
+                BoardMask.set(shots, cell);
+            if (random.nextInt(5) == 0)
+                BoardMask.set(ships, cell);
+        }
+    }
+
+    @Benchmark
+    public long[] unshotShipCellsByWord() {
+        BoardMask.andNot(into, ships, shots);
+        return into;
+    }
+
+    @Benchmark
+    public long[] unshotShipCellsByCell() {
+        for (int cell = 0; cell < cells; cell++)
+            if (BoardMask.get(ships, cell) && !BoardMask.get(shots, cell))
+                BoardMask.set(into, cell);
+            else
+                BoardMask.clear(into, cell);
+        return into;
+    }
+
+    @Benchmark
+    public int remainingHitsByWord() {
+        return BoardMask.cardinalityAndNot(ships, 0, shots);
+    }
+
+    @Benchmark
+    public int remainingHitsByCell() {
+        int remaining = 0;
+        for (int cell = 0; cell < cells; cell++)
+            if (BoardMask.get(ships, cell) && !BoardMask.get(shots, cell))
+                remaining++;
+        return remaining;
+    }
+
+    @Benchmark
+    public int[] heatmapByWord() {
+        BoardMask.count(ships, heat);
+        return heat;
+    }
+
+    @Benchmark
+    public int[] heatmapByCell() {
+        for (int cell = 0; cell < cells; cell++)
+            if (BoardMask.get(ships, cell))
+                heat[cell]++;
+        return heat;
+    }
+}
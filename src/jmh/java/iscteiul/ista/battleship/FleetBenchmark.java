@@ -0,0 +1,82 @@
+package iscteiul.ista.battleship;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the fleet kept as an object graph, {@link Fleet}, with the fleet
+ * kept as columns, {@link ColumnarFleet}, on the questions a game asks.
+ * Run with {@code mvn -Pjmh verify}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FleetBenchmark {
+
+    @Param({"object", "columnar"})
+    public String layout;
+
+    /*
+     * Half of the cells of each ship are hit, so that some ships are sunk
+     */
+    @Param({"0.5"})
+    public double hitFraction;
+
+    private IFleet fleet;
+    private ColumnarFleet columnar;
+    private Position[] cells;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Fleet objects = new FleetGenerator().generate(random);
+        columnar = ColumnarFleet.of(objects);
+        fleet = layout.equals("object") ? objects : columnar;
+        for (IShip s : fleet.getShips())
+            for (IPosition p : s.getPositions())
+                if (random.nextDouble() < hitFraction)
+                    s.shoot(p);
+
+        cells = new Position[Fleet.BOARD_SIZE * Fleet.BOARD_SIZE];
+        for (int cell = 0; cell < cells.length; cell++)
+            cells[cell] = new Position(cell / Fleet.BOARD_SIZE, cell % Fleet.BOARD_SIZE);
+    }
+
+    @Benchmark
+    public int floatingShips() {
+        return fleet == columnar ? columnar.countFloating() : fleet.getFloatingShips().size();
+    }
+
+    @Benchmark
+    public void shipAtEveryCell(Blackhole hole) {
+        for (Position p : cells)
+            hole.consume(fleet.shipAt(p));
+    }
+
+    @Benchmark
+    public int remainingCells() {
+        if (fleet == columnar)
+            return columnar.countRemainingCells();
+        int cells = 0;
+        for (IShip s : fleet.getShips())
+            for (IPosition p : s.getPositions())
+                cells += p.isHit() ? 0 : 1;
+        return cells;
+    }
+}
@@ -0,0 +1,125 @@
+package iscteiul.ista.battleship;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many shots a second a {@link ShotJournal} takes from the thread
+ * firing, with each of the wait strategies of {@link ShotRing}, writing to a
+ * channel that throws the bytes away: recorded straight into the journal, and
+ * fired at a game it instruments, as a game is played. Games are fired at cell
+ * by cell, a new one every {@code BOARD_SIZE * BOARD_SIZE} shots, so the
+ * shots hit, sink and end games as often as in play. The gc profiler shows
+ * what the thread firing allocates: nothing when recording, and, when firing,
+ * only the fleet and the game set up every so many shots. Run with
+ * {@code mvn -Pjmh verify -Djmh.pattern=ShotRingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShotRingBenchmark {
+
+    @Param({"busySpin", "yielding", "sleeping", "blocking"})
+    public String waitStrategy;
+
+    @Param({"65536"})
+    public int ringSize;
+
+    private static final GameFeed.Kind[] KINDS = GameFeed.Kind.values();
+
+    private static final int CELLS = Fleet.BOARD_SIZE * Fleet.BOARD_SIZE;
+
+    private ShotJournal journal;
+    private int shot;
+    private Position[] cells;
+    private Random random;
+    private IGame game;
+    private int fired;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        WritableByteChannel discard = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int bytes = src.remaining();
+                src.position(src.limit());
+                return bytes;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        journal = new ShotJournal(discard, ringSize, strategy());
+
+        random = new Random(42);
+        cells = new Position[CELLS];
+        for (int cell = 0; cell < CELLS; cell++)
+            cells[cell] = new Position(cell / Fleet.BOARD_SIZE, cell % Fleet.BOARD_SIZE);
+        for (int i = CELLS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Position p = cells[i];
+            cells[i] = cells[j];
+            cells[j] = p;
+        }
+        fired = CELLS;
+    }
+
+    private ShotRing.WaitStrategy strategy() {
+        switch (waitStrategy) {
+            case "busySpin":
+                return ShotRing.busySpin();
+            case "yielding":
+                return ShotRing.yielding();
+            case "sleeping":
+                return ShotRing.sleeping(50_000);
+            default:
+                return ShotRing.blocking();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Benchmark
+    public void record() {
+        int i = shot++;
+        journal.record(0, i, i & 15, i >>> 4 & 15, KINDS[i & 3]);
+    }
+
+    @Benchmark
+    public IShip fire() {
+        if (fired == CELLS) {
+            game = journal.instrument(new Game(new FleetGenerator().generate(random)));
+            fired = 0;
+        }
+        return game.fire(cells[fired++]);
+    }
+}
@@ -19,5 +19,6 @@ public class App
         Tasks.taskB();
         //	Tasks.taskC();
         //	Tasks.taskD();
+        //	Tasks.taskE();
     }
 }
@@ -0,0 +1,179 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Operations on board masks: sets of cells of a square board kept as bits of
+ * a long array. Cell {@code row * boardSize + column} is bit
+ * {@code cell % 64} of word {@code cell / 64}.
+ * <p>
+ * Operations on whole masks go word by word, 64 cells at a time, over plain
+ * arrays. Those that combine masks into another, {@link #andNot}, {@link #or}
+ * and the full words of {@link #fill}, are straight loops of one bitwise
+ * operation per word, which the JIT may compile to SIMD instructions where the
+ * processor has them, as are {@link #cardinality} and
+ * {@link #cardinalityAndNot}, which add up bit counts; {@link #intersects} and {@link #next} stop at the first
+ * word that answers, and {@link #count} goes bit by bit over the cells set.
+ */
+public final class BoardMask {
+
+    private BoardMask() {
+    }
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board
+     * @return The number of words of a mask of a board of that size
+     */
+    public static int words(int boardSize) {
+        return (boardSize * boardSize + 63) >>> 6;
+    }
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board
+     * @return A new, empty, mask of a board of that size
+     */
+    public static long[] create(int boardSize) {
+        return new long[words(boardSize)];
+    }
+
+    /**
+     * @param mask A board mask
+     * @param cell A cell of the board
+     * @return Whether the cell is in the mask
+     */
+    public static boolean get(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param mask A board mask
+     * @param cell A cell of the board, to be added to the mask
+     */
+    public static void set(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * @param mask A board mask
+     * @param cell A cell of the board, to be removed from the mask
+     */
+    public static void clear(long[] mask, int cell) {
+        mask[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * @param mask  A board mask
+     * @param cells The number of cells of the board, all to be added to the
+     *              mask
+     */
+    public static void fill(long[] mask, int cells) {
+        int full = cells >>> 6;
+        for (int w = 0; w < full; w++)
+            mask[w] = -1L;
+        if ((cells & 63) != 0)
+            mask[full] |= (1L << cells) - 1;
+    }
+
+    /**
+     * @param into The mask to set to the cells in a but not in b; it may be
+     *             one of them
+     * @param a    A board mask
+     * @param b    Another mask, of as many words
+     */
+    public static void andNot(long[] into, long[] a, long[] b) {
+        for (int w = 0; w < into.length; w++)
+            into[w] = a[w] & ~b[w];
+    }
+
+    /**
+     * @param into The mask to set to the cells in a but in neither b nor c, in
+     *             one pass; it may be one of them
+     * @param a    A board mask
+     * @param b    Another mask, of as many words
+     * @param c    Another mask, of as many words
+     */
+    public static void andNot(long[] into, long[] a, long[] b, long[] c) {
+        for (int w = 0; w < into.length; w++)
+            into[w] = a[w] & ~b[w] & ~c[w];
+    }
+
+    /**
+     * @param a      A flat array of masks
+     * @param offset The index in a of the first word of the mask of interest
+     * @param b      Another mask, of as many words
+     * @return The number of cells of the mask of interest that are not in b
+     */
+    public static int cardinalityAndNot(long[] a, int offset, long[] b) {
+        int count = 0;
+        for (int w = 0; w < b.length; w++)
+            count += Long.bitCount(a[offset + w] & ~b[w]);
+        return count;
+    }
+
+    /**
+     * This operation adds one to the counter of every cell of a mask, as when
+     * accumulating a heatmap
+     *
+     * @param mask   A board mask
+     * @param counts A counter per cell of the board
+     */
+    public static void count(long[] mask, int[] counts) {
+        for (int w = 0; w < mask.length; w++)
+            for (long word = mask[w]; word != 0; word &= word - 1)
+                counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+    }
+
+    /**
+     * @param mask A board mask
+     * @return The number of cells in the mask
+     */
+    public static int cardinality(long[] mask) {
+        int count = 0;
+        for (long word : mask)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * @param a      A flat array of masks
+     * @param offset The index in a of the first word of the mask of interest
+     * @param b      Another mask, of as many words
+     * @return Whether both masks have some cell in common
+     */
+    public static boolean intersects(long[] a, int offset, long[] b) {
+        for (int w = 0; w < b.length; w++)
+            if ((a[offset + w] & b[w]) != 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * @param into   The mask to add cells to
+     * @param a      A flat array of masks
+     * @param offset The index in a of the first word of the mask to add
+     */
+    public static void or(long[] into, long[] a, int offset) {
+        for (int w = 0; w < into.length; w++)
+            into[w] |= a[offset + w];
+    }
+
+    /**
+     * @param mask A board mask
+     * @param from The first cell to look at
+     * @return The first cell of the mask from the given one on, or -1 if there
+     * is none
+     */
+    public static int next(long[] mask, int from) {
+        int w = from >>> 6;
+        if (w >= mask.length)
+            return -1;
+        long word = mask[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == mask.length)
+                return -1;
+            word = mask[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incremental renderer of the board of a game, meant for live terminals.
+ * <p>
+ * The renderer keeps the current frame of the board and a log of the cells
+ * that changed since the game started, fed by the shots applied in
+ * {@link IGame#fire(IPosition)}. Each {@link Viewer} remembers the last frame
+ * it has been sent, so that rendering only emits the changed cells as ANSI
+ * cursor moves. A new viewer first receives the whole board. When rendering a
+ * {@link Game}, a viewer whose game state has the same Zobrist hash as when it
+ * last rendered knows at once that there is nothing to draw.
+ * <p>
+ * The renderer is not thread safe: it must be driven by the thread that fires
+ * the shots of the game.
+ */
+public class BoardRenderer {
+    static final char WATER = '.';
+    static final char MISS = 'o';
+    static final char HIT = 'X';
+    static final char SUNK = '#';
+
+    private static final String CSI = "\u001B[";
+    private static final String CLEAR_SCREEN = CSI + "2J";
+
+    private final IGame game;
+    private final Game hashed;
+    private final IFleet fleet;
+    private final int size;
+    private final char[] frame;
+
+    private int[] changes;
+    private int changeCount;
+    private int shotCursor;
+
+    /**
+     * @param game  The game whose shots are rendered
+     * @param fleet The fleet being attacked in the game
+     */
+    public BoardRenderer(IGame game, IFleet fleet) {
+        assert game != null;
+        assert fleet != null;
+
+        this.game = game;
+        this.hashed = game instanceof Game ? (Game) game : null;
+        this.fleet = fleet;
+        this.size = Fleet.BOARD_SIZE;
+        this.frame = new char[size * size];
+        Arrays.fill(frame, WATER);
+        this.changes = new int[size * size];
+        this.changeCount = 0;
+        this.shotCursor = 0;
+    }
+
+    /**
+     * This operation creates a new viewer whose board is drawn with its upper
+     * left corner at the given terminal coordinates (1-based, as in ANSI)
+     *
+     * @param originRow    The terminal row of the first board row
+     * @param originColumn The terminal column of the first board column
+     * @return The new viewer, which has seen nothing yet
+     */
+    public Viewer newViewer(int originRow, int originColumn) {
+        return new Viewer(originRow, originColumn);
+    }
+
+    /**
+     * @param row    The row of the cell
+     * @param column The column of the cell
+     * @return The character currently shown for the given cell
+     */
+    public char cellAt(int row, int column) {
+        return frame[row * size + column];
+    }
+
+    /**
+     * This operation applies to the frame the shots fired since the last update
+     */
+    void update() {
+        List<IPosition> shots = game.getShots();
+        for (; shotCursor < shots.size(); shotCursor++)
+            apply(shots.get(shotCursor));
+    }
+
+    private void apply(IPosition shot) {
+        if (!isOnBoard(shot))
+            return;
+
+        IShip ship = fleet.shipAt(shot);
+        if (ship == null)
+            mark(shot, MISS);
+        else if (ship.stillFloating())
+            mark(shot, HIT);
+        else
+            for (IPosition p : ship.getPositions())
+                mark(p, SUNK);
+    }
+
+    private void mark(IPosition pos, char c) {
+        int cell = pos.getRow() * size + pos.getColumn();
+        if (frame[cell] == c)
+            return;
+        frame[cell] = c;
+        if (changeCount == changes.length)
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        changes[changeCount++] = cell;
+    }
+
+    private boolean isOnBoard(IPosition pos) {
+        return pos.getRow() >= 0 && pos.getRow() < size && pos.getColumn() >= 0 && pos.getColumn() < size;
+    }
+
+    /**
+     * A spectator of the game, with its own notion of what is on its screen
+     */
+    public class Viewer {
+        private final int originRow;
+        private final int originColumn;
+        private final char[] seen;
+        private int changeCursor;
+        private boolean fresh;
+        private long seenHash;
+
+        private Viewer(int originRow, int originColumn) {
+            this.originRow = originRow;
+            this.originColumn = originColumn;
+            this.seen = new char[size * size];
+            this.changeCursor = 0;
+            this.fresh = true;
+        }
+
+        /**
+         * This operation writes to the given output the ANSI sequences that bring
+         * the screen of this viewer up to date with the game
+         *
+         * @param out Where to write the sequences to
+         * @return The number of cells that have been drawn
+         * @throws IOException If the output fails
+         */
+        public int render(Appendable out) throws IOException {
+            if (!fresh && hashed != null && hashed.getHash() == seenHash)
+                return 0;
+            update();
+            if (hashed != null)
+                seenHash = hashed.getHash();
+
+            int drawn = fresh ? renderAll(out) : renderChanges(out);
+            fresh = false;
+            changeCursor = changeCount;
+            return drawn;
+        }
+
+        private int renderAll(Appendable out) throws IOException {
+            out.append(CLEAR_SCREEN);
+            for (int row = 0; row < size; row++) {
+                moveTo(out, row, 0);
+                for (int col = 0; col < size; col++)
+                    out.append(frame[row * size + col]);
+            }
+            System.arraycopy(frame, 0, seen, 0, frame.length);
+            return frame.length;
+        }
+
+        private int renderChanges(Appendable out) throws IOException {
+            int drawn = 0;
+            int cursor = -1; // cell where the terminal cursor currently is, if known
+            for (int i = changeCursor; i < changeCount; i++) {
+                int cell = changes[i];
+                char c = frame[cell];
+                if (seen[cell] == c)
+                    continue;
+                if (cell != cursor)
+                    moveTo(out, cell / size, cell % size);
+                out.append(c);
+                seen[cell] = c;
+                drawn++;
+                cursor = (cell % size == size - 1) ? -1 : cell + 1;
+            }
+            return drawn;
+        }
+
+        private void moveTo(Appendable out, int row, int column) throws IOException {
+            out.append(CSI).append(Integer.toString(originRow + row)).append(';')
+                    .append(Integer.toString(originColumn + column)).append('H');
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A player of tournaments: a name, a way of firing and a way of laying out
+ * its fleet.
+ */
+public final class Bot {
+    private final String name;
+    private final Function<Random, IShooter> shooters;
+    private final IPlacer placer;
+
+    /**
+     * @param name     The name of the bot
+     * @param shooters The factory of the shooter of each game, given its source
+     *                 of randomness
+     * @param placer   The placer of the fleet of each game
+     */
+    public Bot(String name, Function<Random, IShooter> shooters, IPlacer placer) {
+        if (name == null || shooters == null || placer == null)
+            throw new NullPointerException("ERROR! a bot needs a name, a shooter and a placer");
+        this.name = name;
+        this.shooters = shooters;
+        this.placer = placer;
+    }
+
+    /**
+     * @return The name of the bot
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param random The source of randomness of the game
+     * @return A new shooter for a game
+     */
+    public IShooter newShooter(Random random) {
+        return shooters.apply(random);
+    }
+
+    /**
+     * @return The placer of the fleets of the bot
+     */
+    public IPlacer getPlacer() {
+        return placer;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,377 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A fleet kept as columns: a primitive array per attribute of its ships,
+ * indexed by the order in which they were added. The kind, bearing, anchor
+ * cell and count of cells not yet hit of each ship are kept in arrays of their
+ * own, and its footprint and hits as board masks laid one after the other in
+ * two long arrays (see {@link BoardMask}); one more array tells which ship, if
+ * any, takes each cell.
+ * <p>
+ * Questions about the whole fleet, such as {@link #countFloating()} or
+ * {@link #countRemainingCells()}, are loops over one of those arrays, and
+ * {@link #shipAt(IPosition)} is a lookup in another, without following a
+ * reference per ship or per position. The ships handed out, by
+ * {@link #getShips()} and the like, are views over the columns, so shooting
+ * them updates the fleet.
+ * <p>
+ * Only ships of the registered kinds, whose placements are known from
+ * {@link PlacementTable}s, may be added.
+ */
+public final class ColumnarFleet implements IFleet {
+    private static final int CAPACITY = FLEET_SIZE + 1;
+    private static final int WORDS = BoardMask.words(BOARD_SIZE);
+
+    private final byte[] types = new byte[CAPACITY];
+    private final byte[] bearings = new byte[CAPACITY];
+    private final short[] anchors = new short[CAPACITY];
+    private final byte[] remaining = new byte[CAPACITY];
+    private final long[] footprints = new long[CAPACITY * WORDS];
+    private final long[] hits = new long[CAPACITY * WORDS];
+    private final long[] occupied = BoardMask.create(BOARD_SIZE);
+    private final byte[] cellShips = new byte[BOARD_SIZE * BOARD_SIZE];
+    private final ColumnarShip[] views = new ColumnarShip[CAPACITY];
+    private final List<IShip> ships = Collections.unmodifiableList(new ShipList());
+    private int count;
+
+    /**
+     * @param fleet A fleet
+     * @return A columnar copy of its ships, none of them hit
+     * @throws IllegalArgumentException If a ship is not of a registered kind,
+     *                                  or the fleet breaks the rules
+     */
+    public static ColumnarFleet of(IFleet fleet) {
+        ColumnarFleet columnar = new ColumnarFleet();
+        for (IShip s : fleet.getShips())
+            if (!columnar.addShip(s))
+                throw new IllegalArgumentException("ERROR! cannot add " + s);
+        return columnar;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShips()
+     */
+    @Override
+    public List<IShip> getShips() {
+        return ships;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#addShip(battleship.IShip)
+     */
+    @Override
+    public boolean addShip(IShip s) {
+        if (count == CAPACITY || s instanceof ShapedShip)
+            return false;
+        PlacementTable table = PlacementTable.forShip(s, BOARD_SIZE);
+        if (table == null)
+            return false;
+        int placement = table.indexOf(s.getPosition().getRow(), s.getPosition().getColumn());
+        if (placement < 0 || !table.fits(placement, occupied))
+            return false;
+
+        int ship = count++;
+        types[ship] = (byte) s.getType().ordinal();
+        bearings[ship] = (byte) s.getBearing().ordinal();
+        anchors[ship] = (short) table.anchor(placement);
+        long[] footprint = BoardMask.create(BOARD_SIZE);
+        table.addFootprint(placement, footprint);
+        System.arraycopy(footprint, 0, footprints, ship * WORDS, WORDS);
+        remaining[ship] = (byte) BoardMask.cardinality(footprint);
+        table.addFootprint(placement, occupied);
+        for (int cell = BoardMask.next(footprint, 0); cell >= 0; cell = BoardMask.next(footprint, cell + 1))
+            cellShips[cell] = (byte) (ship + 1);
+        views[ship] = new ColumnarShip(ship);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShipsLike(java.lang.String)
+     */
+    @Override
+    public List<IShip> getShipsLike(String category) {
+        ShipType type = ShipType.fromName(category);
+        return type == null ? new ArrayList<>() : getShipsLike(type);
+    }
+
+    /**
+     * @param type The kind of ships of interest
+     * @return The ships of the fleet of that kind
+     */
+    public List<IShip> getShipsLike(ShipType type) {
+        List<IShip> shipsLike = new ArrayList<>();
+        byte id = (byte) type.ordinal();
+        for (int i = 0; i < count; i++)
+            if (types[i] == id)
+                shipsLike.add(views[i]);
+        return shipsLike;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShips()
+     */
+    @Override
+    public List<IShip> getFloatingShips() {
+        List<IShip> floatingShips = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            if (remaining[i] > 0)
+                floatingShips.add(views[i]);
+        return floatingShips;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The kinds are read from their column.
+     */
+    @Override
+    public Stream<IShip> shipsLike(ShipType type) {
+        byte id = (byte) type.ordinal();
+        return IntStream.range(0, count).filter(i -> types[i] == id).mapToObj(i -> views[i]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cells not yet hit are read from their column.
+     */
+    @Override
+    public Stream<IShip> floatingShips() {
+        return IntStream.range(0, count).filter(i -> remaining[i] > 0).mapToObj(i -> views[i]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the cells around the position are looked at.
+     */
+    @Override
+    public Stream<IShip> shipsNear(IPosition pos, int distance) {
+        if (distance < 0)
+            throw new IllegalArgumentException("ERROR! negative distance " + distance);
+
+        int reach = Math.min(distance, BOARD_SIZE);
+        int top = Math.max(0, pos.getRow() - reach);
+        int bottom = Math.min(BOARD_SIZE - 1, pos.getRow() + reach);
+        int left = Math.max(0, pos.getColumn() - reach);
+        int right = Math.min(BOARD_SIZE - 1, pos.getColumn() + reach);
+        return IntStream.rangeClosed(top, bottom)
+                .flatMap(r -> IntStream.rangeClosed(left, right).map(c -> r * BOARD_SIZE + c))
+                .map(cell -> cellShips[cell] - 1).filter(i -> i >= 0).distinct().mapToObj(i -> views[i]);
+    }
+
+    /**
+     * @return The number of ships not yet sunk
+     */
+    public int countFloating() {
+        int floating = 0;
+        for (int i = 0; i < count; i++)
+            floating += remaining[i] > 0 ? 1 : 0;
+        return floating;
+    }
+
+    /**
+     * @return The number of cells of the fleet not yet hit
+     */
+    public int countRemainingCells() {
+        int cells = 0;
+        for (int i = 0; i < count; i++)
+            cells += remaining[i];
+        return cells;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipAt(battleship.IPosition)
+     */
+    @Override
+    public IShip shipAt(IPosition pos) {
+        int ship = shipIndexAt(pos.getRow(), pos.getColumn());
+        return ship < 0 ? null : views[ship];
+    }
+
+    private int shipIndexAt(int row, int column) {
+        if (row < 0 || row >= BOARD_SIZE || column < 0 || column >= BOARD_SIZE)
+            return -1;
+        return cellShips[row * BOARD_SIZE + column] - 1;
+    }
+
+    /**
+     * This operation shows the state of a fleet
+     */
+    @Override
+    public void printStatus() {
+        Fleet.printShips(ships);
+        Fleet.printShips(getFloatingShips());
+        for (ShipType type : ShipType.values())
+            Fleet.printShips(getShipsLike(type));
+    }
+
+    /*
+     * The ships of the fleet, in the order they were added
+     */
+    private final class ShipList extends AbstractList<IShip> {
+        @Override
+        public IShip get(int index) {
+            if (index < 0 || index >= count)
+                throw new IndexOutOfBoundsException("ERROR! no ship " + index);
+            return views[index];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    /*
+     * A ship of the fleet, read from and written to the columns
+     */
+    private final class ColumnarShip implements IShip {
+        private final int ship;
+
+        private ColumnarShip(int ship) {
+            this.ship = ship;
+        }
+
+        private boolean isSet(long[] masks, int cell) {
+            return (masks[ship * WORDS + (cell >>> 6)] & (1L << cell)) != 0;
+        }
+
+        @Override
+        public String getCategory() {
+            return getType().getName();
+        }
+
+        @Override
+        public ShipType getType() {
+            return ShipType.values()[types[ship]];
+        }
+
+        @Override
+        public Integer getSize() {
+            int size = 0;
+            for (int w = 0; w < WORDS; w++)
+                size += Long.bitCount(footprints[ship * WORDS + w]);
+            return size;
+        }
+
+        @Override
+        public List<IPosition> getPositions() {
+            List<IPosition> positions = new ArrayList<>();
+            long[] footprint = Arrays.copyOfRange(footprints, ship * WORDS, (ship + 1) * WORDS);
+            for (int cell = BoardMask.next(footprint, 0); cell >= 0; cell = BoardMask.next(footprint, cell + 1)) {
+                Position p = new Position(cell / BOARD_SIZE, cell % BOARD_SIZE);
+                if (isSet(hits, cell))
+                    p.shoot();
+                positions.add(p);
+            }
+            return positions;
+        }
+
+        @Override
+        public IPosition getPosition() {
+            return new Position(anchors[ship] / BOARD_SIZE, anchors[ship] % BOARD_SIZE);
+        }
+
+        @Override
+        public Compass getBearing() {
+            return Compass.values()[bearings[ship]];
+        }
+
+        @Override
+        public boolean stillFloating() {
+            return remaining[ship] > 0;
+        }
+
+        @Override
+        public int getTopMostPos() {
+            int top = BOARD_SIZE;
+            for (IPosition p : getPositions())
+                top = Math.min(top, p.getRow());
+            return top;
+        }
+
+        @Override
+        public int getBottomMostPos() {
+            int bottom = -1;
+            for (IPosition p : getPositions())
+                bottom = Math.max(bottom, p.getRow());
+            return bottom;
+        }
+
+        @Override
+        public int getLeftMostPos() {
+            int left = BOARD_SIZE;
+            for (IPosition p : getPositions())
+                left = Math.min(left, p.getColumn());
+            return left;
+        }
+
+        @Override
+        public int getRightMostPos() {
+            int right = -1;
+            for (IPosition p : getPositions())
+                right = Math.max(right, p.getColumn());
+            return right;
+        }
+
+        @Override
+        public boolean occupies(IPosition pos) {
+            return shipIndexAt(pos.getRow(), pos.getColumn()) == ship;
+        }
+
+        @Override
+        public boolean tooCloseTo(IShip other) {
+            for (IPosition p : other.getPositions())
+                if (tooCloseTo(p))
+                    return true;
+            return false;
+        }
+
+        @Override
+        public boolean tooCloseTo(IPosition pos) {
+            for (int r = Math.max(0, pos.getRow() - 1); r <= Math.min(BOARD_SIZE - 1, pos.getRow() + 1); r++)
+                for (int c = Math.max(0, pos.getColumn() - 1); c <= Math.min(BOARD_SIZE - 1, pos.getColumn() + 1); c++)
+                    if (isSet(footprints, r * BOARD_SIZE + c))
+                        return true;
+            return false;
+        }
+
+        @Override
+        public void shoot(IPosition pos) {
+            if (!occupies(pos))
+                return;
+            int cell = pos.getRow() * BOARD_SIZE + pos.getColumn();
+            if (!isSet(hits, cell)) {
+                hits[ship * WORDS + (cell >>> 6)] |= 1L << cell;
+                remaining[ship]--;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[" + getCategory() + " " + getBearing() + " " + getPosition() + "]";
+        }
+    }
+}
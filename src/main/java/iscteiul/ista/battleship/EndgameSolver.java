@@ -0,0 +1,437 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * Exact solver for endgame positions.
+ * <p>
+ * Given what is known of the board, the solver enumerates every layout of the
+ * ships still afloat that is consistent with it, by backtracking over the
+ * {@link PlacementTable}s of their kinds: a layout covers every pending hit,
+ * takes no cell ruled out, has no ship touching another and no ship whose
+ * cells have all been hit already. Taking all those layouts as equally
+ * likely, it then picks the shot that minimises the expected number of shots
+ * left to sink them all, by an expectimax over the outcomes of each shot: a
+ * miss, a hit, or the sinking of a given ship, which reveals its cells.
+ * <p>
+ * Positions reached by different orders of the same shots are solved once,
+ * through a {@link TranspositionCache} keyed by the {@link Zobrist} hash of
+ * what is known of the board; as the hash covers the whole position, a cache
+ * may be kept from one solve, and one game, to the next. If the layouts cannot be enumerated, or the search
+ * cannot be completed, within the time budget, the solver falls back to the
+ * cell taken by most of the layouts found. A solver is not thread safe; use
+ * one per thread.
+ */
+public class EndgameSolver {
+    /**
+     * The time budget of each solve, unless told otherwise: 50 milliseconds
+     */
+    public static final long DEFAULT_BUDGET_NANOS = 50_000_000L;
+    /**
+     * The largest number of layouts enumerated, unless told otherwise
+     */
+    public static final int DEFAULT_MAX_LAYOUTS = 1 << 16;
+    /**
+     * The number of positions remembered, unless told otherwise
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    private static final int CHECK_INTERVAL = 255;
+    private static final long MISS = 0;
+    private static final long HIT = 1;
+
+    /*
+     * Thrown, without a stack trace, to unwind the search when the time is up
+     */
+    private static final RuntimeException TIMEOUT = new RuntimeException("timeout", null, false, false) {
+    };
+
+    private final int boardSize;
+    private final int cells;
+    private final int words;
+    private final long budgetNanos;
+    private final int maxLayouts;
+    private final Zobrist zobrist;
+    private final long[] board;
+
+    private final TranspositionCache<Double> cache;
+
+    private PlacementTable[] tables;
+    private int[][] shipTables;
+    private ShipType[] ships;
+    private int maxPlacements;
+    private long[] blocked;
+    private long[] hits;
+    private long[] unhit;
+    private long[] scratch;
+    private long[][] taken;
+    private int[] chosenTables;
+    private int[] chosenPlacements;
+
+    private int layouts;
+    private int[] layoutTables;
+    private int[] layoutPlacements;
+    private long[] covers;
+    private int[] coverage;
+
+    private long deadline;
+    private int nodes;
+    private boolean exact;
+    private double expected;
+
+    /**
+     * Creates a solver for the board of the game with the default budgets
+     */
+    public EndgameSolver() {
+        this(Fleet.BOARD_SIZE, DEFAULT_BUDGET_NANOS, DEFAULT_MAX_LAYOUTS);
+    }
+
+    /**
+     * @param boardSize   The number of rows (and columns) of the board
+     * @param budgetNanos The time each solve may take, in nanoseconds
+     * @param maxLayouts  The largest number of layouts to enumerate
+     */
+    public EndgameSolver(int boardSize, long budgetNanos, int maxLayouts) {
+        this(boardSize, budgetNanos, maxLayouts, new TranspositionCache<>(DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * @param boardSize   The number of rows (and columns) of the board
+     * @param budgetNanos The time each solve may take, in nanoseconds
+     * @param maxLayouts  The largest number of layouts to enumerate
+     * @param cache       Where to remember the expected number of shots left
+     *                    from the positions solved
+     */
+    public EndgameSolver(int boardSize, long budgetNanos, int maxLayouts, TranspositionCache<Double> cache) {
+        assert cache != null;
+
+        if (budgetNanos <= 0 || maxLayouts <= 0)
+            throw new IllegalArgumentException("ERROR! the budgets of the solver must be positive");
+
+        this.boardSize = boardSize;
+        this.cells = boardSize * boardSize;
+        this.words = BoardMask.words(boardSize);
+        this.budgetNanos = budgetNanos;
+        this.maxLayouts = maxLayouts;
+        this.zobrist = Zobrist.forBoard(boardSize);
+        this.board = BoardMask.create(boardSize);
+        BoardMask.fill(board, cells);
+        this.cache = cache;
+        this.coverage = new int[cells];
+        this.unhit = BoardMask.create(boardSize);
+        this.scratch = BoardMask.create(boardSize);
+    }
+
+    /**
+     * This operation solves a position
+     *
+     * @param blocked  The cells where no ship afloat may be: misses, and the
+     *                 cells of the ships sunk and around them
+     * @param hits     The cells hit of the ships afloat
+     * @param floating The kinds of the ships afloat, one per ship
+     * @return The cell to fire at next, or -1 if there is no ship afloat or no
+     * layout of them is consistent with the position
+     */
+    public int bestShot(long[] blocked, long[] hits, ShipType[] floating) {
+        assert blocked.length == words && hits.length == words;
+
+        this.deadline = System.nanoTime() + budgetNanos;
+        this.nodes = 0;
+        this.exact = true;
+        this.expected = Double.NaN;
+        this.blocked = blocked;
+        this.hits = hits;
+        BoardMask.andNot(unhit, board, hits);
+        prepare(floating);
+
+        Arrays.fill(coverage, 0);
+        layouts = 0;
+        if (ships.length == 0)
+            return -1;
+        try {
+            enumerate(0, -1, -1);
+        } catch (RuntimeException e) {
+            if (e != TIMEOUT)
+                throw e;
+            exact = false;
+        }
+        if (layouts == 0)
+            return -1;
+
+        int likeliest = -1;
+        for (int cell = 0; cell < cells; cell++)
+            if (!BoardMask.get(hits, cell) && (likeliest < 0 || coverage[cell] > coverage[likeliest]))
+                likeliest = cell;
+        if (!exact)
+            return likeliest;
+
+        int[] all = new int[layouts];
+        for (int i = 0; i < layouts; i++)
+            all[i] = i;
+        try {
+            int[] best = new int[1];
+            expected = search(all, hits.clone(), rootKey(floating), best);
+            return best[0];
+        } catch (RuntimeException e) {
+            if (e != TIMEOUT)
+                throw e;
+            exact = false;
+            expected = Double.NaN;
+            return likeliest;
+        }
+    }
+
+    /**
+     * @return The number of layouts enumerated by the last solve; all the
+     * consistent ones if it was exact
+     */
+    public int getLayouts() {
+        return layouts;
+    }
+
+    /**
+     * @return Whether the last solve finished within its budgets, so that its
+     * shot is optimal
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return The expected number of shots left, from the last position solved
+     * exactly, or NaN if the last solve was not exact
+     */
+    public double getExpectedShots() {
+        return expected;
+    }
+
+    private void prepare(ShipType[] floating) {
+        ships = floating.clone();
+        Arrays.sort(ships, (a, b) -> a.getSize() != b.getSize() ? b.getSize() - a.getSize()
+                : a.ordinal() - b.ordinal());
+
+        tables = new PlacementTable[ShipType.values().length * Compass.values().length];
+        int count = 0;
+        maxPlacements = 1;
+        shipTables = new int[ships.length][];
+        for (int i = 0; i < ships.length; i++) {
+            Compass[] bearings = ships[i].distinctBearings();
+            shipTables[i] = new int[bearings.length];
+            for (int b = 0; b < bearings.length; b++) {
+                PlacementTable table = PlacementTable.forType(ships[i], bearings[b], boardSize);
+                int t = indexOf(table, count);
+                if (t == count)
+                    tables[count++] = table;
+                shipTables[i][b] = t;
+                maxPlacements = Math.max(maxPlacements, table.size());
+            }
+        }
+
+        taken = new long[ships.length + 1][words];
+        chosenTables = new int[ships.length];
+        chosenPlacements = new int[ships.length];
+        int capacity = Math.min(maxLayouts, 1024);
+        layoutTables = new int[capacity * ships.length];
+        layoutPlacements = new int[capacity * ships.length];
+        covers = new long[capacity * words];
+    }
+
+    private int indexOf(PlacementTable table, int count) {
+        for (int t = 0; t < count; t++)
+            if (tables[t] == table)
+                return t;
+        return count;
+    }
+
+    /*
+     * Places ship i and the ones after it in every way that fits. Ships of the
+     * same kind are placed in increasing order of table and placement, so that
+     * each layout is found once.
+     */
+    private void enumerate(int i, int lastTable, int lastPlacement) {
+        if ((++nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline)
+            throw TIMEOUT;
+
+        long[] placed = taken[i];
+        if (i == ships.length) {
+            for (int w = 0; w < words; w++)
+                if ((hits[w] & ~placed[w]) != 0)
+                    return;
+            record();
+            return;
+        }
+
+        boolean sameKind = i > 0 && ships[i] == ships[i - 1];
+        for (int t : shipTables[i]) {
+            if (sameKind && t < lastTable)
+                continue;
+            PlacementTable table = tables[t];
+            int first = sameKind && t == lastTable ? lastPlacement + 1 : 0;
+            for (int p = first; p < table.size(); p++) {
+                if (table.overlaps(p, blocked) || !table.fits(p, placed) || !table.overlaps(p, unhit))
+                    continue;
+
+                long[] next = taken[i + 1];
+                System.arraycopy(placed, 0, next, 0, words);
+                table.addFootprint(p, next);
+                chosenTables[i] = t;
+                chosenPlacements[i] = p;
+                enumerate(i + 1, t, p);
+                if (layouts >= maxLayouts)
+                    throw TIMEOUT;
+            }
+        }
+    }
+
+    private void record() {
+        int n = ships.length;
+        if ((layouts + 1) * words > covers.length) {
+            layoutTables = Arrays.copyOf(layoutTables, 2 * layoutTables.length);
+            layoutPlacements = Arrays.copyOf(layoutPlacements, 2 * layoutPlacements.length);
+            covers = Arrays.copyOf(covers, 2 * covers.length);
+        }
+        long[] placed = taken[n];
+        System.arraycopy(chosenTables, 0, layoutTables, layouts * n, n);
+        System.arraycopy(chosenPlacements, 0, layoutPlacements, layouts * n, n);
+        System.arraycopy(placed, 0, covers, layouts * words, words);
+        BoardMask.count(placed, coverage);
+        layouts++;
+    }
+
+    private long rootKey(ShipType[] floating) {
+        long key = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (BoardMask.get(blocked, cell))
+                key ^= zobrist.key(Zobrist.MISS, cell);
+            else if (BoardMask.get(hits, cell))
+                key ^= zobrist.key(Zobrist.HIT, cell);
+        }
+        int[] counts = new int[ShipType.values().length];
+        for (ShipType type : floating)
+            counts[type.ordinal()]++;
+        for (ShipType type : ShipType.values())
+            key ^= zobrist.floating(type, counts[type.ordinal()]);
+        return key;
+    }
+
+    /*
+     * The expected number of shots left to sink every ship, over the given
+     * layouts, playing the best shot; at the root, best[0] is set to that shot.
+     */
+    private double search(int[] subset, long[] shot, long key, int[] best) {
+        if ((++nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline)
+            throw TIMEOUT;
+
+        int first = subset[0] * words;
+        int unshot = BoardMask.cardinalityAndNot(covers, first, shot);
+        if (unshot == 0)
+            return 0;
+
+        if (best == null) {
+            Double known = cache.get(key);
+            if (known != null)
+                return known;
+        }
+
+        int[] counts = new int[cells];
+        for (int l : subset) {
+            int offset = l * words;
+            for (int w = 0; w < words; w++) {
+                long word = covers[offset + w] & ~shot[w];
+                while (word != 0) {
+                    counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+                    word &= word - 1;
+                }
+            }
+        }
+        int candidates = 0;
+        long[] order = new long[cells];
+        for (int cell = 0; cell < cells; cell++)
+            if (counts[cell] > 0)
+                order[candidates++] = ((long) (subset.length - counts[cell]) << 32) | cell;
+        Arrays.sort(order, 0, candidates);
+        // a cell taken in every layout must be fired at sooner or later, and
+        // firing at it first can only tell more: no other shot need be tried
+        if (counts[(int) order[0]] == subset.length)
+            candidates = 1;
+
+        double bestValue = Double.POSITIVE_INFINITY;
+        long[] outcomes = new long[subset.length];
+        for (int k = 0; k < candidates; k++) {
+            int cell = (int) order[k];
+            double hitChance = (double) counts[cell] / subset.length;
+            if (1 + unshot - hitChance >= bestValue)
+                break;
+
+            long[] after = shot.clone();
+            BoardMask.set(after, cell);
+            for (int j = 0; j < subset.length; j++)
+                outcomes[j] = (outcome(subset[j], cell, after) << 32) | j;
+            Arrays.sort(outcomes);
+
+            double total = 0;
+            for (int from = 0; from < subset.length; ) {
+                long code = outcomes[from] >>> 32;
+                int to = from;
+                while (to < subset.length && outcomes[to] >>> 32 == code)
+                    to++;
+                int[] group = new int[to - from];
+                for (int j = from; j < to; j++)
+                    group[j - from] = subset[(int) outcomes[j]];
+                total += (to - from) * search(group, after, childKey(key, cell, code), null);
+                from = to;
+            }
+            double value = 1 + total / subset.length;
+            if (value < bestValue) {
+                bestValue = value;
+                if (best != null)
+                    best[0] = cell;
+            }
+        }
+
+        cache.put(key, bestValue);
+        return bestValue;
+    }
+
+    /*
+     * What firing at the cell tells of the layout: a miss, a hit, or the
+     * sinking of the ship of a given table and placement.
+     */
+    private long outcome(int layout, int cell, long[] after) {
+        int n = ships.length;
+        for (int i = 0; i < n; i++) {
+            PlacementTable table = tables[layoutTables[layout * n + i]];
+            int p = layoutPlacements[layout * n + i];
+            if (table.occupies(p, cell)) {
+                if (sunk(table, p, after))
+                    return 2 + (long) layoutTables[layout * n + i] * maxPlacements + p;
+                return HIT;
+            }
+        }
+        return MISS;
+    }
+
+    private boolean sunk(PlacementTable table, int p, long[] shot) {
+        BoardMask.andNot(scratch, board, shot);
+        return !table.overlaps(p, scratch);
+    }
+
+    private long childKey(long key, int cell, long code) {
+        if (code == MISS)
+            return key ^ zobrist.key(Zobrist.MISS, cell);
+        key ^= zobrist.key(Zobrist.HIT, cell);
+        if (code == HIT)
+            return key;
+
+        int t = (int) ((code - 2) / maxPlacements);
+        int p = (int) ((code - 2) % maxPlacements);
+        long[] cellsOfShip = new long[words];
+        tables[t].addFootprint(p, cellsOfShip);
+        for (int c = BoardMask.next(cellsOfShip, 0); c >= 0; c = BoardMask.next(cellsOfShip, c + 1))
+            key ^= zobrist.key(Zobrist.SUNK, c);
+        return key;
+    }
+}
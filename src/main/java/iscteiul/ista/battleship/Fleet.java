@@ -3,8 +3,14 @@
  */
 package iscteiul.ista.battleship;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class Fleet implements IFleet {
     /**
@@ -19,10 +25,97 @@ public class Fleet implements IFleet {
 
     // -----------------------------------------------------
 
+    /*
+     * The list of ships handed out by getShips, counting every change made to
+     * it, so that the index can tell when it is stale
+     */
+    private static final class ShipList extends AbstractList<IShip> {
+        private final List<IShip> ships = new ArrayList<>();
+        private int changes;
+
+        @Override
+        public IShip get(int index) {
+            return ships.get(index);
+        }
+
+        @Override
+        public int size() {
+            return ships.size();
+        }
+
+        @Override
+        public IShip set(int index, IShip s) {
+            IShip previous = ships.set(index, s);
+            changes++;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, IShip s) {
+            ships.add(index, s);
+            changes++;
+            modCount++;
+        }
+
+        @Override
+        public IShip remove(int index) {
+            IShip removed = ships.remove(index);
+            changes++;
+            modCount++;
+            return removed;
+        }
+    }
+
     private List<IShip> ships;
 
+    /*
+     * Ships indexed by the ordinal of their type, together with read-only views
+     * over them. The index describes indexedShips as it was after indexedChanges
+     * changes; it is rebuilt whenever the ships list is replaced or changed
+     * behind its back. A list put in place of the fleet's own can only be
+     * watched for its size.
+     */
+    private final List<List<IShip>> shipsByType;
+    private final List<List<IShip>> shipsByTypeViews;
+    private List<IShip> indexedShips;
+    private int indexedChanges;
+
+    /*
+     * The cells taken by the indexed ships, used to validate new ships against
+     * the precomputed placement tables. It can only be trusted if every one of
+     * those ships lies inside the board.
+     */
+    private final long[] occupied;
+    private boolean occupiedExact;
+
+    /*
+     * The first indexed ship taking each cell of the board, so that shipAt does
+     * not have to ask every ship.
+     */
+    private final IShip[] shipCells;
+
+    /*
+     * The Zobrist hash of the cells taken by the indexed ships, by kind
+     */
+    private final Zobrist zobrist;
+    private long hash;
+
     public Fleet() {
-        ships = new ArrayList<>();
+        ships = new ShipList();
+        shipsByType = new ArrayList<>(ShipType.values().length);
+        shipsByTypeViews = new ArrayList<>(ShipType.values().length);
+        for (int t = 0; t < ShipType.values().length; t++) {
+            List<IShip> shipsOfType = new ArrayList<>();
+            shipsByType.add(shipsOfType);
+            shipsByTypeViews.add(Collections.unmodifiableList(shipsOfType));
+        }
+        indexedShips = ships;
+        indexedChanges = 0;
+        occupied = BoardMask.create(BOARD_SIZE);
+        occupiedExact = true;
+        shipCells = new IShip[BOARD_SIZE * BOARD_SIZE];
+        zobrist = Zobrist.forBoard(BOARD_SIZE);
+        hash = 0;
     }
 
     @Override
@@ -38,8 +131,10 @@ public class Fleet implements IFleet {
     @Override
     public boolean addShip(IShip s) {
         boolean result = false;
-        if ((ships.size() <= FLEET_SIZE) && (isInsideBoard(s)) && (!colisionRisk(s))) {
+        if ((ships.size() <= FLEET_SIZE) && fits(s)) {
             ships.add(s);
+            index(s);
+            indexedChanges = changes(ships);
             result = true;
         }
         return result;
@@ -52,6 +147,11 @@ public class Fleet implements IFleet {
      */
     @Override
     public List<IShip> getShipsLike(String category) {
+        ShipType type = ShipType.fromName(category);
+        if (type != null)
+            return getShipsLike(type);
+
+        // not a registered category: only foreign IShip implementations may have it
         List<IShip> shipsLike = new ArrayList<>();
         for (IShip s : ships)
             if (s.getCategory().equals(category))
@@ -60,6 +160,112 @@ public class Fleet implements IFleet {
         return shipsLike;
     }
 
+    /**
+     * @param type The kind of ships of interest
+     * @return A read-only view of the ships of the fleet of that kind
+     */
+    public List<IShip> getShipsLike(ShipType type) {
+        ensureIndexed();
+        return shipsByTypeViews.get(type.ordinal());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The ships are streamed from the index of the ships of each kind.
+     */
+    @Override
+    public Stream<IShip> shipsLike(ShipType type) {
+        ensureIndexed();
+        return shipsByType.get(type.ordinal()).stream();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the cells around the position are looked at, in the index of the
+     * ship taking each cell, unless some ship lies partly off the board.
+     */
+    @Override
+    public Stream<IShip> shipsNear(IPosition pos, int distance) {
+        ensureIndexed();
+        if (distance < 0 || !occupiedExact)
+            return IFleet.super.shipsNear(pos, distance);
+
+        int reach = Math.min(distance, BOARD_SIZE);
+        int top = Math.max(0, pos.getRow() - reach);
+        int bottom = Math.min(BOARD_SIZE - 1, pos.getRow() + reach);
+        int left = Math.max(0, pos.getColumn() - reach);
+        int right = Math.min(BOARD_SIZE - 1, pos.getColumn() + reach);
+        return IntStream.rangeClosed(top, bottom)
+                .flatMap(r -> IntStream.rangeClosed(left, right).map(c -> r * BOARD_SIZE + c))
+                .mapToObj(cell -> shipCells[cell]).filter(Objects::nonNull).distinct();
+    }
+
+    /**
+     * @return The Zobrist hash of the layout of the fleet: the cells taken by its
+     * ships, by kind. Fleets with the same layout have the same hash, whatever
+     * the order in which their ships were added.
+     */
+    public long getHash() {
+        ensureIndexed();
+        return hash;
+    }
+
+    private void ensureIndexed() {
+        if (indexedShips == ships && indexedChanges == changes(ships))
+            return;
+
+        for (List<IShip> shipsOfType : shipsByType)
+            shipsOfType.clear();
+        Arrays.fill(occupied, 0L);
+        Arrays.fill(shipCells, null);
+        hash = 0;
+        occupiedExact = true;
+        indexedShips = ships;
+        for (IShip s : ships)
+            index(s);
+        indexedChanges = changes(ships);
+    }
+
+    private static int changes(List<IShip> ships) {
+        return ships instanceof ShipList ? ((ShipList) ships).changes : ships.size();
+    }
+
+    private void index(IShip s) {
+        // a ship that does not tell its kind is still found under its category
+        ShipType type = s.getType() != null ? s.getType() : ShipType.fromName(s.getCategory());
+        if (type != null)
+            shipsByType.get(type.ordinal()).add(s);
+        for (IPosition p : s.getPositions()) {
+            hash ^= zobrist.ship(type, p.getRow(), p.getColumn());
+            if (p.getRow() < 0 || p.getRow() >= BOARD_SIZE || p.getColumn() < 0 || p.getColumn() >= BOARD_SIZE)
+                occupiedExact = false;
+            else {
+                int cell = p.getRow() * BOARD_SIZE + p.getColumn();
+                BoardMask.set(occupied, cell);
+                if (shipCells[cell] == null)
+                    shipCells[cell] = s;
+            }
+        }
+    }
+
+    /*
+     * Ships built from the shape tables are checked against the placement table
+     * of their shape: one lookup tells whether they are inside the board, and a
+     * couple of mask intersections whether they are too close to other ships.
+     * Any other ship goes through the position by position checks.
+     */
+    private boolean fits(IShip s) {
+        ensureIndexed();
+        PlacementTable table = occupiedExact ? PlacementTable.forShip(s, BOARD_SIZE) : null;
+        if (table == null)
+            return isInsideBoard(s) && !colisionRisk(s);
+
+        int placement = table.indexOf(s.getPosition().getRow(), s.getPosition().getColumn());
+        return placement >= 0 && table.fits(placement, occupied);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -82,6 +288,10 @@ public class Fleet implements IFleet {
      */
     @Override
     public IShip shipAt(IPosition pos) {
+        ensureIndexed();
+        if (pos.getRow() >= 0 && pos.getRow() < BOARD_SIZE && pos.getColumn() >= 0 && pos.getColumn() < BOARD_SIZE)
+            return shipCells[pos.getRow() * BOARD_SIZE + pos.getColumn()];
+
         for (int i = 0; i < ships.size(); i++)
             if (ships.get(i).occupies(pos))
                 return ships.get(i);
@@ -108,11 +318,8 @@ public class Fleet implements IFleet {
     public void printStatus() {
         printAllShips();
         printFloatingShips();
-        printShipsByCategory("Galeao");
-        printShipsByCategory("Fragata");
-        printShipsByCategory("Nau");
-        printShipsByCategory("Caravela");
-        printShipsByCategory("Barca");
+        for (ShipType type : ShipType.values())
+            printShips(getShipsLike(type));
     }
 
     /**
@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generator of random fleets, placing ships by walking the shared
+ * {@link PlacementTable}s of their kinds instead of building and checking
+ * candidate ships one position at a time.
+ * <p>
+ * Each ship is chosen uniformly among the placements, over all the distinct
+ * bearings of its kind, that fit with the ships already placed; larger ships
+ * are placed first. A generator keeps the layout it produced last, so that
+ * solvers and simulations may use the masks without building any ship. It is
+ * not thread safe; use one per thread.
+ */
+public class FleetGenerator {
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final int boardSize;
+    private final ShipType[] types;
+    private final PlacementTable[][] tables;
+    private final Compass[][] bearings;
+
+    private final long[] occupied;
+    private final int[] chosenBearing;
+    private final int[] chosenPlacement;
+
+    /**
+     * Creates a generator of standard fleets on the board of the game
+     */
+    public FleetGenerator() {
+        this(standardFleet(), Fleet.BOARD_SIZE);
+    }
+
+    /**
+     * @param types     The kinds of the ships of the fleet, one per ship
+     * @param boardSize The number of rows (and columns) of the board
+     */
+    public FleetGenerator(ShipType[] types, int boardSize) {
+        this.boardSize = boardSize;
+        this.types = types.clone();
+        Arrays.sort(this.types, (a, b) -> b.getSize() - a.getSize());
+
+        this.tables = new PlacementTable[this.types.length][];
+        this.bearings = new Compass[this.types.length][];
+        for (int i = 0; i < this.types.length; i++) {
+            bearings[i] = this.types[i].distinctBearings();
+            tables[i] = new PlacementTable[bearings[i].length];
+            for (int b = 0; b < bearings[i].length; b++)
+                tables[i][b] = PlacementTable.forType(this.types[i], bearings[i][b], boardSize);
+        }
+
+        this.occupied = BoardMask.create(boardSize);
+        this.chosenBearing = new int[this.types.length];
+        this.chosenPlacement = new int[this.types.length];
+    }
+
+    /**
+     * @return The kinds of the ships of a standard fleet, one per ship
+     */
+    public static ShipType[] standardFleet() {
+        ShipType[] fleet = new ShipType[ShipType.standardFleetSize()];
+        int i = 0;
+        for (ShipType type : ShipType.values())
+            for (int n = 0; n < type.getFleetCount(); n++)
+                fleet[i++] = type;
+        return fleet;
+    }
+
+    /**
+     * This operation lays out a new random fleet, keeping it as masks only
+     *
+     * @param random The source of randomness
+     * @throws IllegalStateException If the ships do not fit in the board
+     */
+    public void place(Random random) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+            if (tryPlace(random))
+                return;
+        throw new IllegalStateException("ERROR! could not place " + types.length + " ships in the board");
+    }
+
+    private boolean tryPlace(Random random) {
+        Arrays.fill(occupied, 0L);
+        for (int i = 0; i < types.length; i++) {
+            int fitting = 0;
+            for (PlacementTable table : tables[i])
+                for (int p = 0; p < table.size(); p++)
+                    if (table.fits(p, occupied))
+                        fitting++;
+            if (fitting == 0)
+                return false;
+
+            int chosen = random.nextInt(fitting);
+            for (int b = 0; b < tables[i].length && chosen >= 0; b++) {
+                PlacementTable table = tables[i][b];
+                for (int p = 0; p < table.size() && chosen >= 0; p++)
+                    if (table.fits(p, occupied) && chosen-- == 0) {
+                        chosenBearing[i] = b;
+                        chosenPlacement[i] = p;
+                        table.addFootprint(p, occupied);
+                    }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This operation builds a new random fleet for the game
+     *
+     * @param random The source of randomness
+     * @return The fleet, with all its ships added through {@link Fleet#addShip}
+     */
+    public Fleet generate(Random random) {
+        if (boardSize != Fleet.BOARD_SIZE)
+            throw new IllegalStateException("ERROR! fleets of the game need a board of size " + Fleet.BOARD_SIZE);
+
+        place(random);
+        Fleet fleet = new Fleet();
+        addShipsTo(fleet);
+        return fleet;
+    }
+
+    /**
+     * This operation builds the ships of the last fleet laid out
+     *
+     * @param fleet The fleet to add them to, through {@link IFleet#addShip}
+     * @throws IllegalStateException If the fleet refuses one of the ships
+     */
+    public void addShipsTo(IFleet fleet) {
+        for (int i = 0; i < types.length; i++) {
+            IShip ship = types[i].build(bearing(i), table(i).anchorPosition(placement(i)));
+            if (!fleet.addShip(ship))
+                throw new IllegalStateException("ERROR! the fleet refused the generated " + ship);
+        }
+    }
+
+    /**
+     * @return The number of ships of the fleet
+     */
+    public int shipCount() {
+        return types.length;
+    }
+
+    /**
+     * @param ship The index of a ship, in placement order
+     * @return The kind of the ship
+     */
+    public ShipType type(int ship) {
+        return types[ship];
+    }
+
+    /**
+     * @param ship The index of a ship, in placement order
+     * @return The bearing of the ship in the last fleet laid out
+     */
+    public Compass bearing(int ship) {
+        return bearings[ship][chosenBearing[ship]];
+    }
+
+    /**
+     * @param ship The index of a ship, in placement order
+     * @return The table of the placements of the ship with its bearing in the
+     * last fleet laid out
+     */
+    public PlacementTable table(int ship) {
+        return tables[ship][chosenBearing[ship]];
+    }
+
+    /**
+     * @param ship The index of a ship, in placement order
+     * @return The index, in its table, of the placement of the ship in the last
+     * fleet laid out
+     */
+    public int placement(int ship) {
+        return chosenPlacement[ship];
+    }
+
+    /**
+     * @return The cells taken by the last fleet laid out. The mask is reused by
+     * the next layout and must not be modified.
+     */
+    public long[] occupied() {
+        return occupied;
+    }
+}
@@ -11,13 +11,33 @@ import java.util.List;
  *
  */
 public class Game implements IGame {
+    /*
+     * Shots on row or column BOARD_SIZE are taken as valid, so the mask of the
+     * shots fired is laid out over a board one row and one column larger.
+     */
+    private static final int SHOT_STRIDE = Fleet.BOARD_SIZE + 1;
+
     private IFleet fleet;
-    private List<IPosition> shots;
+    private ArrayList<IPosition> shots;
+    private final long[] shotMask;
 
-    private Integer countInvalidShots;
-    private Integer countRepeatedShots;
-    private Integer countHits;
-    private Integer countSinks;
+    /*
+     * The Zobrist hash of what the shots fired so far revealed, kept up to date
+     * as they land
+     */
+    private final Zobrist zobrist;
+    private long hash;
+
+    /*
+     * The ships hit by the shots of a volley, made on the first one and
+     * reused, so that firing a volley allocates nothing
+     */
+    private IShip[] volleyShips;
+
+    private int countInvalidShots;
+    private int countRepeatedShots;
+    private int countHits;
+    private int countSinks;
 
 
     /**
@@ -25,9 +45,20 @@ public class Game implements IGame {
      */
     public Game(IFleet fleet) {
         shots = new ArrayList<>();
+        shotMask = BoardMask.create(SHOT_STRIDE);
+        zobrist = Zobrist.forBoard(Fleet.BOARD_SIZE);
+        hash = 0;
         countInvalidShots = 0;
         countRepeatedShots = 0;
+        countHits = 0;
+        countSinks = 0;
         this.fleet = fleet;
+
+        GameEvents.GameCreated event = new GameEvents.GameCreated();
+        if (event.shouldCommit()) {
+            event.ships = fleet.getShips().size();
+            event.commit();
+        }
     }
 
     /*
@@ -37,6 +68,21 @@ public class Game implements IGame {
      */
     @Override
     public IShip fire(IPosition pos) {
+        GameEvents.Shot event = new GameEvents.Shot();
+        event.begin();
+        int hits = countHits;
+        IShip sunk = shoot(pos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.row = pos.getRow();
+            event.column = pos.getColumn();
+            event.hit = countHits > hits;
+            event.commit();
+        }
+        return sunk;
+    }
+
+    private IShip shoot(IPosition pos) {
         if (!validShot(pos))
             countInvalidShots++;
         else { // valid shot!
@@ -44,12 +90,17 @@ public class Game implements IGame {
                 countRepeatedShots++;
             else {
                 shots.add(pos);
+                BoardMask.set(shotMask, pos.getRow() * SHOT_STRIDE + pos.getColumn());
                 IShip s = fleet.shipAt(pos);
+                hash ^= zobrist.key(s == null ? Zobrist.MISS : Zobrist.HIT, pos.getRow(), pos.getColumn());
                 if (s != null) {
                     s.shoot(pos);
                     countHits++;
                     if (!s.stillFloating()) {
                         countSinks++;
+                        for (IPosition p : s.getPositions())
+                            hash ^= zobrist.key(Zobrist.SUNK, p.getRow(), p.getColumn());
+                        sunk(s);
                         return s;
                     }
                 }
@@ -58,6 +109,77 @@ public class Game implements IGame {
         return null;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The volley takes two passes. The first checks each shot against the mask
+     * of the cells fired at, which the shots landed earlier in the volley are
+     * already on, and lands it, noting the ship it hits in an array kept by the
+     * game. The second looks at the ships noted to find those sunk. No event is
+     * emitted per shot, only per ship sunk.
+     */
+    @Override
+    public int fire(IPosition[] volley, int count, IShip[] sunk) {
+        if (count < 0 || count > volley.length)
+            throw new IllegalArgumentException("ERROR! invalid volley size " + count);
+        if (volleyShips == null) {
+            volleyShips = new IShip[SHOT_STRIDE * SHOT_STRIDE];
+            shots.ensureCapacity(SHOT_STRIDE * SHOT_STRIDE);
+        }
+
+        // validate, de-duplicate and land
+        int landed = 0;
+        for (int i = 0; i < count; i++) {
+            IPosition pos = volley[i];
+            if (!validShot(pos)) {
+                countInvalidShots++;
+                continue;
+            }
+            int cell = pos.getRow() * SHOT_STRIDE + pos.getColumn();
+            if (BoardMask.get(shotMask, cell)) {
+                countRepeatedShots++;
+                continue;
+            }
+            BoardMask.set(shotMask, cell);
+            shots.add(pos);
+            IShip s = fleet.shipAt(pos);
+            hash ^= zobrist.key(s == null ? Zobrist.MISS : Zobrist.HIT, pos.getRow(), pos.getColumn());
+            if (s != null) {
+                s.shoot(pos);
+                countHits++;
+                volleyShips[landed++] = s;
+            }
+        }
+
+        // report the ships sunk, each once, moving them to the front of the array
+        int sinks = 0;
+        for (int i = 0; i < landed; i++) {
+            IShip s = volleyShips[i];
+            volleyShips[i] = null;
+            if (s.stillFloating() || reported(s, sinks))
+                continue;
+            volleyShips[sinks++] = s;
+            countSinks++;
+            List<IPosition> positions = s.getPositions();
+            for (int p = 0; p < positions.size(); p++)
+                hash ^= zobrist.key(Zobrist.SUNK, positions.get(p).getRow(), positions.get(p).getColumn());
+            sunk(s);
+        }
+        for (int i = 0; i < sinks; i++) {
+            if (i < sunk.length)
+                sunk[i] = volleyShips[i];
+            volleyShips[i] = null;
+        }
+        return sinks;
+    }
+
+    private boolean reported(IShip ship, int sinks) {
+        for (int i = 0; i < sinks; i++)
+            if (volleyShips[i] == ship)
+                return true;
+        return false;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -119,16 +241,39 @@ public class Game implements IGame {
         return floatingShips.size();
     }
 
+    /**
+     * @return The Zobrist hash of the state of the board as seen by the player:
+     * the cells missed, the cells hit and the cells of the ships sunk. Games in
+     * the same state have the same hash, whatever the order of their shots.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    private void sunk(IShip ship) {
+        GameEvents.ShipSunk sunk = new GameEvents.ShipSunk();
+        if (sunk.shouldCommit()) {
+            sunk.category = ship.getCategory();
+            sunk.shots = shots.size();
+            sunk.commit();
+        }
+        GameEvents.GameEnded ended = new GameEvents.GameEnded();
+        if (ended.isEnabled() && getRemainingShips() == 0 && ended.shouldCommit()) {
+            ended.shots = shots.size();
+            ended.hits = countHits;
+            ended.invalid = countInvalidShots;
+            ended.repeated = countRepeatedShots;
+            ended.commit();
+        }
+    }
+
     private boolean validShot(IPosition pos) {
         return (pos.getRow() >= 0 && pos.getRow() <= Fleet.BOARD_SIZE && pos.getColumn() >= 0
                 && pos.getColumn() <= Fleet.BOARD_SIZE);
     }
 
     private boolean repeatedShot(IPosition pos) {
-        for (int i = 0; i < shots.size(); i++)
-            if (shots.get(i).equals(pos))
-                return true;
-        return false;
+        return validShot(pos) && BoardMask.get(shotMask, pos.getRow() * SHOT_STRIDE + pos.getColumn());
     }
 
 
@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingControl;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Java Flight Recorder events of the game, so that recordings show game
+ * activity next to garbage collections, safepoints and the other events of the
+ * JVM.
+ * <p>
+ * Games emit {@link GameCreated}, {@link ShipSunk} and {@link GameEnded};
+ * {@link Tasks} emits {@link FleetBuilt} and {@link Volley}. {@link Shot}
+ * times every {@link Game#fire}, and is disabled unless asked for. Events that
+ * are not being recorded cost a check of a flag. The volleys and the shots
+ * recorded can be thinned out with the {@value #SAMPLING} setting, which keeps
+ * one event in every so many.
+ * <p>
+ * The settings bundled in {@value #SETTINGS}, and returned by
+ * {@link #configuration()}, record every event of the game along with those of
+ * the JVM that explain pauses: for instance
+ * {@code -XX:StartFlightRecording:settings=battleship.jfc,filename=game.jfr}
+ * once the file is copied out of the jar.
+ */
+public final class GameEvents {
+    /**
+     * The resource holding the bundled recording settings
+     */
+    public static final String SETTINGS = "battleship.jfc";
+
+    /**
+     * The name of the setting that keeps one event in every so many
+     */
+    public static final String SAMPLING = "sampling";
+
+    private GameEvents() {
+    }
+
+    /**
+     * @return The bundled recording settings
+     * @throws IOException If they cannot be read
+     */
+    public static Configuration configuration() throws IOException {
+        try (InputStream in = GameEvents.class.getResourceAsStream("/" + SETTINGS)) {
+            if (in == null)
+                throw new IOException("ERROR! missing resource " + SETTINGS);
+            try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            } catch (ParseException e) {
+                throw new IOException("ERROR! invalid resource " + SETTINGS, e);
+            }
+        }
+    }
+
+    /**
+     * The setting that keeps one event in every so many, "1" keeping them all.
+     * When several recordings ask for different rates, the highest wins.
+     */
+    public static final class Sampling extends SettingControl {
+        private final AtomicLong seen = new AtomicLong();
+        private volatile long every = 1;
+
+        @Override
+        public String combine(Set<String> values) {
+            long lowest = Long.MAX_VALUE;
+            for (String value : values)
+                lowest = Math.min(lowest, parse(value));
+            return Long.toString(lowest == Long.MAX_VALUE ? 1 : lowest);
+        }
+
+        @Override
+        public void setValue(String value) {
+            every = parse(value);
+        }
+
+        @Override
+        public String getValue() {
+            return Long.toString(every);
+        }
+
+        private static long parse(String value) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+
+        /**
+         * @return Whether the event at hand is one of those kept
+         */
+        boolean accept() {
+            long n = every;
+            return n == 1 || seen.getAndIncrement() % n == 0;
+        }
+    }
+
+    /**
+     * A game has been created
+     */
+    @Name("battleship.GameCreated")
+    @Label("Game Created")
+    @Category("Battleship")
+    @StackTrace(false)
+    public static final class GameCreated extends Event {
+        @Label("Ships")
+        int ships;
+    }
+
+    /**
+     * A fleet has been read and built, by {@link Tasks}
+     */
+    @Name("battleship.FleetBuilt")
+    @Label("Fleet Built")
+    @Category("Battleship")
+    @StackTrace(false)
+    public static final class FleetBuilt extends Event {
+        @Label("Ships Added")
+        int added;
+
+        @Label("Ships Rejected")
+        @Description("Ships that did not fit the board or touched another ship")
+        int rejected;
+
+        @Label("Unknown Ships")
+        @Description("Ships of a kind that does not exist")
+        int unknown;
+    }
+
+    /**
+     * A round of shots has been fired, by {@link Tasks}
+     */
+    @Name("battleship.Volley")
+    @Label("Volley")
+    @Category("Battleship")
+    @StackTrace(false)
+    public static final class Volley extends Event {
+        @Label("Shots")
+        @Description("Shots fired, not counting those forfeited as late")
+        int shots;
+
+        @Label("Hits")
+        int hits;
+
+        @Label("Sinks")
+        int sinks;
+
+        @Label("Invalid Shots")
+        int invalid;
+
+        @Label("Repeated Shots")
+        int repeated;
+
+        @Label("Late Shots")
+        @Description("Shots forfeited for being chosen too late")
+        int late;
+
+        /*
+         * The setting is checked by shouldCommit() and again by commit(), so
+         * the first answer is kept for the second
+         */
+        private transient boolean sampled;
+        private transient boolean kept;
+
+        @Label("Sampling")
+        @Description("Keeps one volley in every so many")
+        @SettingDefinition
+        @Name(SAMPLING)
+        boolean sampling(Sampling control) {
+            if (!sampled) {
+                kept = control.accept();
+                sampled = true;
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * A shot has been fired at a game; disabled unless asked for, as there is
+     * one for each {@link Game#fire}
+     */
+    @Name("battleship.Shot")
+    @Label("Shot")
+    @Category("Battleship")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Shot extends Event {
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int column;
+
+        @Label("Hit")
+        boolean hit;
+
+        /*
+         * As for volleys, the first answer of the setting is kept
+         */
+        private transient boolean sampled;
+        private transient boolean kept;
+
+        @Label("Sampling")
+        @Description("Keeps one shot in every so many")
+        @SettingDefinition
+        @Name(SAMPLING)
+        boolean sampling(Sampling control) {
+            if (!sampled) {
+                kept = control.accept();
+                sampled = true;
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * A ship has been sunk
+     */
+    @Name("battleship.ShipSunk")
+    @Label("Ship Sunk")
+    @Category("Battleship")
+    @StackTrace(false)
+    public static final class ShipSunk extends Event {
+        @Label("Category")
+        String category;
+
+        @Label("Shots")
+        @Description("Valid shots fired in the game so far")
+        int shots;
+    }
+
+    /**
+     * The last ship of a game has been sunk
+     */
+    @Name("battleship.GameEnded")
+    @Label("Game Ended")
+    @Category("Battleship")
+    @StackTrace(false)
+    public static final class GameEnded extends Event {
+        @Label("Shots")
+        @Description("Valid shots fired in the game")
+        int shots;
+
+        @Label("Hits")
+        int hits;
+
+        @Label("Invalid Shots")
+        int invalid;
+
+        @Label("Repeated Shots")
+        int repeated;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A feed of what happens in games, published through
+ * {@link java.util.concurrent.Flow} to any number of subscribers: loggers,
+ * metrics, persistence or spectators.
+ * <p>
+ * Games are fed by decorators, as with {@link Metrics}: every shot fired at a
+ * game returned by {@link #instrument(IGame)} becomes an {@link Event}, which
+ * tells the game and the number of the event in it, so that the events of
+ * games fed together can be told apart. The events are gathered in batches on
+ * the firing thread, and each batch, once full, is offered to the subscribers
+ * through a {@link SubmissionPublisher}. Each subscriber has a bounded buffer
+ * of batches, and is handed them on a thread of the feed; a batch a subscriber
+ * has no room for is dropped for it and counted, so the firing thread never
+ * waits for a subscriber. The last batch of a game is published as soon as the
+ * game is over, and {@link #flush()} publishes a batch not yet full.
+ * <p>
+ * The games of a feed are to be played from one thread at a time.
+ */
+public final class GameFeed implements Flow.Publisher<List<GameFeed.Event>>, AutoCloseable {
+
+    /**
+     * The kinds of events
+     */
+    public enum Kind {
+        /**
+         * A shot that landed in open water
+         */
+        MISS,
+        /**
+         * A shot that hit a ship without sinking it
+         */
+        HIT,
+        /**
+         * A shot that sank a ship
+         */
+        SINK,
+        /**
+         * A shot off the board
+         */
+        INVALID,
+        /**
+         * A shot at a cell already fired at
+         */
+        REPEAT,
+        /**
+         * The end of the game, after the shot that sank its last ship
+         */
+        GAME_OVER
+    }
+
+    /**
+     * Something that happened in a game
+     */
+    public static final class Event {
+        private final Kind kind;
+        private final long sequence;
+        private final int game;
+        private final int shot;
+        private final int row;
+        private final int column;
+        private final String category;
+
+        Event(Kind kind, long sequence, int game, int shot, IPosition pos, String category) {
+            this.kind = kind;
+            this.sequence = sequence;
+            this.game = game;
+            this.shot = shot;
+            this.row = pos.getRow();
+            this.column = pos.getColumn();
+            this.category = category;
+        }
+
+        /**
+         * @return The kind of event
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return The number of the event in the feed, from 1
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return The game, numbered from 0 in the order the games were
+         * instrumented
+         */
+        public int getGame() {
+            return game;
+        }
+
+        /**
+         * @return The number of the event in its game, from 0
+         */
+        public int getShot() {
+            return shot;
+        }
+
+        /**
+         * @return The row fired at
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * @return The column fired at
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return The category of the ship sunk, or null for the other kinds of
+         * events
+         */
+        public String getCategory() {
+            return category;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " #" + sequence + " game " + game + " shot " + shot + " (" + row + ", " + column + ")" + (category != null ? " " + category : "");
+        }
+    }
+
+    /*
+     * Where the events of one fed game go, numbered as they come
+     */
+    private final class Fed implements PublishingGame.Outlet {
+        private final int game;
+        private int shots;
+
+        private Fed(int game) {
+            this.game = game;
+        }
+
+        @Override
+        public void publish(Kind kind, IPosition pos, String category) {
+            GameFeed.this.publish(game, shots++, kind, pos, category);
+        }
+    }
+
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final SubmissionPublisher<List<Event>> publisher;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger games = new AtomicInteger();
+    private List<Event> batch;
+    private long sequence;
+
+    /**
+     * @param batchSize      The number of events published together
+     * @param bufferCapacity The number of batches a subscriber may fall behind
+     *                       before further ones are dropped for it, rounded up
+     *                       to a power of two
+     */
+    public GameFeed(int batchSize, int bufferCapacity) {
+        if (batchSize <= 0 || bufferCapacity <= 0)
+            throw new IllegalArgumentException("ERROR! invalid feed settings");
+
+        this.batchSize = batchSize;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "game-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * @param game The game to feed from
+     * @return A game that forwards to the given one, turning every shot into
+     * events of this feed under the next game number
+     */
+    public IGame instrument(IGame game) {
+        return new PublishingGame(game, new Fed(games.getAndIncrement()));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.concurrent.Flow.Publisher#subscribe(java.util.concurrent.Flow.Subscriber)
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Event>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * @return The number of subscribers
+     */
+    public int getSubscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * @return The number of batches dropped, counting one per subscriber that
+     * had no room for them
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    void publish(int game, int shot, Kind kind, IPosition pos, String category) {
+        batch.add(new Event(kind, ++sequence, game, shot, pos, category));
+        if (batch.size() == batchSize || kind == Kind.GAME_OVER)
+            flush();
+    }
+
+    /**
+     * This operation publishes the events gathered so far, if any
+     */
+    public void flush() {
+        if (batch.isEmpty())
+            return;
+        List<Event> full = Collections.unmodifiableList(batch);
+        batch = new ArrayList<>(batchSize);
+        if (publisher.hasSubscribers())
+            publisher.offer(full, (subscriber, items) -> {
+                dropped.incrementAndGet();
+                return false;
+            });
+    }
+
+    /**
+     * This operation publishes the events gathered so far, tells the
+     * subscribers that the feed is complete, and waits a little for them to
+     * see the batches they were handed before stopping its threads
+     */
+    @Override
+    public void close() {
+        flush();
+        publisher.close();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
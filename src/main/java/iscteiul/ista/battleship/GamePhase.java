@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The phases of a game, told apart by how much of the fleet has been sunk.
+ */
+public enum GamePhase {
+    /**
+     * No ship sunk yet: shots are aimed at a board about which little is known
+     */
+    OPENING,
+    /**
+     * Some ships sunk, more than {@link #ENDGAME_SHIPS} still floating
+     */
+    MIDDLE,
+    /**
+     * At most {@link #ENDGAME_SHIPS} ships still floating
+     */
+    ENDGAME;
+
+    /**
+     * The largest number of ships still floating in the endgame
+     */
+    public static final int ENDGAME_SHIPS = 2;
+
+    /**
+     * @param sunk  The number of ships sunk so far
+     * @param ships The number of ships of the fleet
+     * @return The phase the game is in
+     */
+    public static GamePhase of(int sunk, int ships) {
+        assert 0 <= sunk && sunk <= ships;
+
+        if (ships - sunk <= ENDGAME_SHIPS)
+            return ENDGAME;
+        return sunk == 0 ? OPENING : MIDDLE;
+    }
+}
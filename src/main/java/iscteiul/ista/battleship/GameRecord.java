@@ -0,0 +1,264 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compact record of a finished game: the layout of the fleet, as the ship
+ * occupying each cell of the board, and the cells fired at, in order.
+ * <p>
+ * Records are written one after another to a stream, so that corpora of any
+ * size can be read back, and analysed, without holding them in memory. Each
+ * is written as the board size, the kind of each ship, the ship of each cell
+ * and the shots. The ship of a cell takes one byte when there are at most 255
+ * ships, as in a standard game, and two otherwise; a shot takes one byte on
+ * boards of at most 256 cells, as in a standard game, two on boards of at
+ * most 65536, and four on larger ones.
+ */
+public final class GameRecord {
+    private final int boardSize;
+    private final ShipType[] ships;
+    private final int[] cells;
+    private final int[] shots;
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board
+     * @param ships     The kind of each ship
+     * @param cells     For each cell, 0 if it is water, or one more than the
+     *                  index of the ship occupying it
+     * @param shots     The cells fired at, in order, each once
+     * @throws IllegalArgumentException If a ship, a cell or a shot is out of
+     *                                  range, a ship is of no kind, or a cell
+     *                                  is fired at twice
+     */
+    public GameRecord(int boardSize, ShipType[] ships, int[] cells, int[] shots) {
+        // the board is at most 46340 wide, as its cells are in an array, so its size fits in a short
+        if (boardSize <= 0 || cells.length != (long) boardSize * boardSize || ships.length > Short.MAX_VALUE)
+            throw new IllegalArgumentException("ERROR! invalid game record");
+        for (ShipType type : ships)
+            if (type == null)
+                throw new IllegalArgumentException("ERROR! ship of no kind in game record");
+        for (int ship : cells)
+            if (ship < 0 || ship > ships.length)
+                throw new IllegalArgumentException("ERROR! invalid ship " + ship + " in game record");
+        long[] fired = BoardMask.create(boardSize);
+        for (int cell : shots) {
+            if (cell < 0 || cell >= cells.length)
+                throw new IllegalArgumentException("ERROR! invalid shot " + cell + " in game record");
+            if (BoardMask.get(fired, cell))
+                throw new IllegalArgumentException("ERROR! repeated shot " + cell + " in game record");
+            BoardMask.set(fired, cell);
+        }
+
+        this.boardSize = boardSize;
+        this.ships = ships.clone();
+        this.cells = cells;
+        this.shots = shots;
+    }
+
+    /**
+     * This operation records a game
+     *
+     * @param fleet The fleet of the game, made of ships of registered kinds
+     * @param shots The shots fired at it (see {@link IGame#getShots()})
+     * @return The record of the game
+     */
+    public static GameRecord of(IFleet fleet, List<IPosition> shots) {
+        int n = Fleet.BOARD_SIZE;
+        List<IShip> fleetShips = fleet.getShips();
+        ShipType[] ships = new ShipType[fleetShips.size()];
+        int[] cells = new int[n * n];
+        for (int i = 0; i < ships.length; i++) {
+            IShip s = fleetShips.get(i);
+            ships[i] = s.getType();
+            if (ships[i] == null)
+                throw new IllegalArgumentException("ERROR! only fleets of registered kinds of ships can be recorded");
+            for (IPosition p : s.getPositions())
+                if (inside(p, n) && cells[p.getRow() * n + p.getColumn()] == 0)
+                    cells[p.getRow() * n + p.getColumn()] = i + 1;
+        }
+
+        int[] cellShots = new int[shots.size()];
+        int count = 0;
+        for (IPosition p : shots)
+            if (inside(p, n))
+                cellShots[count++] = p.getRow() * n + p.getColumn();
+        return new GameRecord(n, ships, cells, Arrays.copyOf(cellShots, count));
+    }
+
+    private static boolean inside(IPosition p, int n) {
+        return p.getRow() >= 0 && p.getRow() < n && p.getColumn() >= 0 && p.getColumn() < n;
+    }
+
+    /**
+     * @return The number of rows (and columns) of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @return The number of ships of the fleet
+     */
+    public int shipCount() {
+        return ships.length;
+    }
+
+    /**
+     * @param ship The index of a ship
+     * @return Its kind
+     */
+    public ShipType type(int ship) {
+        return ships[ship];
+    }
+
+    /**
+     * @param cell The index of a cell, row * board size + column
+     * @return 0 if it is water, or one more than the index of the ship
+     * occupying it
+     */
+    public int shipAt(int cell) {
+        return cells[cell];
+    }
+
+    /**
+     * @return The number of shots fired
+     */
+    public int shotCount() {
+        return shots.length;
+    }
+
+    /**
+     * @param shot The index of a shot, counting from 0
+     * @return The cell it was fired at
+     */
+    public int shot(int shot) {
+        return shots[shot];
+    }
+
+    /**
+     * This operation writes the record at the end of a stream
+     *
+     * @param out The stream
+     * @throws IOException If it cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeShort(boardSize);
+        out.writeShort(ships.length);
+        for (ShipType type : ships)
+            out.writeByte(type.ordinal());
+        for (int ship : cells)
+            if (ships.length < 256)
+                out.writeByte(ship);
+            else
+                out.writeShort(ship);
+        int bytes = cellBytes(cells.length);
+        out.writeInt(shots.length);
+        for (int cell : shots)
+            if (bytes == 1)
+                out.writeByte(cell);
+            else if (bytes == 2)
+                out.writeShort(cell);
+            else
+                out.writeInt(cell);
+    }
+
+    /*
+     * The number of bytes a cell of a board of so many cells is written in
+     */
+    private static int cellBytes(int cells) {
+        return cells <= 1 << 8 ? 1 : cells <= 1 << 16 ? 2 : 4;
+    }
+
+    /**
+     * This operation reads the next record of a stream
+     *
+     * @param in The stream
+     * @return The record, or null at the end of the stream
+     * @throws IOException If it cannot be read, or is not a stream of records
+     */
+    public static GameRecord read(DataInputStream in) throws IOException {
+        int boardSize;
+        try {
+            boardSize = in.readUnsignedShort();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        ShipType[] types = ShipType.values();
+        ShipType[] ships = new ShipType[in.readUnsignedShort()];
+        for (int i = 0; i < ships.length; i++) {
+            int type = in.readUnsignedByte();
+            if (type >= types.length)
+                throw new IOException("ERROR! unknown kind of ship " + type + " in game record");
+            ships[i] = types[type];
+        }
+        int[] cells = new int[boardSize * boardSize];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = ships.length < 256 ? in.readUnsignedByte() : in.readUnsignedShort();
+        int count = in.readInt();
+        if (count < 0 || count > cells.length)
+            throw new IOException("ERROR! invalid number of shots " + count + " in game record");
+        int[] shots = new int[count];
+        int bytes = cellBytes(cells.length);
+        for (int i = 0; i < count; i++)
+            shots[i] = bytes == 1 ? in.readUnsignedByte() : bytes == 2 ? in.readUnsignedShort() : in.readInt();
+
+        try {
+            return new GameRecord(boardSize, ships, cells, shots);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * This operation streams the records of a stream, reading each as it is
+     * needed; read errors are thrown as {@link UncheckedIOException}s
+     *
+     * @param in The stream
+     * @return The records, in order
+     */
+    public static Stream<GameRecord> stream(DataInputStream in) {
+        Iterator<GameRecord> records = new Iterator<>() {
+            private GameRecord next = advance();
+
+            private GameRecord advance() {
+                try {
+                    return read(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public GameRecord next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                GameRecord current = next;
+                next = advance();
+                return current;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A store of games kept off the heap, for hosting very many live sessions in
+ * one JVM.
+ * <p>
+ * Each game takes a slot of {@value #SLOT_BYTES} bytes of direct memory: the
+ * bitsets of the cells shot at, occupied and hit, the counters of the game,
+ * the kind, bearing and position of each ship, the cells left afloat of each,
+ * and the ship each cell belongs to. {@link #game(int)} gives an {@link IGame}
+ * over a slot; such views hold no state of their own, so they can be created
+ * for each request and dropped. Free slots are chained through the slots
+ * themselves, so the heap taken by the store does not grow with the number of
+ * games it holds: memory is allocated in chunks of {@value #CHUNK_SLOTS}
+ * slots as they are first needed.
+ * <p>
+ * Creating and releasing games is thread safe. A game, like {@link Game},
+ * must only be used by one thread at a time, but different games may be used
+ * by different threads at once.
+ */
+public final class GameStore {
+    /**
+     * The number of bytes each game takes
+     */
+    public static final int SLOT_BYTES = 176;
+
+    /**
+     * The number of slots allocated at a time
+     */
+    public static final int CHUNK_SLOTS = 1 << 20;
+
+    /**
+     * The largest number of ships a stored fleet may have
+     */
+    public static final int MAX_SHIPS = 12;
+
+    /*
+     * Shots on row or column BOARD_SIZE are valid, as in Game, so the cells
+     * shot at are laid out over a board one row and one column larger.
+     */
+    static final int SHOT_STRIDE = Fleet.BOARD_SIZE + 1;
+
+    /*
+     * The layout of a slot
+     */
+    static final int SHOTS = 0;
+    static final int OCCUPIED = 16;
+    static final int HITS = 32;
+    static final int INVALID = 48;
+    static final int REPEATED = 52;
+    static final int SHIPS = 56;
+    static final int SUNK = 57;
+    static final int HIT_COUNT = 58;
+    static final int SHOT_COUNT = 59;
+    static final int LIVE = 60;
+    static final int AFLOAT = 64;
+    static final int SHIP_RECORDS = AFLOAT + MAX_SHIPS;
+    static final int SHIP_RECORD_BYTES = 4;
+    static final int CELL_SHIPS = SHIP_RECORDS + MAX_SHIPS * SHIP_RECORD_BYTES;
+
+    /*
+     * A free slot holds the index of the next free slot, or NONE, at offset 0
+     */
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final ByteBuffer[] chunks;
+    private int allocated;
+    private int free = NONE;
+    private int size;
+
+    static {
+        assert CELL_SHIPS + (Fleet.BOARD_SIZE * Fleet.BOARD_SIZE + 1) / 2 <= SLOT_BYTES;
+        assert SHOT_STRIDE * SHOT_STRIDE <= 128;
+    }
+
+    /**
+     * @param capacity The largest number of games to hold at once
+     */
+    public GameStore(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("ERROR! invalid capacity " + capacity);
+        this.capacity = capacity;
+        this.chunks = new ByteBuffer[(int) (((long) capacity + CHUNK_SLOTS - 1) / CHUNK_SLOTS)];
+    }
+
+    /**
+     * @return The largest number of games the store holds at once
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of games held
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes of direct memory allocated so far
+     */
+    public synchronized long getAllocatedBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks)
+            if (chunk != null)
+                bytes += chunk.capacity();
+        return bytes;
+    }
+
+    /**
+     * This operation stores a new game over a fleet that has not been fired
+     * at; the fleet is copied, and not used afterwards
+     *
+     * @param fleet The fleet to fire at
+     * @return The slot of the game
+     * @throws IllegalArgumentException If a ship is unknown or off the board
+     * @throws IllegalStateException    If the store is full
+     */
+    public int create(IFleet fleet) {
+        if (fleet == null)
+            throw new NullPointerException("ERROR! null fleet");
+        if (fleet.getShips().size() > MAX_SHIPS)
+            throw new IllegalArgumentException("ERROR! too many ships: " + fleet.getShips().size());
+        for (IShip s : fleet.getShips()) {
+            if (s.getType() == null)
+                throw new IllegalArgumentException("ERROR! unknown ship " + s.getCategory());
+            for (IPosition p : s.getPositions())
+                if (p.getRow() < 0 || p.getRow() >= Fleet.BOARD_SIZE || p.getColumn() < 0
+                        || p.getColumn() >= Fleet.BOARD_SIZE)
+                    throw new IllegalArgumentException("ERROR! ship off the board at " + p);
+        }
+
+        int slot = allocate();
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        for (int b = 0; b < SLOT_BYTES; b += Long.BYTES)
+            chunk.putLong(base + b, 0);
+        chunk.put(base + LIVE, (byte) 1);
+
+        int ship = 0;
+        for (IShip s : fleet.getShips()) {
+            int record = base + SHIP_RECORDS + ship * SHIP_RECORD_BYTES;
+            chunk.put(record, (byte) s.getType().ordinal());
+            chunk.put(record + 1, (byte) s.getBearing().ordinal());
+            chunk.put(record + 2, (byte) s.getPosition().getRow());
+            chunk.put(record + 3, (byte) s.getPosition().getColumn());
+            chunk.put(base + AFLOAT + ship, (byte) s.getPositions().size());
+            for (IPosition p : s.getPositions()) {
+                int cell = p.getRow() * Fleet.BOARD_SIZE + p.getColumn();
+                setBit(chunk, base + OCCUPIED, cell);
+                int at = base + CELL_SHIPS + cell / 2;
+                int id = ship + 1;
+                chunk.put(at, (byte) (cell % 2 == 0 ? chunk.get(at) & 0xF0 | id : chunk.get(at) & 0x0F | id << 4));
+            }
+            ship++;
+        }
+        chunk.put(base + SHIPS, (byte) ship);
+        return slot;
+    }
+
+    /**
+     * @param slot The slot of a game held
+     * @return A view of that game; views hold no state, and may be created as
+     * often as needed
+     */
+    public IGame game(int slot) {
+        check(slot);
+        return new StoredGame(this, slot);
+    }
+
+    /**
+     * This operation drops a game, freeing its slot for another
+     *
+     * @param slot The slot of a game held
+     */
+    public synchronized void release(int slot) {
+        check(slot);
+        ByteBuffer chunk = chunk(slot);
+        int base = offset(slot);
+        chunk.put(base + LIVE, (byte) 0);
+        chunk.putInt(base, free);
+        free = slot;
+        size--;
+    }
+
+    private synchronized int allocate() {
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = chunk(slot).getInt(offset(slot));
+        } else if (allocated < capacity) {
+            slot = allocated++;
+            int c = slot / CHUNK_SLOTS;
+            if (chunks[c] == null) {
+                int slots = Math.min(CHUNK_SLOTS, capacity - c * CHUNK_SLOTS);
+                chunks[c] = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            }
+        } else
+            throw new IllegalStateException("ERROR! the store is full");
+        size++;
+        return slot;
+    }
+
+    private void check(int slot) {
+        if (slot < 0 || slot >= capacity || chunks[slot / CHUNK_SLOTS] == null
+                || chunk(slot).get(offset(slot) + LIVE) == 0)
+            throw new IllegalArgumentException("ERROR! no game at slot " + slot);
+    }
+
+    ByteBuffer chunk(int slot) {
+        return chunks[slot / CHUNK_SLOTS];
+    }
+
+    static int offset(int slot) {
+        return (slot % CHUNK_SLOTS) * SLOT_BYTES;
+    }
+
+    static boolean getBit(ByteBuffer chunk, int at, int bit) {
+        return (chunk.getLong(at + (bit >>> 6) * Long.BYTES) & 1L << bit) != 0;
+    }
+
+    static void setBit(ByteBuffer chunk, int at, int bit) {
+        int word = at + (bit >>> 6) * Long.BYTES;
+        chunk.putLong(word, chunk.getLong(word) | 1L << bit);
+    }
+}
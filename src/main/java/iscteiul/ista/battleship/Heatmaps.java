@@ -0,0 +1,233 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Per-cell counters over a corpus of recorded games: where shots were fired,
+ * and where they hit, in each {@link GamePhase}, and where ships of each kind
+ * were laid out.
+ * <p>
+ * A corpus is analysed by streaming its records through a
+ * {@link #collector(int) collector}, in parallel: each worker accumulates
+ * into a heatmap of its own, counters in plain {@code long[]} arrays, and
+ * heatmaps are merged as workers finish. A heatmap is not thread safe.
+ */
+public final class Heatmaps {
+    /**
+     * The shades used to render a heatmap, from the coldest cell to the hottest
+     */
+    public static final String SHADES = " .:-=+*#%@";
+
+    private static final GamePhase[] PHASES = GamePhase.values();
+    private static final ShipType[] TYPES = ShipType.values();
+
+    private final int boardSize;
+    private final long[][] shots;
+    private final long[][] hits;
+    private final long[][] occupancy;
+    private long games;
+    private long shotCount;
+    private int[] remaining;
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board of the
+     *                  games analysed
+     */
+    public Heatmaps(int boardSize) {
+        if (boardSize <= 0)
+            throw new IllegalArgumentException("ERROR! invalid board size " + boardSize);
+
+        int cells = boardSize * boardSize;
+        this.boardSize = boardSize;
+        this.shots = new long[PHASES.length][cells];
+        this.hits = new long[PHASES.length][cells];
+        this.occupancy = new long[TYPES.length][cells];
+        this.remaining = new int[ShipType.standardFleetSize()];
+    }
+
+    /**
+     * This operation counts the layout and the shots of a game, replaying them
+     * to tell the phase of each shot
+     *
+     * @param game The record of the game
+     */
+    public void add(GameRecord game) {
+        if (game.getBoardSize() != boardSize)
+            throw new IllegalArgumentException("ERROR! game played on a board of another size");
+
+        int ships = game.shipCount();
+        if (remaining.length < ships)
+            remaining = new int[ships];
+        Arrays.fill(remaining, 0, ships, 0);
+        for (int cell = 0; cell < boardSize * boardSize; cell++) {
+            int ship = game.shipAt(cell);
+            if (ship != 0) {
+                remaining[ship - 1]++;
+                occupancy[game.type(ship - 1).ordinal()][cell]++;
+            }
+        }
+
+        int sunk = 0;
+        int phase = GamePhase.of(0, ships).ordinal();
+        for (int i = 0; i < game.shotCount(); i++) {
+            int cell = game.shot(i);
+            shots[phase][cell]++;
+            int ship = game.shipAt(cell);
+            if (ship != 0) {
+                hits[phase][cell]++;
+                if (--remaining[ship - 1] == 0)
+                    phase = GamePhase.of(++sunk, ships).ordinal();
+            }
+        }
+        games++;
+        shotCount += game.shotCount();
+    }
+
+    /**
+     * This operation adds the counters of another heatmap to these
+     *
+     * @param other A heatmap of games on a board of the same size
+     * @return This heatmap
+     */
+    public Heatmaps merge(Heatmaps other) {
+        if (other.boardSize != boardSize)
+            throw new IllegalArgumentException("ERROR! heatmaps of boards of different sizes");
+
+        add(shots, other.shots);
+        add(hits, other.hits);
+        add(occupancy, other.occupancy);
+        games += other.games;
+        shotCount += other.shotCount;
+        return this;
+    }
+
+    private static void add(long[][] to, long[][] from) {
+        for (int i = 0; i < to.length; i++)
+            for (int cell = 0; cell < to[i].length; cell++)
+                to[i][cell] += from[i][cell];
+    }
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board of the
+     *                  games
+     * @return A collector of game records into a heatmap, which may run in
+     * parallel
+     */
+    public static Collector<GameRecord, Heatmaps, Heatmaps> collector(int boardSize) {
+        return Collector.of(() -> new Heatmaps(boardSize), Heatmaps::add, Heatmaps::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * This operation analyses a corpus of games on a pool of workers of its own
+     *
+     * @param games       The records of the games
+     * @param boardSize   The number of rows (and columns) of their board
+     * @param parallelism The number of workers
+     * @return The heatmaps of the corpus
+     */
+    public static Heatmaps analyze(Stream<GameRecord> games, int boardSize, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> games.parallel().collect(collector(boardSize))).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return The number of rows (and columns) of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @return The number of games counted
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return The number of shots counted
+     */
+    public long getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * @param phase A phase of the game
+     * @return The number of shots fired at each cell in that phase
+     */
+    public long[] getShots(GamePhase phase) {
+        return shots[phase.ordinal()].clone();
+    }
+
+    /**
+     * @param phase A phase of the game
+     * @return The number of hits at each cell in that phase
+     */
+    public long[] getHits(GamePhase phase) {
+        return hits[phase.ordinal()].clone();
+    }
+
+    /**
+     * @param type A kind of ship
+     * @return The number of games in which a ship of that kind occupied each cell
+     */
+    public long[] getOccupancy(ShipType type) {
+        return occupancy[type.ordinal()].clone();
+    }
+
+    /**
+     * This operation draws the counters of each cell as a grid, shaded from the
+     * smallest to the largest count
+     *
+     * @param counts The counters, one per cell
+     * @return The drawing, one line per row
+     */
+    public String render(long[] counts) {
+        assert counts.length == boardSize * boardSize;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long c : counts) {
+            min = Math.min(min, c);
+            max = Math.max(max, c);
+        }
+
+        StringBuilder out = new StringBuilder(boardSize * (boardSize + 1));
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                long c = counts[row * boardSize + col];
+                int shade = max == min ? 0 : (int) ((c - min) * (SHADES.length() - 1) / (max - min));
+                out.append(SHADES.charAt(shade));
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * This operation prints the heatmaps of the shots of each phase and of the
+     * layout of each kind of ship
+     */
+    public void printReport() {
+        System.out.println(games + " games, " + shotCount + " shots");
+        for (GamePhase phase : PHASES) {
+            System.out.println("Shots, " + phase);
+            System.out.print(render(shots[phase.ordinal()]));
+        }
+        for (ShipType type : TYPES) {
+            System.out.println("Ships, " + type.getName());
+            System.out.print(render(occupancy[type.ordinal()]));
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A cheap shooter that alternates between hunting and targeting.
+ * <p>
+ * While no hit is pending it hunts on a parity lattice: the cells whose row
+ * plus column take the same value modulo the line length of the shortest kind
+ * of ship still floating (see {@link ShipType#getLineLength()}), which every
+ * such ship must cross. After a hit it targets the neighbours of the hits not
+ * yet accounted for, preferring those that extend a line of hits, until
+ * {@link IGame#fire} reports the ship sunk; as ships may not touch, the cells
+ * around a sunk ship are then ruled out.
+ * <p>
+ * Optionally, once few enough ships are afloat, the shooter hands each shot
+ * over to an {@link EndgameSolver}, going back to hunting and targeting
+ * whenever the solver finds no layout consistent with what it knows.
+ * <p>
+ * Optionally, too, the shooter opens games against a standard fleet with the
+ * shots of an {@link OpeningBook}, for as long as the history of the game is
+ * in the book.
+ * <p>
+ * All the state is kept in board masks and arrays allocated once, so firing
+ * allocates nothing besides what the game itself does. A shooter is not
+ * thread safe; use one per thread.
+ */
+public class HuntTargetShooter implements IShooter {
+    private static final int[] ROW_STEPS = {-1, 1, 0, 0};
+    private static final int[] COLUMN_STEPS = {0, 0, -1, 1};
+    private static final ShipType[] TYPES = ShipType.values();
+
+    private final Random random;
+    private final int boardSize;
+    private final int cells;
+    private final Position[] positions;
+
+    private final long[] board;
+    private final long[] shot;
+    private final long[] pending;
+    private final long[] ruledOut;
+    private final long[][][] lattices;
+    private long[] lattice;
+    private final long[] candidates;
+
+    private final EndgameSolver endgame;
+    private final int endgameShips;
+    private final OpeningBook book;
+    private int bookNode;
+
+    private final int[] floatingByType;
+    private int floating;
+    private int shots;
+    private int pendingHits;
+    private int step;
+
+    /**
+     * Creates a shooter for the board of the game
+     *
+     * @param random The source of randomness
+     */
+    public HuntTargetShooter(Random random) {
+        this(random, Fleet.BOARD_SIZE);
+    }
+
+    /**
+     * @param random    The source of randomness
+     * @param boardSize The number of rows (and columns) of the board
+     */
+    public HuntTargetShooter(Random random, int boardSize) {
+        this(random, boardSize, null, 0);
+    }
+
+    /**
+     * @param random       The source of randomness
+     * @param boardSize    The number of rows (and columns) of the board
+     * @param endgame      The solver to play the endgame with, or null for none
+     * @param endgameShips The number of ships afloat from which on the endgame
+     *                     solver chooses the shots
+     */
+    public HuntTargetShooter(Random random, int boardSize, EndgameSolver endgame, int endgameShips) {
+        this(random, boardSize, endgame, endgameShips, null);
+    }
+
+    /**
+     * @param random       The source of randomness
+     * @param boardSize    The number of rows (and columns) of the board
+     * @param endgame      The solver to play the endgame with, or null for none
+     * @param endgameShips The number of ships afloat from which on the endgame
+     *                     solver chooses the shots
+     * @param book         The book to open games with, or null for none
+     */
+    public HuntTargetShooter(Random random, int boardSize, EndgameSolver endgame, int endgameShips,
+                             OpeningBook book) {
+        assert random != null;
+        assert boardSize > 0;
+
+        this.random = random;
+        this.boardSize = boardSize;
+        this.cells = boardSize * boardSize;
+        this.positions = new Position[cells];
+        for (int cell = 0; cell < cells; cell++)
+            positions[cell] = new Position(cell / boardSize, cell % boardSize);
+
+        this.board = BoardMask.create(boardSize);
+        BoardMask.fill(board, cells);
+        this.shot = BoardMask.create(boardSize);
+        this.pending = BoardMask.create(boardSize);
+        this.ruledOut = BoardMask.create(boardSize);
+        int longest = 1;
+        for (ShipType type : TYPES)
+            longest = Math.max(longest, type.getLineLength());
+        this.lattices = new long[longest + 1][][];
+        this.candidates = BoardMask.create(boardSize);
+        this.floatingByType = new int[TYPES.length];
+        this.endgame = endgame;
+        this.endgameShips = endgameShips;
+        this.book = book != null && book.getBoardSize() == boardSize ? book : null;
+    }
+
+    @Override
+    public void newGame(ShipType[] fleet) {
+        Arrays.fill(shot, 0L);
+        Arrays.fill(pending, 0L);
+        Arrays.fill(ruledOut, 0L);
+        Arrays.fill(floatingByType, 0);
+        for (ShipType type : fleet)
+            floatingByType[type.ordinal()]++;
+        floating = fleet.length;
+        shots = 0;
+        pendingHits = 0;
+        step = 0;
+        updateLattice();
+
+        bookNode = book != null && fleet.length == ShipType.standardFleetSize() ? book.root() : -1;
+        for (ShipType type : TYPES)
+            if (floatingByType[type.ordinal()] != type.getFleetCount())
+                bookNode = -1;
+    }
+
+    @Override
+    public IShip fire(IGame game) {
+        int cell = bookNode >= 0 ? fromBook() : -1;
+        if (cell < 0 && endgame != null && floating <= endgameShips)
+            cell = solve();
+        if (cell < 0 && pendingHits > 0)
+            cell = target();
+        if (cell < 0)
+            cell = hunt();
+        if (cell < 0)
+            throw new IllegalStateException("ERROR! no cell left to fire at");
+
+        int hits = game.getHits();
+        IShip sunk = game.fire(positions[cell]);
+        BoardMask.set(shot, cell);
+        shots++;
+        boolean hit = game.getHits() > hits;
+        if (hit) {
+            BoardMask.set(pending, cell);
+            pendingHits++;
+        }
+        if (bookNode >= 0)
+            bookNode = book.child(bookNode,
+                    sunk != null ? OpeningBook.SUNK : hit ? OpeningBook.HIT : OpeningBook.MISS);
+        if (sunk != null)
+            sink(sunk);
+        return sunk;
+    }
+
+    @Override
+    public boolean isDone() {
+        return floating <= 0 || shots == cells;
+    }
+
+    /**
+     * @return The line length of the parity lattice currently hunted on
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /*
+     * The move of the book, or -1 once the game has left it
+     */
+    private int fromBook() {
+        int cell = book.move(bookNode);
+        if (BoardMask.get(shot, cell) || BoardMask.get(ruledOut, cell))
+            bookNode = cell = -1;
+        return cell;
+    }
+
+    /*
+     * The shot chosen by the endgame solver, or -1 if it has none to offer
+     */
+    private int solve() {
+        ShipType[] afloat = new ShipType[floating];
+        int i = 0;
+        for (ShipType type : TYPES)
+            for (int n = 0; n < floatingByType[type.ordinal()] && i < afloat.length; n++)
+                afloat[i++] = type;
+        if (i < afloat.length)
+            return -1;
+
+        for (int w = 0; w < candidates.length; w++)
+            candidates[w] = (shot[w] & ~pending[w]) | ruledOut[w];
+        int cell = endgame.bestShot(candidates, pending, afloat);
+        return cell >= 0 && !BoardMask.get(shot, cell) ? cell : -1;
+    }
+
+    /*
+     * The best neighbour of a pending hit: one lying beyond another pending hit
+     * on the same line if there is any, otherwise the first one found.
+     */
+    private int target() {
+        int best = -1;
+        int bestScore = 0;
+        for (int hit = BoardMask.next(pending, 0); hit >= 0; hit = BoardMask.next(pending, hit + 1)) {
+            int row = hit / boardSize;
+            int column = hit % boardSize;
+            for (int d = 0; d < ROW_STEPS.length; d++) {
+                int cell = cellAt(row + ROW_STEPS[d], column + COLUMN_STEPS[d]);
+                if (cell < 0 || BoardMask.get(shot, cell) || BoardMask.get(ruledOut, cell))
+                    continue;
+                int behind = cellAt(row - ROW_STEPS[d], column - COLUMN_STEPS[d]);
+                int score = behind >= 0 && BoardMask.get(pending, behind) ? 2 : 1;
+                if (score > bestScore) {
+                    best = cell;
+                    bestScore = score;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     * A random cell of the lattice not yet fired at nor ruled out; once the
+     * lattice is exhausted, any such cell of the board; failing that, any cell
+     * not yet fired at.
+     */
+    private int hunt() {
+        BoardMask.andNot(candidates, lattice, shot, ruledOut);
+        int cell = pick();
+        if (cell >= 0)
+            return cell;
+
+        BoardMask.andNot(candidates, board, shot, ruledOut);
+        cell = pick();
+        if (cell >= 0)
+            return cell;
+
+        BoardMask.andNot(candidates, board, shot);
+        return pick();
+    }
+
+    private int pick() {
+        int cell = BoardMask.next(candidates, random.nextInt(cells));
+        return cell >= 0 ? cell : BoardMask.next(candidates, 0);
+    }
+
+    private void sink(IShip ship) {
+        for (IPosition p : ship.getPositions()) {
+            int cell = cellAt(p.getRow(), p.getColumn());
+            if (cell < 0)
+                continue;
+            if (BoardMask.get(pending, cell)) {
+                BoardMask.clear(pending, cell);
+                pendingHits--;
+            }
+            for (int r = Math.max(0, p.getRow() - 1); r <= Math.min(boardSize - 1, p.getRow() + 1); r++)
+                for (int c = Math.max(0, p.getColumn() - 1); c <= Math.min(boardSize - 1, p.getColumn() + 1); c++)
+                    BoardMask.set(ruledOut, r * boardSize + c);
+        }
+
+        ShipType type = ship.getType();
+        if (type != null && floatingByType[type.ordinal()] > 0)
+            floatingByType[type.ordinal()]--;
+        floating--;
+        updateLattice();
+    }
+
+    /*
+     * Hunts on the lattice of the shortest line among the kinds still floating,
+     * with a phase picked at random whenever the line length changes. The masks
+     * of the lattices are built on first use.
+     */
+    private void updateLattice() {
+        int shortest = Integer.MAX_VALUE;
+        for (ShipType type : TYPES)
+            if (floatingByType[type.ordinal()] > 0)
+                shortest = Math.min(shortest, type.getLineLength());
+        if (shortest == Integer.MAX_VALUE)
+            shortest = 1;
+        if (shortest == step)
+            return;
+
+        step = shortest;
+        if (lattices[step] == null) {
+            lattices[step] = new long[step][];
+            for (int phase = 0; phase < step; phase++) {
+                lattices[step][phase] = BoardMask.create(boardSize);
+                for (int cell = 0; cell < cells; cell++)
+                    if ((cell / boardSize + cell % boardSize) % step == phase)
+                        BoardMask.set(lattices[step][phase], cell);
+            }
+        }
+        lattice = lattices[step][random.nextInt(step)];
+    }
+
+    private int cellAt(int row, int column) {
+        if (row < 0 || row >= boardSize || column < 0 || column >= boardSize)
+            return -1;
+        return row * boardSize + column;
+    }
+}
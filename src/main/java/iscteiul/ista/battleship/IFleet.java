@@ -4,6 +4,7 @@
 package iscteiul.ista.battleship;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IFleet {
     Integer BOARD_SIZE = 10;
@@ -20,4 +21,44 @@ public interface IFleet {
     IShip shipAt(IPosition pos);
 
     void printStatus();
+
+    /**
+     * @return The ships of the fleet, lazily: no list is built, and a query
+     * that stops early only looks at the ships it needs. The stream must be
+     * consumed before ships are added to the fleet.
+     */
+    default Stream<IShip> ships() {
+        return getShips().stream();
+    }
+
+    /**
+     * @param type The kind of ships of interest
+     * @return The ships of the fleet of that kind, lazily
+     */
+    default Stream<IShip> shipsLike(ShipType type) {
+        return ships().filter(s -> s.getType() == type);
+    }
+
+    /**
+     * @return The ships of the fleet not yet sunk, lazily
+     */
+    default Stream<IShip> floatingShips() {
+        return ships().filter(IShip::stillFloating);
+    }
+
+    /**
+     * @param pos      A position
+     * @param distance The largest number of rows, and of columns, between the
+     *                 position and a cell of a ship; 0 for the ship at the
+     *                 position
+     * @return The ships of the fleet with a cell that close to the position,
+     * lazily and each once
+     */
+    default Stream<IShip> shipsNear(IPosition pos, int distance) {
+        if (distance < 0)
+            throw new IllegalArgumentException("ERROR! negative distance " + distance);
+        return ships().filter(s -> s.getPositions().stream()
+                .anyMatch(p -> Math.abs(p.getRow() - pos.getRow()) <= distance
+                        && Math.abs(p.getColumn() - pos.getColumn()) <= distance));
+    }
 }
@@ -8,6 +8,32 @@ import java.util.List;
 public interface IGame {
     IShip fire(IPosition pos);
 
+    /**
+     * This operation fires a volley of shots at once: they all land before any
+     * ship is reported sunk, and a ship sunk by several of them is reported
+     * once. Shots off the board count as invalid and shots at a cell already
+     * fired at, before or earlier in the volley, as repeated.
+     *
+     * @param volley The shots to fire, from the first
+     * @param count  The number of shots of the volley to fire
+     * @param sunk   Where to put the ships sunk by the volley, as many as fit
+     * @return The number of ships sunk by the volley
+     * @throws IllegalArgumentException If the count is negative or more than
+     *                                  the shots given
+     */
+    default int fire(IPosition[] volley, int count, IShip[] sunk) {
+        if (count < 0 || count > volley.length)
+            throw new IllegalArgumentException("ERROR! invalid volley size " + count);
+        int sinks = 0;
+        for (int i = 0; i < count; i++) {
+            IShip s = fire(volley[i]);
+            if (s != null && sinks < sunk.length)
+                sunk[sinks] = s;
+            sinks += s != null ? 1 : 0;
+        }
+        return sinks;
+    }
+
     List<IPosition> getShots();
 
     int getRepeatedShots();
@@ -0,0 +1,24 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * A strategy that lays out the fleet of a player.
+ * <p>
+ * Placers are shared by all the games a bot plays, possibly on several
+ * threads at once, so they must not keep state from one call to the next.
+ */
+public interface IPlacer {
+
+    /**
+     * This operation lays out a fleet for a new game
+     *
+     * @param fleet  An empty fleet, to which the ships are added through
+     *               {@link IFleet#addShip}
+     * @param random The source of randomness
+     */
+    void place(IFleet fleet, Random random);
+}
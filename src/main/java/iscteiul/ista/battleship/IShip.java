@@ -8,6 +8,14 @@ import java.util.List;
 public interface IShip {
     String getCategory();
 
+    /**
+     * @return The registered kind of this ship, or null if its category is not
+     * one of the registered ones
+     */
+    default ShipType getType() {
+        return ShipType.fromName(getCategory());
+    }
+
     Integer getSize();
 
     List<IPosition> getPositions();
@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * A strategy that plays a game by choosing where to fire next.
+ * <p>
+ * Shooters learn about the fleet only through what {@link IGame#fire} tells
+ * them, the hit count of the game and the ships it reports as sunk, and
+ * through the kinds of ships they are told to look for.
+ */
+public interface IShooter {
+
+    /**
+     * This operation prepares the shooter for a new game
+     *
+     * @param fleet The kinds of the ships to find, one per ship
+     */
+    void newGame(ShipType[] fleet);
+
+    /**
+     * This operation fires the next shot of the shooter
+     *
+     * @param game The game to fire at
+     * @return The ship sunk by the shot, or null if none was
+     * @throws IllegalStateException If there is no cell left to fire at
+     */
+    IShip fire(IGame game);
+
+    /**
+     * @return Whether every ship the shooter looks for has been sunk, or every
+     * cell of the board has been fired at
+     */
+    boolean isDone();
+
+    /**
+     * This operation fires until the shooter is done
+     *
+     * @param game The game to fire at
+     * @return The number of shots fired
+     */
+    default int playOut(IGame game) {
+        int shots = 0;
+        while (!isDone()) {
+            fire(game);
+            shots++;
+        }
+        return shots;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * A histogram of latencies, in nanoseconds.
+ * <p>
+ * Buckets are log-linear: each power of two is split into
+ * {@value #SUB_BUCKETS} buckets of equal width, so any latency, from a
+ * nanosecond to hours, is kept with a relative error under 12.5% in a few
+ * hundred counters, and recording one takes a couple of bit operations. A
+ * histogram is not thread safe; use one per thread and {@link #add} them up.
+ */
+public final class LatencyHistogram {
+    /**
+     * The number of buckets each power of two is split into
+     */
+    public static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    /**
+     * Creates a histogram from the counters of another record of latencies
+     *
+     * @param counts The number of latencies of each bucket
+     * @param sum    The sum of the latencies
+     * @param max    The largest latency
+     */
+    LatencyHistogram(long[] counts, long sum, long max) {
+        assert counts.length == BUCKETS;
+
+        this.counts = counts;
+        for (long n : counts)
+            this.count += n;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * @param nanos A latency, not negative
+     * @return The bucket it is counted in
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) Math.max(0, nanos);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    /**
+     * @param bucket A bucket
+     * @return The smallest latency it counts
+     */
+    static long lowest(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * @return The number of buckets of a histogram
+     */
+    static int buckets() {
+        return BUCKETS;
+    }
+
+    /**
+     * This operation counts a latency
+     *
+     * @param nanos The latency; negative values, from a clock that stepped
+     *              back, count as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max)
+            max = nanos;
+    }
+
+    /**
+     * This operation adds the latencies of another histogram to these
+     *
+     * @param other The histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int b = 0; b < BUCKETS; b++)
+            counts[b] += other.counts[b];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param bucket A bucket
+     * @return The number of latencies counted in it
+     */
+    long countAt(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * @return The number of latencies counted
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of the latencies counted
+     */
+    public long getTotal() {
+        return sum;
+    }
+
+    /**
+     * @return The largest latency counted, or 0 if there is none
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The mean latency, or NaN if none was counted
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    /**
+     * @param fraction A fraction, between 0 and 1, such as 0.99
+     * @return An upper bound of the latency below which that fraction of the
+     * latencies fall, or 0 if none was counted
+     */
+    public long percentile(double fraction) {
+        if (fraction < 0 || fraction > 1)
+            throw new IllegalArgumentException("ERROR! invalid fraction " + fraction);
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank)
+                return b + 1 < BUCKETS ? Math.min(max, lowest(b + 1) - 1) : max;
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.0fns p50=%dns p99=%dns max=%dns", count, getMean(), percentile(0.5),
+                percentile(0.99), max);
+    }
+}
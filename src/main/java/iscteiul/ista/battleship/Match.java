@@ -0,0 +1,377 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A match between two players, each with a fleet of their own and a game
+ * against the fleet of the other. The players take turns, one shot each, and
+ * the first to sink the whole fleet of the other wins.
+ * <p>
+ * What happens is told to spectators as {@link MatchEvent}s. Each spectator
+ * has a bounded queue of its own, drained by a thread of its own, and the
+ * match only ever offers events to those queues: when a spectator falls so far
+ * behind that its queue is full, the events it has no room for are dropped
+ * and counted, so that no spectator can slow down the match. Spectators may
+ * subscribe and unsubscribe from any thread.
+ * <p>
+ * A match is played from one thread, either shot by shot through
+ * {@link #fire(IPosition)} or by {@link #play(IShooter, IShooter)}.
+ */
+public final class Match implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * The player who fires first
+     */
+    public static final int FIRST = 0;
+
+    /**
+     * The player who fires second
+     */
+    public static final int SECOND = 1;
+
+    /*
+     * Queued behind the events of a subscription that is closed, to wake the
+     * thread handing them over once they are all seen
+     */
+    private static final MatchEvent CLOSED = new MatchEvent(MatchEvent.Kind.WIN, 0, FIRST, new Position(0, 0), null);
+
+    private final IFleet[] fleets;
+    private final IGame[] games;
+    private final int[] afloat;
+    private final List<Subscription> spectators = new CopyOnWriteArrayList<>();
+    private int turn;
+    private int shots;
+    private int winner = -1;
+
+    /**
+     * @param first  The fleet of the first player
+     * @param second The fleet of the second player
+     */
+    public Match(IFleet first, IFleet second) {
+        if (first == null || second == null)
+            throw new NullPointerException("ERROR! a match needs two fleets");
+        this.fleets = new IFleet[]{first, second};
+        this.games = new IGame[]{new Game(first), new Game(second)};
+        this.afloat = new int[]{first.getFloatingShips().size(), second.getFloatingShips().size()};
+        this.turn = FIRST;
+    }
+
+    /**
+     * @return The player whose turn it is to fire
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * @return The player who won, or -1 while the match goes on
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return Whether one of the fleets has been sunk
+     */
+    public boolean isOver() {
+        return winner >= 0;
+    }
+
+    /**
+     * @param player {@link #FIRST} or {@link #SECOND}
+     * @return The fleet of the player
+     */
+    public IFleet getFleet(int player) {
+        return fleets[checkPlayer(player)];
+    }
+
+    /**
+     * @param player {@link #FIRST} or {@link #SECOND}
+     * @return The game played against the fleet of the player, that is, by the
+     * other one
+     */
+    public IGame getGameAgainst(int player) {
+        return games[checkPlayer(player)];
+    }
+
+    /**
+     * This operation fires the shot of the player whose turn it is at the fleet
+     * of the other, tells the spectators, and hands the turn over unless the
+     * match was won
+     *
+     * @param pos The cell to fire at
+     * @return The ship sunk by the shot, or null if none was
+     * @throws IllegalStateException If the match is over
+     */
+    public IShip fire(IPosition pos) {
+        if (isOver())
+            throw new IllegalStateException("ERROR! the match is over");
+
+        int player = turn;
+        int target = 1 - player;
+        IGame game = games[target];
+        int hits = game.getHits();
+        shots++;
+        publish(MatchEvent.Kind.FIRE, player, pos, null);
+        IShip sunk = game.fire(pos);
+        if (game.getHits() > hits) {
+            IShip hit = sunk != null ? sunk : fleets[target].shipAt(pos);
+            publish(MatchEvent.Kind.HIT, player, pos, hit != null ? hit.getCategory() : null);
+        }
+        if (sunk != null) {
+            publish(MatchEvent.Kind.SINK, player, pos, sunk.getCategory());
+            if (--afloat[target] == 0) {
+                winner = player;
+                publish(MatchEvent.Kind.WIN, player, pos, null);
+                return sunk;
+            }
+        }
+        turn = target;
+        return sunk;
+    }
+
+    /**
+     * This operation plays the match out between two shooters, each told the
+     * kinds of ships of the fleet of the other, until one wins or both are done
+     *
+     * @param first  The shooter of the first player
+     * @param second The shooter of the second player
+     * @return The player who won, or -1 if neither sank the other's fleet
+     */
+    public int play(IShooter first, IShooter second) {
+        IShooter[] shooters = {first, second};
+        IGame[] sides = {new Side(FIRST), new Side(SECOND)};
+        for (int player = FIRST; player <= SECOND; player++) {
+            List<IShip> ships = fleets[1 - player].getShips();
+            ShipType[] types = new ShipType[ships.size()];
+            for (int i = 0; i < types.length; i++)
+                types[i] = ships.get(i).getType();
+            shooters[player].newGame(types);
+        }
+
+        while (!isOver()) {
+            if (shooters[turn].isDone()) {
+                if (shooters[1 - turn].isDone())
+                    break;
+                turn = 1 - turn;
+            }
+            shooters[turn].fire(sides[turn]);
+        }
+        return winner;
+    }
+
+    /**
+     * This operation subscribes a spectator to the events of the match from
+     * now on
+     *
+     * @param capacity  The number of events the spectator may fall behind
+     *                  before further ones are dropped
+     * @param spectator What to do with each event, run on a thread of its own
+     * @return The subscription
+     */
+    public Subscription subscribe(int capacity, Consumer<? super MatchEvent> spectator) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("ERROR! invalid capacity " + capacity);
+        if (spectator == null)
+            throw new NullPointerException("ERROR! null spectator");
+        Subscription subscription = new Subscription(capacity, spectator);
+        spectators.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    private void publish(MatchEvent.Kind kind, int player, IPosition pos, String category) {
+        if (spectators.isEmpty())
+            return;
+        MatchEvent event = new MatchEvent(kind, shots, player, pos, category);
+        for (Subscription s : spectators)
+            s.offer(event);
+    }
+
+    /**
+     * This operation unsubscribes every spectator, waiting for each to see the
+     * events already queued for it
+     */
+    @Override
+    public void close() {
+        for (Subscription s : spectators)
+            s.close();
+    }
+
+    private static int checkPlayer(int player) {
+        if (player != FIRST && player != SECOND)
+            throw new IllegalArgumentException("ERROR! no player " + player);
+        return player;
+    }
+
+    /**
+     * A spectator of a match, with its queue of events and the thread that
+     * hands them over
+     */
+    public final class Subscription implements AutoCloseable {
+        private final BlockingQueue<MatchEvent> queue;
+        private final Consumer<? super MatchEvent> spectator;
+        private final Thread thread;
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean closed;
+
+        private Subscription(int capacity, Consumer<? super MatchEvent> spectator) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.spectator = spectator;
+            this.thread = new Thread(this::deliver, "match-spectator");
+            this.thread.setDaemon(true);
+        }
+
+        private void offer(MatchEvent event) {
+            if (!queue.offer(event))
+                dropped.incrementAndGet();
+        }
+
+        private void deliver() {
+            try {
+                // a spectator closing its own subscription queues nothing, so the queue is drained here
+                while (!closed || !queue.isEmpty()) {
+                    MatchEvent event = queue.take();
+                    if (event == CLOSED)
+                        return;
+                    try {
+                        spectator.accept(event);
+                    } catch (RuntimeException e) {
+                        LOGGER.warn("Espectador falhou em {}: {}", event, e.toString());
+                    }
+                    delivered.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return The number of events handed to the spectator
+         */
+        public long getDelivered() {
+            return delivered.get();
+        }
+
+        /**
+         * @return The number of events dropped because the queue of the
+         * spectator was full
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        /**
+         * This operation stops the events of the match reaching the spectator,
+         * and waits for it to see those already queued
+         */
+        @Override
+        public void close() {
+            boolean subscribed = spectators.remove(this);
+            closed = true;
+            if (Thread.currentThread() == thread)
+                return;
+            try {
+                if (subscribed)
+                    queue.put(CLOSED);
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * The game of a player against the fleet of the other, as seen by the
+     * shooter of the player: its shots go through the match
+     */
+    private final class Side implements IGame {
+        private final int player;
+
+        private Side(int player) {
+            this.player = player;
+        }
+
+        private IGame game() {
+            return games[1 - player];
+        }
+
+        @Override
+        public IShip fire(IPosition pos) {
+            if (turn != player)
+                throw new IllegalStateException("ERROR! not the turn of player " + (player + 1));
+            return Match.this.fire(pos);
+        }
+
+        /*
+         * A turn is a single shot, so only volleys of at most one shot can be
+         * fired; longer ones are refused before any of their shots lands
+         */
+        @Override
+        public int fire(IPosition[] volley, int count, IShip[] sunk) {
+            if (count < 0 || count > volley.length)
+                throw new IllegalArgumentException("ERROR! invalid volley size " + count);
+            if (count > 1)
+                throw new IllegalStateException("ERROR! a turn of a match is a single shot, not " + count);
+            if (count == 0)
+                return 0;
+            IShip s = fire(volley[0]);
+            if (s != null && sunk.length > 0)
+                sunk[0] = s;
+            return s != null ? 1 : 0;
+        }
+
+        @Override
+        public List<IPosition> getShots() {
+            return game().getShots();
+        }
+
+        @Override
+        public int getRepeatedShots() {
+            return game().getRepeatedShots();
+        }
+
+        @Override
+        public int getInvalidShots() {
+            return game().getInvalidShots();
+        }
+
+        @Override
+        public int getHits() {
+            return game().getHits();
+        }
+
+        @Override
+        public int getSunkShips() {
+            return game().getSunkShips();
+        }
+
+        @Override
+        public int getRemainingShips() {
+            return game().getRemainingShips();
+        }
+
+        @Override
+        public void printValidShots() {
+            game().printValidShots();
+        }
+
+        @Override
+        public void printFleet() {
+            game().printFleet();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Something that happened in a {@link Match}, as told to its spectators: a
+ * shot fired, and whether it hit a ship, sank it or won the match. A shot
+ * gives rise to a {@link Kind#FIRE} event, followed by the others it led to,
+ * all with the same turn.
+ */
+public final class MatchEvent {
+
+    /**
+     * The kinds of match events
+     */
+    public enum Kind {
+        FIRE, HIT, SINK, WIN
+    }
+
+    private final Kind kind;
+    private final int turn;
+    private final int player;
+    private final int row;
+    private final int column;
+    private final String category;
+
+    /**
+     * @param kind     The kind of event
+     * @param turn     The number of the shot in the match, from 1
+     * @param player   The player who fired, {@link Match#FIRST} or
+     *                 {@link Match#SECOND}
+     * @param pos      The cell fired at
+     * @param category The category of the ship hit or sunk, or null
+     */
+    MatchEvent(Kind kind, int turn, int player, IPosition pos, String category) {
+        this.kind = kind;
+        this.turn = turn;
+        this.player = player;
+        this.row = pos.getRow();
+        this.column = pos.getColumn();
+        this.category = category;
+    }
+
+    /**
+     * @return The kind of event
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The number of the shot in the match that led to the event, from 1
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * @return The player who fired the shot
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return The row fired at
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return The column fired at
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return The category of the ship hit or sunk, or null for the other
+     * kinds of events
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " #" + turn + " " + (player + 1) + " (" + row + ", " + column + ")"
+                + (category != null ? " " + category : "");
+    }
+}
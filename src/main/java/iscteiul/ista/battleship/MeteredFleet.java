@@ -0,0 +1,84 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A fleet that counts and times the addition and lookup of its ships into
+ * {@link Metrics}, forwarding everything to the fleet it decorates.
+ */
+final class MeteredFleet implements IFleet {
+    private final IFleet fleet;
+    private final Metrics metrics;
+
+    MeteredFleet(IFleet fleet, Metrics metrics) {
+        this.fleet = fleet;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<IShip> getShips() {
+        return fleet.getShips();
+    }
+
+    @Override
+    public boolean addShip(IShip s) {
+        long started = metrics.addShip.start();
+        boolean added = fleet.addShip(s);
+        metrics.addShip.stop(started);
+        if (!added)
+            metrics.rejected.increment();
+        return added;
+    }
+
+    @Override
+    public List<IShip> getShipsLike(String category) {
+        return fleet.getShipsLike(category);
+    }
+
+    @Override
+    public List<IShip> getFloatingShips() {
+        return fleet.getFloatingShips();
+    }
+
+    @Override
+    public IShip shipAt(IPosition pos) {
+        long started = metrics.shipAt.start();
+        IShip ship = fleet.shipAt(pos);
+        metrics.shipAt.stop(started);
+        return ship;
+    }
+
+    @Override
+    public Stream<IShip> ships() {
+        return fleet.ships();
+    }
+
+    @Override
+    public Stream<IShip> shipsLike(ShipType type) {
+        return fleet.shipsLike(type);
+    }
+
+    @Override
+    public Stream<IShip> floatingShips() {
+        return fleet.floatingShips();
+    }
+
+    @Override
+    public Stream<IShip> shipsNear(IPosition pos, int distance) {
+        return fleet.shipsNear(pos, distance);
+    }
+
+    @Override
+    public void printStatus() {
+        fleet.printStatus();
+    }
+
+    @Override
+    public String toString() {
+        return fleet.toString();
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.List;
+
+/**
+ * A game that counts and times its shots into {@link Metrics}, forwarding
+ * everything to the game it decorates.
+ */
+final class MeteredGame implements IGame {
+    private final IGame game;
+    private final Metrics metrics;
+
+    MeteredGame(IGame game, Metrics metrics) {
+        this.game = game;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IShip fire(IPosition pos) {
+        int hits = game.getHits();
+        int invalid = game.getInvalidShots();
+        int repeated = game.getRepeatedShots();
+        long started = metrics.fire.start();
+        IShip sunk = game.fire(pos);
+        metrics.fire.stop(started);
+        if (sunk != null)
+            metrics.sinks.increment();
+        else if (game.getHits() > hits)
+            metrics.hits.increment();
+        else if (game.getInvalidShots() > invalid)
+            metrics.invalid.increment();
+        else if (game.getRepeatedShots() > repeated)
+            metrics.repeated.increment();
+        else
+            metrics.misses.increment();
+        return sunk;
+    }
+
+    @Override
+    public int fire(IPosition[] volley, int count, IShip[] sunk) {
+        int hits = game.getHits();
+        int invalid = game.getInvalidShots();
+        int repeated = game.getRepeatedShots();
+        long started = metrics.fire.start();
+        int sinks = game.fire(volley, count, sunk);
+        metrics.fire.stop(started);
+        // the last shot at a ship sunk counts as sinking it, not as a hit
+        int hit = game.getHits() - hits;
+        int wasted = game.getInvalidShots() - invalid + game.getRepeatedShots() - repeated;
+        metrics.sinks.add(sinks);
+        metrics.hits.add(hit - sinks);
+        metrics.invalid.add(game.getInvalidShots() - invalid);
+        metrics.repeated.add(game.getRepeatedShots() - repeated);
+        metrics.misses.add(count - hit - wasted);
+        return sinks;
+    }
+
+    @Override
+    public List<IPosition> getShots() {
+        return game.getShots();
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return game.getRepeatedShots();
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return game.getInvalidShots();
+    }
+
+    @Override
+    public int getHits() {
+        return game.getHits();
+    }
+
+    @Override
+    public int getSunkShips() {
+        return game.getSunkShips();
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return game.getRemainingShips();
+    }
+
+    @Override
+    public void printValidShots() {
+        game.printValidShots();
+    }
+
+    @Override
+    public void printFleet() {
+        game.printFleet();
+    }
+}
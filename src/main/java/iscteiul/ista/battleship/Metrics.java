@@ -0,0 +1,261 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An opt-in registry of counters and latency timers, exported in the
+ * Prometheus text format.
+ * <p>
+ * Metrics are collected by decorators: {@link #instrument(IGame)} and
+ * {@link #instrument(IFleet)} wrap a game or a fleet so that every
+ * {@link IGame#fire}, {@link IFleet#addShip} and {@link IFleet#shipAt} is
+ * counted and timed. Code that is not instrumented runs exactly as before, so
+ * metrics that are disabled cost nothing: there is simply no decorator.
+ * <p>
+ * Each thread records into {@link LatencyHistogram}s of its own, with no
+ * synchronization; reading a timer merges the histograms of every thread that
+ * used it. A read racing with recording threads may miss their latest
+ * samples, but never blocks them.
+ */
+public final class Metrics {
+    /**
+     * The system property holding the port to export the metrics of the
+     * command loop at; metrics are disabled when it is not set
+     */
+    public static final String PORT_PROPERTY = "battleship.metrics.port";
+
+    private static final String PREFIX = "battleship_";
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    final Timer fire = timer("game_fire", "Time taken by IGame.fire");
+    final Timer addShip = timer("fleet_add_ship", "Time taken by IFleet.addShip");
+    final Timer shipAt = timer("fleet_ship_at", "Time taken by IFleet.shipAt");
+    final Counter misses = counter("game_shots", "Shots fired, by outcome", "outcome", "miss");
+    final Counter hits = counter("game_shots", "Shots fired, by outcome", "outcome", "hit");
+    final Counter sinks = counter("game_shots", "Shots fired, by outcome", "outcome", "sunk");
+    final Counter invalid = counter("game_shots", "Shots fired, by outcome", "outcome", "invalid");
+    final Counter repeated = counter("game_shots", "Shots fired, by outcome", "outcome", "repeated");
+    final Counter rejected = counter("fleet_ships_rejected", "Ships that IFleet.addShip refused");
+
+    /**
+     * A latency timer with a recorder per thread
+     */
+    public static final class Timer {
+        private final String name;
+        private final String help;
+        private final String labels;
+        private final Queue<LatencyHistogram> recorders = new ConcurrentLinkedQueue<>();
+        private final ThreadLocal<LatencyHistogram> recorder = ThreadLocal.withInitial(() -> {
+            LatencyHistogram h = new LatencyHistogram();
+            recorders.add(h);
+            return h;
+        });
+
+        private Timer(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+
+        /**
+         * @return The time the timed operation starts at, to give to
+         * {@link #stop(long)}
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * This operation records the latency of an operation
+         *
+         * @param started The time returned by {@link #start()}
+         */
+        public void stop(long started) {
+            recorder.get().record(System.nanoTime() - started);
+        }
+
+        /**
+         * @return The latencies recorded by every thread so far
+         */
+        public LatencyHistogram snapshot() {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (LatencyHistogram h : recorders)
+                merged.add(h);
+            return merged;
+        }
+    }
+
+    /**
+     * A monotonic counter
+     */
+    public static final class Counter {
+        private final String name;
+        private final String help;
+        private final String labels;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+
+        /**
+         * This operation adds one to the counter
+         */
+        public void increment() {
+            value.increment();
+        }
+
+        /**
+         * This operation adds to the counter
+         *
+         * @param amount The amount to add, not negative
+         */
+        public void add(long amount) {
+            assert amount >= 0;
+            value.add(amount);
+        }
+
+        /**
+         * @return The value of the counter
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * @return A registry if metrics are enabled by the {@link #PORT_PROPERTY}
+     * system property, or null otherwise
+     */
+    public static Metrics fromSystemProperties() {
+        return System.getProperty(PORT_PROPERTY) != null ? new Metrics() : null;
+    }
+
+    /**
+     * @param name The name of the timer, without prefix nor unit
+     * @param help A description of what it times
+     * @return The timer of that name, created on first use
+     */
+    public Timer timer(String name, String help) {
+        return timers.computeIfAbsent(name, n -> new Timer(PREFIX + n + "_seconds", help, ""));
+    }
+
+    /**
+     * @param name  The name of the timer, without prefix nor unit
+     * @param help  A description of what it times
+     * @param label The name of a label
+     * @param value Its value for this timer
+     * @return The timer of that name and label, created on first use
+     */
+    public Timer timer(String name, String help, String label, String value) {
+        String labels = label + "=\"" + escape(value) + "\"";
+        return timers.computeIfAbsent(name + '{' + labels + '}',
+                n -> new Timer(PREFIX + name + "_seconds", help, labels));
+    }
+
+    /**
+     * @param name The name of the counter, without prefix nor suffix
+     * @param help A description of what it counts
+     * @return The counter of that name, created on first use
+     */
+    public Counter counter(String name, String help) {
+        return counters.computeIfAbsent(name, n -> new Counter(PREFIX + n + "_total", help, ""));
+    }
+
+    /**
+     * @param name  The name of the counter, without prefix nor suffix
+     * @param help  A description of what it counts
+     * @param label The name of a label
+     * @param value Its value for this counter
+     * @return The counter of that name and label, created on first use
+     */
+    public Counter counter(String name, String help, String label, String value) {
+        String labels = label + "=\"" + escape(value) + "\"";
+        return counters.computeIfAbsent(name + '{' + labels + '}',
+                n -> new Counter(PREFIX + name + "_total", help, labels));
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * @param game The game to instrument
+     * @return A game that forwards to the given one, counting and timing shots
+     */
+    public IGame instrument(IGame game) {
+        return new MeteredGame(game, this);
+    }
+
+    /**
+     * @param fleet The fleet to instrument
+     * @return A fleet that forwards to the given one, counting and timing the
+     * addition and lookup of ships
+     */
+    public IFleet instrument(IFleet fleet) {
+        return new MeteredFleet(fleet, this);
+    }
+
+    /**
+     * This operation writes every metric in the Prometheus text format;
+     * latencies are written as histograms in seconds, with a bucket per power
+     * of two of nanoseconds up to the largest latency recorded
+     *
+     * @param out Where to write
+     * @throws IOException If it cannot be written
+     */
+    public void writePrometheus(Appendable out) throws IOException {
+        String declared = null;
+        for (Counter c : counters.values().stream().sorted(Comparator.comparing((Counter x) -> x.name)
+                .thenComparing(x -> x.labels)).toArray(Counter[]::new)) {
+            if (!c.name.equals(declared)) {
+                out.append("# HELP ").append(c.name).append(' ').append(c.help).append('\n');
+                out.append("# TYPE ").append(c.name).append(" counter\n");
+                declared = c.name;
+            }
+            out.append(c.name).append(c.labels.isEmpty() ? "" : "{" + c.labels + "}")
+                    .append(' ').append(Long.toString(c.get())).append('\n');
+        }
+
+        for (Timer t : timers.values().stream().sorted(Comparator.comparing((Timer x) -> x.name)
+                .thenComparing(x -> x.labels)).toArray(Timer[]::new)) {
+            if (!t.name.equals(declared)) {
+                out.append("# HELP ").append(t.name).append(' ').append(t.help).append('\n');
+                out.append("# TYPE ").append(t.name).append(" histogram\n");
+                declared = t.name;
+            }
+            String separator = t.labels.isEmpty() ? "" : t.labels + ",";
+            LatencyHistogram h = t.snapshot();
+            long cumulative = 0;
+            int last = LatencyHistogram.bucket(h.getMax());
+            for (int b = 0; b <= last; b++) {
+                cumulative += h.countAt(b);
+                if ((b + 1) % LatencyHistogram.SUB_BUCKETS == 0) {
+                    double le = LatencyHistogram.lowest(b + 1) / 1e9;
+                    out.append(t.name).append("_bucket{").append(separator).append("le=\"")
+                            .append(Double.toString(le)).append("\"} ").append(Long.toString(cumulative)).append('\n');
+                }
+            }
+            String labels = t.labels.isEmpty() ? "" : "{" + t.labels + "}";
+            out.append(t.name).append("_bucket{").append(separator).append("le=\"+Inf\"} ")
+                    .append(Long.toString(h.getCount())).append('\n');
+            out.append(t.name).append("_sum").append(labels).append(' ')
+                    .append(Double.toString(h.getTotal() / 1e9)).append('\n');
+            out.append(t.name).append("_count").append(labels).append(' ')
+                    .append(Long.toString(h.getCount())).append('\n');
+        }
+    }
+}
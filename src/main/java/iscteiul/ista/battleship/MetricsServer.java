@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A local HTTP endpoint serving {@link Metrics} to Prometheus at
+ * {@value #PATH}, on the loopback interface only. It runs on a thread of its
+ * own until it is closed.
+ */
+public final class MetricsServer implements AutoCloseable {
+    /**
+     * The path the metrics are served at
+     */
+    public static final String PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+    private final Metrics metrics;
+
+    /**
+     * Starts serving the metrics
+     *
+     * @param metrics The metrics to serve
+     * @param port    The port to listen at, or 0 for any free one
+     * @throws IOException If the port cannot be listened at
+     */
+    public MetricsServer(Metrics metrics, int port) throws IOException {
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, this::serve);
+        server.start();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            metrics.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * @return The port the metrics are served at
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * This operation stops serving the metrics
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fair-play clock for the shots of a player.
+ * <p>
+ * Each shot may take at most a per-shot budget, and all the shots of a game
+ * together at most a per-game budget. The time of a shot is read from
+ * {@link System#nanoTime()}, which is monotonic, around the work of choosing
+ * it: {@link #start()} before, {@link #stop(long)} after. Every time taken is
+ * also counted in a {@link LatencyHistogram}. Shots cannot be interrupted, so
+ * the budgets are enforced once a shot is chosen: a late shot is reported, and
+ * it is up to the caller to forfeit it, or the game once out of time.
+ * <p>
+ * Timing a shot costs two reads of the clock and a few arithmetic operations,
+ * well under a microsecond. A timer is not thread safe; use one per player.
+ */
+public final class MoveTimer {
+    /**
+     * A budget that never runs out
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * The system property holding the time each shot typed at the console may
+     * take, in milliseconds
+     */
+    public static final String SHOT_BUDGET_PROPERTY = "battleship.budget.shot.ms";
+
+    /**
+     * The system property holding the time all the shots of a game typed at the
+     * console may take, in milliseconds
+     */
+    public static final String GAME_BUDGET_PROPERTY = "battleship.budget.game.ms";
+
+    private final long shotBudget;
+    private final long gameBudget;
+    private final LatencyHistogram latencies;
+
+    private long used;
+    private int lateShots;
+
+    /**
+     * @param shotBudgetNanos The time each shot may take, in nanoseconds
+     * @param gameBudgetNanos The time all the shots of a game may take, in
+     *                        nanoseconds
+     */
+    public MoveTimer(long shotBudgetNanos, long gameBudgetNanos) {
+        if (shotBudgetNanos <= 0 || gameBudgetNanos <= 0)
+            throw new IllegalArgumentException("ERROR! time budgets must be positive");
+
+        this.shotBudget = shotBudgetNanos;
+        this.gameBudget = gameBudgetNanos;
+        this.latencies = new LatencyHistogram();
+    }
+
+    /**
+     * @return A timer with the budgets given by the {@link #SHOT_BUDGET_PROPERTY}
+     * and {@link #GAME_BUDGET_PROPERTY} system properties, a budget not given
+     * being unlimited, or null if neither is set
+     * @throws IllegalArgumentException If a budget is not a positive number
+     */
+    public static MoveTimer fromSystemProperties() {
+        String shot = System.getProperty(SHOT_BUDGET_PROPERTY);
+        String game = System.getProperty(GAME_BUDGET_PROPERTY);
+        if (shot == null && game == null)
+            return null;
+        return new MoveTimer(budget(SHOT_BUDGET_PROPERTY, shot), budget(GAME_BUDGET_PROPERTY, game));
+    }
+
+    private static long budget(String property, String millis) {
+        if (millis == null)
+            return UNLIMITED;
+        try {
+            return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(millis.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ERROR! invalid time budget " + millis + " in " + property, e);
+        }
+    }
+
+    /**
+     * This operation resets the clock of the game, keeping the latencies
+     * recorded so far
+     */
+    public void newGame() {
+        used = 0;
+        lateShots = 0;
+    }
+
+    /**
+     * @return The time the choice of a shot starts at, to give to
+     * {@link #stop(long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * This operation ends the timing of a shot
+     *
+     * @param started The time returned by {@link #start()}
+     * @return Whether the shot kept within the per-shot budget and the game
+     * within the per-game one
+     */
+    public boolean stop(long started) {
+        long took = System.nanoTime() - started;
+        latencies.record(took);
+        used += Math.max(0, took);
+        if (took > shotBudget) {
+            lateShots++;
+            return false;
+        }
+        return used <= gameBudget;
+    }
+
+    /**
+     * @return Whether the shots of the game took longer than the per-game budget
+     */
+    public boolean isOutOfTime() {
+        return used > gameBudget;
+    }
+
+    /**
+     * @return The time used by the shots of the game, in nanoseconds
+     */
+    public long getUsed() {
+        return used;
+    }
+
+    /**
+     * @return The number of shots of the game that took longer than the
+     * per-shot budget
+     */
+    public int getLateShots() {
+        return lateShots;
+    }
+
+    /**
+     * @return The latencies of every shot timed
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+}
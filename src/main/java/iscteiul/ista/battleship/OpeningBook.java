@@ -0,0 +1,390 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * A book of the opening shots of a game against a standard fleet.
+ * <p>
+ * The book is a trie of shot histories: each node holds the shot to fire next
+ * and, for each outcome it may have, the node to go on from. The shot of a
+ * node is the cell most likely to hold a ship among a large sample of random
+ * fleets, laid out through {@link Fleet#addShip}, that agree with every
+ * outcome on the way to the node; a node is kept only while enough fleets
+ * agree with it for the estimate to mean something. Sampling fleets and
+ * growing the trie both run in parallel.
+ * <p>
+ * A book lives in a single buffer of fixed-size nodes that refer to their
+ * children by offset, so it can be written to a file and memory-mapped back,
+ * and looking up a move takes a few reads, allocating nothing. Books are
+ * immutable and may be shared between threads.
+ */
+public final class OpeningBook {
+    /**
+     * The outcome of a shot at water
+     */
+    public static final int MISS = 0;
+    /**
+     * The outcome of a shot that hits a ship still floating after it
+     */
+    public static final int HIT = 1;
+    /**
+     * The outcome of a shot that sinks a ship
+     */
+    public static final int SUNK = 2;
+
+    private static final int OUTCOMES = 3;
+    private static final int MAGIC = 0x4F424B31;
+    private static final int HEADER = 12;
+    private static final int NODE = 2 + 4 + 4 + 4 * OUTCOMES;
+    private static final int CHUNK = 1024;
+    private static final int FORK_SAMPLES = 4096;
+
+    private final ByteBuffer buffer;
+    private final int boardSize;
+    private final int depth;
+    private final int nodes;
+
+    private OpeningBook(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.boardSize = buffer.getShort(4);
+        this.depth = buffer.getShort(6);
+        this.nodes = buffer.getInt(8);
+    }
+
+    /**
+     * This operation builds a book by simulation
+     *
+     * @param depth       The largest number of shots covered by the book
+     * @param samples     The number of random fleets simulated
+     * @param minSamples  The smallest number of fleets that must agree with a
+     *                    history for the book to suggest a shot after it
+     * @param seed        The seed of the simulation; the same seed always
+     *                    gives the same book
+     * @param parallelism The number of worker threads
+     * @return The book
+     */
+    public static OpeningBook build(int depth, int samples, int minSamples, long seed, int parallelism) {
+        if (depth <= 0 || depth > Short.MAX_VALUE || samples <= 0 || minSamples <= 0 || parallelism <= 0)
+            throw new IllegalArgumentException("ERROR! invalid opening book settings");
+
+        int n = Fleet.BOARD_SIZE;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            byte[][] layouts = new byte[samples][];
+            byte[][] sizes = new byte[samples][];
+            int chunks = (samples + CHUNK - 1) / CHUNK;
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                Random random = new Random(Zobrist.mix(seed + chunk));
+                FleetGenerator generator = new FleetGenerator();
+                for (int s = chunk * CHUNK; s < Math.min(samples, (chunk + 1) * CHUNK); s++) {
+                    Fleet fleet = new Fleet();
+                    generator.place(random);
+                    generator.addShipsTo(fleet);
+                    GameRecord layout = GameRecord.of(fleet, Collections.emptyList());
+                    layouts[s] = new byte[n * n];
+                    sizes[s] = new byte[layout.shipCount() + 1];
+                    for (int cell = 0; cell < n * n; cell++) {
+                        layouts[s][cell] = (byte) layout.shipAt(cell);
+                        if (layout.shipAt(cell) != 0)
+                            sizes[s][layout.shipAt(cell)]++;
+                    }
+                }
+            })).join();
+
+            int[] all = new int[samples];
+            for (int s = 0; s < samples; s++)
+                all[s] = s;
+            Node root = pool.invoke(new Grow(layouts, sizes, all, new int[0], depth, minSamples));
+            return new OpeningBook(layOut(root, n, depth));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * A node of the trie while it is being built
+     */
+    private static final class Node {
+        private int cell = -1;
+        private float hitChance;
+        private int samples;
+        private final Node[] children = new Node[OUTCOMES];
+        private int offset;
+    }
+
+    /*
+     * Grows the subtrie after a history, given the sample fleets that agree
+     * with it, forking the subtries of outcomes with many samples
+     */
+    private static final class Grow extends RecursiveTask<Node> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[][] layouts;
+        private final byte[][] sizes;
+        private final int[] agreeing;
+        private final int[] history;
+        private final int depth;
+        private final int minSamples;
+
+        private Grow(byte[][] layouts, byte[][] sizes, int[] agreeing, int[] history, int depth, int minSamples) {
+            this.layouts = layouts;
+            this.sizes = sizes;
+            this.agreeing = agreeing;
+            this.history = history;
+            this.depth = depth;
+            this.minSamples = minSamples;
+        }
+
+        @Override
+        protected Node compute() {
+            Node node = new Node();
+            node.samples = agreeing.length;
+            if (agreeing.length < minSamples || history.length >= depth)
+                return node;
+
+            int cells = layouts[agreeing[0]].length;
+            int[] counts = new int[cells];
+            for (int s : agreeing) {
+                byte[] layout = layouts[s];
+                for (int cell = 0; cell < cells; cell++)
+                    if (layout[cell] != 0)
+                        counts[cell]++;
+            }
+            for (int cell : history)
+                counts[cell] = -1;
+            int best = 0;
+            for (int cell = 1; cell < cells; cell++)
+                if (counts[cell] > counts[best])
+                    best = cell;
+            node.cell = best;
+            node.hitChance = (float) counts[best] / agreeing.length;
+
+            int[] next = Arrays.copyOf(history, history.length + 1);
+            next[history.length] = best;
+            int[][] byOutcome = new int[OUTCOMES][agreeing.length];
+            int[] count = new int[OUTCOMES];
+            for (int s : agreeing) {
+                int outcome = outcome(layouts[s], sizes[s], next);
+                byOutcome[outcome][count[outcome]++] = s;
+            }
+
+            Grow[] tasks = new Grow[OUTCOMES];
+            for (int o = 0; o < OUTCOMES; o++)
+                if (count[o] >= minSamples) {
+                    tasks[o] = new Grow(layouts, sizes, Arrays.copyOf(byOutcome[o], count[o]), next, depth,
+                            minSamples);
+                    if (count[o] >= FORK_SAMPLES)
+                        tasks[o].fork();
+                }
+            for (int o = 0; o < OUTCOMES; o++)
+                if (tasks[o] != null && count[o] < FORK_SAMPLES)
+                    node.children[o] = tasks[o].compute();
+            for (int o = 0; o < OUTCOMES; o++)
+                if (tasks[o] != null && count[o] >= FORK_SAMPLES)
+                    node.children[o] = tasks[o].join();
+            return node;
+        }
+    }
+
+    /*
+     * The outcome of the last shot of a history against a sample fleet
+     */
+    private static int outcome(byte[] layout, byte[] sizes, int[] history) {
+        int ship = layout[history[history.length - 1]];
+        if (ship == 0)
+            return MISS;
+        int hits = 0;
+        for (int cell : history)
+            if (layout[cell] == ship)
+                hits++;
+        return hits == sizes[ship] ? SUNK : HIT;
+    }
+
+    /*
+     * Lays the trie out breadth first in a buffer
+     */
+    private static ByteBuffer layOut(Node root, int boardSize, int depth) {
+        List<Node> order = new ArrayList<>();
+        Queue<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+            if (node.cell < 0)
+                continue;
+            node.offset = HEADER + order.size() * NODE;
+            order.add(node);
+            for (Node child : node.children)
+                if (child != null)
+                    queue.add(child);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + order.size() * NODE);
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) boardSize);
+        buffer.putShort(6, (short) depth);
+        buffer.putInt(8, order.size());
+        for (Node node : order) {
+            buffer.putShort(node.offset, (short) node.cell);
+            buffer.putFloat(node.offset + 2, node.hitChance);
+            buffer.putInt(node.offset + 6, node.samples);
+            for (int o = 0; o < OUTCOMES; o++) {
+                Node child = node.children[o];
+                buffer.putInt(node.offset + 10 + 4 * o, child != null && child.cell >= 0 ? child.offset : 0);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * This operation writes the book to a file, replacing what it held
+     *
+     * @param file The file
+     * @throws IOException If it cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = buffer.duplicate();
+            contents.clear();
+            while (contents.hasRemaining())
+                channel.write(contents);
+        }
+    }
+
+    /**
+     * This operation maps a book written to a file into memory
+     *
+     * @param file The file
+     * @return The book
+     * @throws IOException If it cannot be read, or does not hold a valid book
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("ERROR! " + file + " does not hold an opening book");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("ERROR! " + file + " does not hold an opening book");
+        int boardSize = buffer.getShort(4);
+        int nodes = buffer.getInt(8);
+        if (boardSize <= 0 || nodes < 0 || buffer.capacity() != HEADER + (long) nodes * NODE)
+            throw new IOException("ERROR! " + file + " holds a damaged opening book");
+        for (int node = HEADER; node < buffer.capacity(); node += NODE) {
+            int cell = buffer.getShort(node);
+            if (cell < 0 || cell >= boardSize * boardSize)
+                throw new IOException("ERROR! " + file + " holds a damaged opening book");
+            for (int o = 0; o < OUTCOMES; o++) {
+                int child = buffer.getInt(node + 10 + 4 * o);
+                if (child != 0 && (child <= node || child >= buffer.capacity() || (child - HEADER) % NODE != 0))
+                    throw new IOException("ERROR! " + file + " holds a damaged opening book");
+            }
+        }
+        return new OpeningBook(buffer);
+    }
+
+    /**
+     * @return The node of the empty history, or -1 if the book is empty
+     */
+    public int root() {
+        return nodes > 0 ? HEADER : -1;
+    }
+
+    /**
+     * @param node A node of the book
+     * @return The cell to fire at next, row * board size + column
+     */
+    public int move(int node) {
+        return buffer.getShort(node);
+    }
+
+    /**
+     * @param node    A node of the book
+     * @param outcome The outcome of its move: {@link #MISS}, {@link #HIT} or
+     *                {@link #SUNK}
+     * @return The node to go on from, or -1 if the book does not go on
+     */
+    public int child(int node, int outcome) {
+        int child = buffer.getInt(node + 10 + 4 * outcome);
+        return child != 0 ? child : -1;
+    }
+
+    /**
+     * @param node A node of the book
+     * @return The share of the sample fleets agreeing with its history that
+     * its move hits
+     */
+    public double getHitChance(int node) {
+        return buffer.getFloat(node + 2);
+    }
+
+    /**
+     * @param node A node of the book
+     * @return The number of sample fleets that agree with its history
+     */
+    public int getSamples(int node) {
+        return buffer.getInt(node + 6);
+    }
+
+    /**
+     * This operation looks a history up in the book
+     *
+     * @param cells    The cells fired at, in order
+     * @param outcomes The outcome of each shot
+     * @param length   The number of shots of the history
+     * @return The cell to fire at next, or -1 if the history is not in the book
+     */
+    public int lookup(int[] cells, int[] outcomes, int length) {
+        int node = root();
+        for (int i = 0; i < length && node >= 0; i++)
+            node = move(node) == cells[i] ? child(node, outcomes[i]) : -1;
+        return node >= 0 ? move(node) : -1;
+    }
+
+    /**
+     * @return The number of rows (and columns) of the board
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @return The largest number of shots covered by the book
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of histories with a move in the book
+     */
+    public int size() {
+        return nodes;
+    }
+
+    /**
+     * @return The number of bytes the book takes
+     */
+    public int bytes() {
+        return buffer.capacity();
+    }
+}
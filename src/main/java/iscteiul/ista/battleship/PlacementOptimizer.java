@@ -0,0 +1,347 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Optimizer of fleet layouts that are hard for shooters to sink.
+ * <p>
+ * The fitness of a layout is the average number of shots a set of shooter
+ * strategies take to sink it. It is estimated by playing games in rounds
+ * spread over a pool of worker threads, until the 95% confidence interval of
+ * the mean is narrower than a tolerance or a maximum number of games has been
+ * played. Fitnesses are remembered in a {@link TranspositionCache} keyed by
+ * the {@link Fleet#getHash() hash} of the layout, so layouts visited again
+ * cost nothing.
+ * <p>
+ * Layouts are searched by simulated annealing: each step moves one ship to
+ * another placement, of any of its bearings, that fits with the others, and
+ * the move is kept if it makes the layout harder, or else with a probability
+ * that falls as the search cools down. An optimizer holds its worker threads
+ * until it is closed; it must be used by one thread at a time.
+ */
+public class PlacementOptimizer implements AutoCloseable {
+    /**
+     * The smallest number of games played to evaluate a layout, unless told
+     * otherwise
+     */
+    public static final int DEFAULT_MIN_GAMES = 64;
+    /**
+     * The largest number of games played to evaluate a layout, unless told
+     * otherwise
+     */
+    public static final int DEFAULT_MAX_GAMES = 2048;
+    /**
+     * The half-width, in shots, of the confidence interval at which an
+     * evaluation stops, unless told otherwise
+     */
+    public static final double DEFAULT_TOLERANCE = 0.5;
+
+    private static final double Z_95 = 1.96;
+    private static final double INITIAL_TEMPERATURE = 2.0;
+    private static final double FINAL_TEMPERATURE = 0.05;
+    private static final int CACHE_SIZE = 1 << 14;
+
+    private final List<Function<Random, IShooter>> strategies;
+    private final int threads;
+    private final int minGames;
+    private final int maxGames;
+    private final double tolerance;
+    private final ExecutorService workers;
+    private final TranspositionCache<Double> fitness;
+
+    private SplittableRandom seeds;
+    private int evaluations;
+    private long gamesPlayed;
+    private double bestScore;
+
+    /**
+     * @param strategies Factories of the shooters to play against, given the
+     *                   source of randomness of each
+     * @param threads    The number of worker threads
+     */
+    public PlacementOptimizer(List<Function<Random, IShooter>> strategies, int threads) {
+        this(strategies, threads, DEFAULT_MIN_GAMES, DEFAULT_MAX_GAMES, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param strategies Factories of the shooters to play against, given the
+     *                   source of randomness of each
+     * @param threads    The number of worker threads
+     * @param minGames   The smallest number of games played per layout
+     * @param maxGames   The largest number of games played per layout
+     * @param tolerance  The half-width, in shots, of the 95% confidence interval
+     *                   of the fitness at which an evaluation may stop
+     */
+    public PlacementOptimizer(List<Function<Random, IShooter>> strategies, int threads, int minGames,
+                              int maxGames, double tolerance) {
+        if (strategies.isEmpty())
+            throw new IllegalArgumentException("ERROR! at least one shooter strategy is needed");
+        if (threads <= 0 || minGames <= 0 || maxGames < minGames || tolerance <= 0)
+            throw new IllegalArgumentException("ERROR! invalid optimizer settings");
+
+        this.strategies = List.copyOf(strategies);
+        this.threads = threads;
+        this.minGames = minGames;
+        this.maxGames = maxGames;
+        this.tolerance = tolerance;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "placement-optimizer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.fitness = new TranspositionCache<>(CACHE_SIZE);
+        this.seeds = new SplittableRandom();
+        this.bestScore = Double.NaN;
+    }
+
+    /**
+     * This operation searches for a hard layout of a standard fleet
+     *
+     * @param random     The source of randomness
+     * @param iterations The number of moves to try
+     * @return The hardest layout found
+     */
+    public Fleet optimize(Random random, int iterations) {
+        seeds = new SplittableRandom(random.nextLong());
+        FleetGenerator generator = new FleetGenerator();
+        generator.place(random);
+
+        int n = generator.shipCount();
+        ShipType[] types = new ShipType[n];
+        PlacementTable[][] tables = new PlacementTable[n][];
+        int[] bearing = new int[n];
+        int[] placement = new int[n];
+        for (int i = 0; i < n; i++) {
+            types[i] = generator.type(i);
+            Compass[] bearings = types[i].distinctBearings();
+            tables[i] = new PlacementTable[bearings.length];
+            for (int b = 0; b < bearings.length; b++) {
+                tables[i][b] = PlacementTable.forType(types[i], bearings[b], Fleet.BOARD_SIZE);
+                if (bearings[b] == generator.bearing(i))
+                    bearing[i] = b;
+            }
+            placement[i] = generator.placement(i);
+        }
+
+        double score = evaluate(build(types, tables, bearing, placement));
+        double best = score;
+        int[] bestBearing = bearing.clone();
+        int[] bestPlacement = placement.clone();
+        long[] others = BoardMask.create(Fleet.BOARD_SIZE);
+
+        for (int it = 0; it < iterations; it++) {
+            double temperature = INITIAL_TEMPERATURE
+                    * Math.pow(FINAL_TEMPERATURE / INITIAL_TEMPERATURE, (double) it / iterations);
+
+            int ship = random.nextInt(n);
+            int oldBearing = bearing[ship];
+            int oldPlacement = placement[ship];
+            if (!move(ship, tables, bearing, placement, others, random))
+                continue;
+
+            double candidate = evaluate(build(types, tables, bearing, placement));
+            if (candidate >= score || random.nextDouble() < Math.exp((candidate - score) / temperature)) {
+                score = candidate;
+                if (score > best) {
+                    best = score;
+                    System.arraycopy(bearing, 0, bestBearing, 0, n);
+                    System.arraycopy(placement, 0, bestPlacement, 0, n);
+                }
+            } else {
+                bearing[ship] = oldBearing;
+                placement[ship] = oldPlacement;
+            }
+        }
+
+        bestScore = best;
+        return build(types, tables, bestBearing, bestPlacement);
+    }
+
+    /*
+     * Moves the ship to a random placement, other than its own, that fits with
+     * the other ships; fails if there is none.
+     */
+    private boolean move(int ship, PlacementTable[][] tables, int[] bearing, int[] placement, long[] others,
+                         Random random) {
+        Arrays.fill(others, 0L);
+        for (int i = 0; i < tables.length; i++)
+            if (i != ship)
+                tables[i][bearing[i]].addFootprint(placement[i], others);
+
+        int fitting = 0;
+        for (int b = 0; b < tables[ship].length; b++)
+            for (int p = 0; p < tables[ship][b].size(); p++)
+                if (tables[ship][b].fits(p, others) && (b != bearing[ship] || p != placement[ship]))
+                    fitting++;
+        if (fitting == 0)
+            return false;
+
+        int chosen = random.nextInt(fitting);
+        for (int b = 0; b < tables[ship].length; b++)
+            for (int p = 0; p < tables[ship][b].size(); p++)
+                if (tables[ship][b].fits(p, others) && (b != bearing[ship] || p != placement[ship])
+                        && chosen-- == 0) {
+                    bearing[ship] = b;
+                    placement[ship] = p;
+                    return true;
+                }
+        return false;
+    }
+
+    private static Fleet build(ShipType[] types, PlacementTable[][] tables, int[] bearing, int[] placement) {
+        Fleet fleet = new Fleet();
+        for (int i = 0; i < types.length; i++) {
+            Compass b = types[i].distinctBearings()[bearing[i]];
+            IShip ship = types[i].build(b, tables[i][bearing[i]].anchorPosition(placement[i]));
+            if (!fleet.addShip(ship))
+                throw new IllegalStateException("ERROR! the fleet refused the optimised " + ship);
+        }
+        return fleet;
+    }
+
+    /**
+     * This operation estimates how hard a layout is to sink
+     *
+     * @param fleet A fleet made of ships of registered kinds
+     * @return The average number of shots the shooter strategies take to sink it
+     */
+    public double evaluate(Fleet fleet) {
+        long key = fleet.getHash();
+        Double known = fitness.get(key);
+        if (known != null)
+            return known;
+
+        List<IShip> ships = fleet.getShips();
+        ShipType[] types = new ShipType[ships.size()];
+        Compass[] bearings = new Compass[ships.size()];
+        IPosition[] positions = new IPosition[ships.size()];
+        for (int i = 0; i < types.length; i++) {
+            IShip s = ships.get(i);
+            types[i] = s.getType();
+            if (types[i] == null)
+                throw new IllegalArgumentException("ERROR! only fleets of registered kinds of ships can be evaluated");
+            bearings[i] = s.getBearing();
+            positions[i] = s.getPosition();
+        }
+
+        long games = 0;
+        double sum = 0;
+        double squares = 0;
+        while (games < maxGames) {
+            int perWorker = (int) Math.max(1, (Math.min(minGames, maxGames - games) + threads - 1) / threads);
+            List<Callable<double[]>> round = new ArrayList<>(threads);
+            for (int w = 0; w < threads; w++) {
+                long seed = seeds.nextLong();
+                round.add(() -> play(types, bearings, positions, perWorker, new Random(seed)));
+            }
+            for (double[] result : runAll(round)) {
+                sum += result[0];
+                squares += result[1];
+                games += (long) result[2];
+            }
+
+            double mean = sum / games;
+            double variance = Math.max(0, squares / games - mean * mean) * games / Math.max(1, games - 1);
+            if (games >= minGames && Z_95 * Math.sqrt(variance / games) <= tolerance)
+                break;
+        }
+
+        double mean = sum / games;
+        gamesPlayed += games;
+        evaluations++;
+        fitness.put(key, mean);
+        return mean;
+    }
+
+    /*
+     * Plays the given number of rounds, each a game against every strategy, and
+     * returns the sum and the sum of squares of the average shots of each round,
+     * and the number of rounds.
+     */
+    private double[] play(ShipType[] types, Compass[] bearings, IPosition[] positions, int rounds, Random random) {
+        List<IShooter> shooters = new ArrayList<>(strategies.size());
+        for (Function<Random, IShooter> strategy : strategies)
+            shooters.add(strategy.apply(random));
+
+        double sum = 0;
+        double squares = 0;
+        for (int r = 0; r < rounds; r++) {
+            double shots = 0;
+            for (IShooter shooter : shooters) {
+                Fleet fleet = new Fleet();
+                for (int i = 0; i < types.length; i++)
+                    fleet.addShip(types[i].build(bearings[i], positions[i]));
+                shooter.newGame(types);
+                shots += shooter.playOut(new Game(fleet));
+            }
+            shots /= shooters.size();
+            sum += shots;
+            squares += shots * shots;
+        }
+        return new double[]{sum, squares, rounds};
+    }
+
+    private List<double[]> runAll(List<Callable<double[]>> tasks) {
+        try {
+            List<double[]> results = new ArrayList<>(tasks.size());
+            for (Future<double[]> f : workers.invokeAll(tasks))
+                results.add(f.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ERROR! interrupted while evaluating a layout", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("ERROR! a game failed while evaluating a layout", e.getCause());
+        }
+    }
+
+    /**
+     * @return The fitness of the layout returned by the last optimization, or
+     * NaN if there has been none
+     */
+    public double getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return The number of layouts evaluated by playing games
+     */
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return The number of evaluations answered by the fitness cache
+     */
+    public long getCacheHits() {
+        return fitness.getHits();
+    }
+
+    /**
+     * @return The number of rounds of games played, one game per strategy each
+     */
+    public long getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * This operation stops the worker threads
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every placement of one orientation of a ship shape that fits in a board of a
+ * given size, laid out once as board masks.
+ * <p>
+ * For each placement the table keeps its footprint, the cells taken by the
+ * ship, and its halo, the cells of the board around the footprint where no
+ * other ship may be. Masks of all placements are kept one after the other in
+ * single long arrays, {@link #words()} words each (see {@link BoardMask}).
+ * Each placement is identified by its index and is anchored at the cell taken
+ * by the origin of the offsets of the shape, i.e. the position of the ship.
+ * <p>
+ * Tables are immutable. The ones obtained through {@link #forType} and
+ * {@link #forShape} are built on first use and then shared by all threads;
+ * looking up a table that has already been built takes no lock.
+ */
+public final class PlacementTable {
+    private static final Map<Key, PlacementTable> CACHE = new ConcurrentHashMap<>();
+
+    private final int boardSize;
+    private final int words;
+    private final int count;
+    private final int minRow;
+    private final int minColumn;
+    private final int anchorRows;
+    private final int anchorColumns;
+    private final int[] anchors;
+    private final long[] footprints;
+    private final long[] halos;
+
+    /**
+     * @param rows      The row offsets of the cells of the shape
+     * @param columns   The column offsets of the cells of the shape
+     * @param boardSize The number of rows (and columns) of the board
+     */
+    PlacementTable(int[] rows, int[] columns, int boardSize) {
+        assert rows.length > 0 && rows.length == columns.length;
+        assert boardSize > 0;
+
+        int minRow = 0, maxRow = 0, minColumn = 0, maxColumn = 0;
+        for (int i = 0; i < rows.length; i++) {
+            minRow = Math.min(minRow, rows[i]);
+            maxRow = Math.max(maxRow, rows[i]);
+            minColumn = Math.min(minColumn, columns[i]);
+            maxColumn = Math.max(maxColumn, columns[i]);
+        }
+
+        this.boardSize = boardSize;
+        this.words = BoardMask.words(boardSize);
+        this.minRow = minRow;
+        this.minColumn = minColumn;
+        this.anchorRows = Math.max(0, boardSize - (maxRow - minRow));
+        this.anchorColumns = Math.max(0, boardSize - (maxColumn - minColumn));
+        this.count = anchorRows * anchorColumns;
+        this.anchors = new int[count];
+        this.footprints = new long[count * words];
+        this.halos = new long[count * words];
+
+        int p = 0;
+        for (int r = -minRow; r < -minRow + anchorRows; r++)
+            for (int c = -minColumn; c < -minColumn + anchorColumns; c++) {
+                anchors[p] = r * boardSize + c;
+                for (int i = 0; i < rows.length; i++) {
+                    int cell = (r + rows[i]) * boardSize + c + columns[i];
+                    footprints[p * words + (cell >>> 6)] |= 1L << cell;
+                }
+                for (int i = 0; i < rows.length; i++)
+                    surround(p, r + rows[i], c + columns[i]);
+                p++;
+            }
+    }
+
+    private void surround(int placement, int row, int column) {
+        for (int r = Math.max(0, row - 1); r <= Math.min(boardSize - 1, row + 1); r++)
+            for (int c = Math.max(0, column - 1); c <= Math.min(boardSize - 1, column + 1); c++) {
+                int cell = r * boardSize + c;
+                if (!occupies(placement, cell))
+                    halos[placement * words + (cell >>> 6)] |= 1L << cell;
+            }
+    }
+
+    /**
+     * @param type      A registered kind of ship
+     * @param bearing   A bearing accepted by that kind of ship
+     * @param boardSize The number of rows (and columns) of the board
+     * @return The shared table of the placements of that ship on such a board
+     */
+    public static PlacementTable forType(ShipType type, Compass bearing, int boardSize) {
+        if (!type.accepts(bearing) || bearing == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the " + type.getKind());
+        return lookup(new Key(type.rowOffsets(bearing), type.columnOffsets(bearing), boardSize));
+    }
+
+    /**
+     * @param shape       The shape of a ship
+     * @param orientation An orientation of the shape
+     * @param boardSize   The number of rows (and columns) of the board
+     * @return The shared table of the placements of that shape on such a board
+     */
+    public static PlacementTable forShape(ShipShape shape, int orientation, int boardSize) {
+        if (orientation < 0 || orientation >= shape.orientations())
+            throw new IllegalArgumentException("ERROR! invalid orientation for the " + shape.getKind());
+        return lookup(new Key(shape.rowOffsets(orientation), shape.columnOffsets(orientation), boardSize));
+    }
+
+    /**
+     * @param ship      A ship
+     * @param boardSize The number of rows (and columns) of the board
+     * @return The shared table with the placements of ships laid out as the given
+     * one, or null if its layout is not known from a table
+     */
+    static PlacementTable forShip(IShip ship, int boardSize) {
+        if (ship instanceof ShapedShip) {
+            ShapedShip shaped = (ShapedShip) ship;
+            return forShape(shaped.getShape(), shaped.getOrientation(), boardSize);
+        }
+        ShipType type = ship.getType();
+        if (ship instanceof Ship && ((Ship) ship).isShapedAsType() && ship.getBearing() != null
+                && type.accepts(ship.getBearing()))
+            return forType(type, ship.getBearing(), boardSize);
+        return null;
+    }
+
+    private static PlacementTable lookup(Key key) {
+        PlacementTable table = CACHE.get(key);
+        if (table == null)
+            table = CACHE.computeIfAbsent(key, Key::build);
+        return table;
+    }
+
+    /**
+     * @return The number of rows (and columns) of the board
+     */
+    public int boardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @return The number of words of each mask
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * @return The number of placements
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param row    The row of the position of a ship
+     * @param column The column of the position of a ship
+     * @return The index of the placement anchored there, or -1 if a ship
+     * anchored there does not fit in the board
+     */
+    public int indexOf(int row, int column) {
+        int r = row + minRow;
+        int c = column + minColumn;
+        if (r < 0 || r >= anchorRows || c < 0 || c >= anchorColumns)
+            return -1;
+        return r * anchorColumns + c;
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @return The cell where the position of the ship is
+     */
+    public int anchor(int placement) {
+        return anchors[placement];
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @return A new position for the anchor of the placement
+     */
+    public Position anchorPosition(int placement) {
+        return new Position(anchors[placement] / boardSize, anchors[placement] % boardSize);
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param cell      A cell of the board
+     * @return Whether the placement takes that cell
+     */
+    public boolean occupies(int placement, int cell) {
+        return (footprints[placement * words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param mask      A board mask
+     * @return Whether the placement takes any cell of the mask
+     */
+    public boolean overlaps(int placement, long[] mask) {
+        return BoardMask.intersects(footprints, placement * words, mask);
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param mask      A board mask
+     * @return Whether any cell of the mask is around the placement
+     */
+    public boolean touches(int placement, long[] mask) {
+        return BoardMask.intersects(halos, placement * words, mask);
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param occupied  The cells taken by the ships already on the board
+     * @return Whether a ship may be put there, i.e. it neither overlaps nor
+     * touches, even diagonally, any of those ships
+     */
+    public boolean fits(int placement, long[] occupied) {
+        return !overlaps(placement, occupied) && !touches(placement, occupied);
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param into      A board mask to which the cells of the placement are added
+     */
+    public void addFootprint(int placement, long[] into) {
+        BoardMask.or(into, footprints, placement * words);
+    }
+
+    /**
+     * @param placement The index of a placement
+     * @param into      A board mask to which the cells around the placement are
+     *                  added
+     */
+    public void addHalo(int placement, long[] into) {
+        BoardMask.or(into, halos, placement * words);
+    }
+
+    /*
+     * Tables are keyed by the cells they lay out, so that shapes loaded again,
+     * or kinds and shapes with the same cells, share a table
+     */
+    private static final class Key {
+        private final int[] rows;
+        private final int[] columns;
+        private final int boardSize;
+        private final int hash;
+
+        Key(int[] rows, int[] columns, int boardSize) {
+            this.rows = rows;
+            this.columns = columns;
+            this.boardSize = boardSize;
+            this.hash = (Arrays.hashCode(rows) * 31 + Arrays.hashCode(columns)) * 31 + boardSize;
+        }
+
+        PlacementTable build() {
+            return new PlacementTable(rows, columns, boardSize);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return boardSize == key.boardSize && Arrays.equals(rows, key.rows) && Arrays.equals(columns, key.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
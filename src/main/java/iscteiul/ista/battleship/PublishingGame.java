@@ -0,0 +1,95 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.List;
+
+/**
+ * A game that tells an outlet, such as a {@link GameFeed} or a
+ * {@link ShotJournal}, what each of its shots did, forwarding everything to
+ * the game it decorates. Volleys are fired shot by shot, so that each shot is
+ * told. The ships of the fleet are counted once, when the game is decorated,
+ * so that the end of the game is told from the number of ships sunk, without
+ * listing the ships still afloat on every sink.
+ */
+final class PublishingGame implements IGame {
+
+    /*
+     * Where the shots of the game go
+     */
+    interface Outlet {
+        void publish(GameFeed.Kind kind, IPosition pos, String category);
+    }
+
+    private final IGame game;
+    private final Outlet feed;
+    private final int ships;
+
+    PublishingGame(IGame game, Outlet feed) {
+        this.game = game;
+        this.feed = feed;
+        this.ships = game.getSunkShips() + game.getRemainingShips();
+    }
+
+    @Override
+    public IShip fire(IPosition pos) {
+        int hits = game.getHits();
+        int invalid = game.getInvalidShots();
+        int repeated = game.getRepeatedShots();
+        IShip sunk = game.fire(pos);
+        if (sunk != null) {
+            feed.publish(GameFeed.Kind.SINK, pos, sunk.getCategory());
+            if (game.getSunkShips() == ships)
+                feed.publish(GameFeed.Kind.GAME_OVER, pos, null);
+        } else if (game.getHits() > hits)
+            feed.publish(GameFeed.Kind.HIT, pos, null);
+        else if (game.getInvalidShots() > invalid)
+            feed.publish(GameFeed.Kind.INVALID, pos, null);
+        else if (game.getRepeatedShots() > repeated)
+            feed.publish(GameFeed.Kind.REPEAT, pos, null);
+        else
+            feed.publish(GameFeed.Kind.MISS, pos, null);
+        return sunk;
+    }
+
+    @Override
+    public List<IPosition> getShots() {
+        return game.getShots();
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return game.getRepeatedShots();
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return game.getInvalidShots();
+    }
+
+    @Override
+    public int getHits() {
+        return game.getHits();
+    }
+
+    @Override
+    public int getSunkShips() {
+        return game.getSunkShips();
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return game.getRemainingShips();
+    }
+
+    @Override
+    public void printValidShots() {
+        game.printValidShots();
+    }
+
+    @Override
+    public void printFleet() {
+        game.printFleet();
+    }
+}
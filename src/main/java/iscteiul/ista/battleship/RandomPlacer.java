@@ -0,0 +1,20 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * A placer that lays out a standard fleet at random, each ship chosen
+ * uniformly among the placements that fit (see {@link FleetGenerator}).
+ */
+public class RandomPlacer implements IPlacer {
+
+    @Override
+    public void place(IFleet fleet, Random random) {
+        FleetGenerator generator = new FleetGenerator();
+        generator.place(random);
+        generator.addShipsTo(fleet);
+    }
+}
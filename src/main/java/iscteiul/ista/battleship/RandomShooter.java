@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * The simplest shooter: fires at the cells of the board in a random order,
+ * each one once. It sets the baseline other strategies are measured against.
+ * A shooter is not thread safe; use one per thread.
+ */
+public class RandomShooter implements IShooter {
+    private final Random random;
+    private final Position[] positions;
+    private final int[] order;
+
+    private int ships;
+    private int sunk;
+    private int shots;
+
+    /**
+     * Creates a shooter for the board of the game
+     *
+     * @param random The source of randomness
+     */
+    public RandomShooter(Random random) {
+        this(random, Fleet.BOARD_SIZE);
+    }
+
+    /**
+     * @param random    The source of randomness
+     * @param boardSize The number of rows (and columns) of the board
+     */
+    public RandomShooter(Random random, int boardSize) {
+        assert random != null;
+        assert boardSize > 0;
+
+        this.random = random;
+        this.positions = new Position[boardSize * boardSize];
+        this.order = new int[positions.length];
+        for (int cell = 0; cell < positions.length; cell++) {
+            positions[cell] = new Position(cell / boardSize, cell % boardSize);
+            order[cell] = cell;
+        }
+    }
+
+    @Override
+    public void newGame(ShipType[] fleet) {
+        ships = fleet.length;
+        sunk = 0;
+        shots = 0;
+    }
+
+    @Override
+    public IShip fire(IGame game) {
+        if (shots == order.length)
+            throw new IllegalStateException("ERROR! no cell left to fire at");
+
+        // one step of a Fisher-Yates shuffle picks the next cell
+        int pick = shots + random.nextInt(order.length - shots);
+        int cell = order[pick];
+        order[pick] = order[shots];
+        order[shots++] = cell;
+
+        IShip ship = game.fire(positions[cell]);
+        if (ship != null)
+            sunk++;
+        return ship;
+    }
+
+    @Override
+    public boolean isDone() {
+        return sunk >= ships || shots == order.length;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.List;
+
+/**
+ * The Salvo variant of the game, between two fleets. The players take turns,
+ * each firing a volley of as many shots as they have ships afloat at the
+ * other's fleet; the shots of a volley land together, through
+ * {@link IGame#fire(IPosition[], int, IShip[])}, so the ships they sink only
+ * shrink the next volley of their owner. The first player to sink the whole
+ * fleet of the other wins.
+ * <p>
+ * The ships afloat are counted down as they are reported sunk, so sizing a
+ * volley is a lookup, and firing one allocates nothing beyond what the game
+ * does.
+ */
+public final class Salvo {
+    /**
+     * The player who fires first
+     */
+    public static final int FIRST = 0;
+
+    /**
+     * The player who fires second
+     */
+    public static final int SECOND = 1;
+
+    private final IGame[] games;
+    private final int[] afloat;
+    private int turn;
+    private int winner;
+
+    /**
+     * @param first  The fleet of the first player
+     * @param second The fleet of the second player
+     */
+    public Salvo(IFleet first, IFleet second) {
+        if (first == null || second == null)
+            throw new NullPointerException("ERROR! a salvo game needs two fleets");
+        this.games = new IGame[]{new Game(first), new Game(second)};
+        this.afloat = new int[]{countFloating(first), countFloating(second)};
+        this.turn = FIRST;
+        this.winner = afloat[FIRST] == 0 ? SECOND : afloat[SECOND] == 0 ? FIRST : -1;
+    }
+
+    private static int countFloating(IFleet fleet) {
+        List<IShip> ships = fleet.getShips();
+        int floating = 0;
+        for (int i = 0; i < ships.size(); i++)
+            floating += ships.get(i).stillFloating() ? 1 : 0;
+        return floating;
+    }
+
+    /**
+     * @return The player whose turn it is to fire
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * @param player {@link #FIRST} or {@link #SECOND}
+     * @return The number of shots of the next volley of the player: the ships
+     * of their fleet still afloat
+     */
+    public int volleySize(int player) {
+        return afloat[checkPlayer(player)];
+    }
+
+    /**
+     * @param player {@link #FIRST} or {@link #SECOND}
+     * @return The game played against the fleet of the player, that is, by the
+     * other one
+     */
+    public IGame getGameAgainst(int player) {
+        return games[checkPlayer(player)];
+    }
+
+    /**
+     * @return The player who won, or -1 while the game goes on
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return Whether one of the fleets has been sunk
+     */
+    public boolean isOver() {
+        return winner >= 0;
+    }
+
+    /**
+     * This operation fires the volley of the player whose turn it is, and hands
+     * the turn to the other player unless their fleet was sunk
+     *
+     * @param volley The shots to fire, from the first
+     * @param count  The number of shots of the volley, at most
+     *               {@link #volleySize(int)} of the player
+     * @param sunk   Where to put the ships sunk by the volley, as many as fit
+     * @return The number of ships sunk by the volley
+     * @throws IllegalStateException    If the game is over
+     * @throws IllegalArgumentException If the volley has more shots than the
+     *                                  player may fire
+     */
+    public int fire(IPosition[] volley, int count, IShip[] sunk) {
+        if (isOver())
+            throw new IllegalStateException("ERROR! the game is over");
+        if (count > afloat[turn])
+            throw new IllegalArgumentException("ERROR! volley of " + count + " shots, only " + afloat[turn]
+                    + " allowed");
+
+        int target = 1 - turn;
+        int sinks = games[target].fire(volley, count, sunk);
+        afloat[target] -= sinks;
+        if (afloat[target] == 0)
+            winner = turn;
+        else
+            turn = target;
+        return sinks;
+    }
+
+    private static int checkPlayer(int player) {
+        if (player != FIRST && player != SECOND)
+            throw new IllegalArgumentException("ERROR! no player " + player);
+        return player;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * A ship whose shape is given as data, by a {@link ShipShape}
+ */
+public class ShapedShip extends Ship {
+    private final ShipShape shape;
+    private final int orientation;
+
+    /**
+     * @param shape       The shape of the ship
+     * @param orientation The orientation of the shape
+     * @param pos         The position of the top-left corner of the ship
+     */
+    public ShapedShip(ShipShape shape, int orientation, IPosition pos) {
+        super(shape.getName(), bearingOf(shape, orientation), pos);
+
+        this.shape = shape;
+        this.orientation = orientation;
+
+        int[] rows = shape.rowOffsets(orientation);
+        int[] columns = shape.columnOffsets(orientation);
+        for (int i = 0; i < rows.length; i++)
+            getPositions().add(new Position(pos.getRow() + rows[i], pos.getColumn() + columns[i]));
+        fixBounds();
+    }
+
+    private static Compass bearingOf(ShipShape shape, int orientation) {
+        if (orientation < 0 || orientation >= shape.orientations())
+            throw new IllegalArgumentException("ERROR! invalid orientation for the " + shape.getKind());
+        return shape.bearing(orientation);
+    }
+
+    /**
+     * @return The shape of the ship
+     */
+    public ShipShape getShape() {
+        return shape;
+    }
+
+    /**
+     * @return The orientation of the shape of the ship
+     */
+    public int getOrientation() {
+        return orientation;
+    }
+
+}
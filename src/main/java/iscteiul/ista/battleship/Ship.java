@@ -9,12 +9,6 @@ import java.util.List;
 
 public abstract class Ship implements IShip {
 
-    private static final String GALEAO = "galeao";
-    private static final String FRAGATA = "fragata";
-    private static final String NAU = "nau";
-    private static final String CARAVELA = "caravela";
-    private static final String BARCA = "barca";
-
     /**
      * @param shipKind
      * @param bearing
@@ -22,37 +16,67 @@ public abstract class Ship implements IShip {
      * @return
      */
     static Ship buildShip(String shipKind, Compass bearing, Position pos) {
-        Ship s;
-        switch (shipKind) {
-            case BARCA:
-                s = new Barge(bearing, pos);
-                break;
-            case CARAVELA:
-                s = new Caravel(bearing, pos);
-                break;
-            case NAU:
-                s = new Carrack(bearing, pos);
-                break;
-            case FRAGATA:
-                s = new Frigate(bearing, pos);
-                break;
-            case GALEAO:
-                s = new Galleon(bearing, pos);
-                break;
-            default:
-                s = null;
-        }
-        return s;
+        ShipType type = ShipType.fromKind(shipKind);
+        return type == null ? null : type.build(bearing, pos);
     }
 
 
-    private String category;
+    // the kind named by the category, and whether the positions have its shape
+    private final ShipType type;
+    private final boolean shapedAsType;
+    private final String category;
     private Compass bearing;
     private IPosition pos;
     protected List<IPosition> positions;
 
+    // the bounding box of the positions, fixed once they are laid out
+    private int top;
+    private int bottom;
+    private int left;
+    private int right;
+    private boolean bounded;
+
+
+    /**
+     * Builds a ship of one of the registered kinds, laying its positions out as
+     * given by the shape of that kind for the bearing
+     *
+     * @param type
+     * @param bearing
+     * @param pos
+     */
+    protected Ship(ShipType type, Compass bearing, IPosition pos) {
+        assert type != null;
+        assert bearing != null;
+        assert pos != null;
+
+        this.type = type;
+        this.shapedAsType = true;
+        this.category = type.getName();
+        this.bearing = bearing;
+        this.pos = pos;
+
+        int[] rows = type.rowOffsets(bearing);
+        int[] columns = type.columnOffsets(bearing);
+        if (rows == null) {
+            if (bearing == null)
+                throw new NullPointerException("ERROR! invalid bearing for the " + type.getKind());
+            throw new IllegalArgumentException("ERROR! invalid bearing for the " + type.getKind());
+        }
+
+        positions = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++)
+            positions.add(new Position(pos.getRow() + rows[i], pos.getColumn() + columns[i]));
+        fixBounds();
+    }
 
     /**
+     * Builds a ship of a kind that is not registered; its positions are left for
+     * the subclass to fill in, after which it should call {@link #fixBounds()}.
+     * The ship is of the {@link ShipType} its category names, if any, but
+     * nothing says its positions have the shape of that kind, so its size and
+     * placement are taken from the positions alone.
+     *
      * @param category
      * @param bearing
      * @param pos
@@ -61,6 +85,8 @@ public abstract class Ship implements IShip {
         assert bearing != null;
         assert pos != null;
 
+        this.type = ShipType.fromName(category);
+        this.shapedAsType = false;
         this.category = category;
         this.bearing = bearing;
         this.pos = pos;
@@ -77,6 +103,34 @@ public abstract class Ship implements IShip {
         return category;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IShip#getType()
+     */
+    @Override
+    public ShipType getType() {
+        return type;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IShip#getSize()
+     */
+    @Override
+    public Integer getSize() {
+        return shapedAsType ? type.getSize() : positions.size();
+    }
+
+    /**
+     * @return Whether the positions of the ship are laid out by the shape of its
+     * {@link ShipType}, as when built through {@link ShipType#build}
+     */
+    boolean isShapedAsType() {
+        return shapedAsType;
+    }
+
     /**
      * @return the positions
      */
@@ -117,6 +171,29 @@ public abstract class Ship implements IShip {
         return false;
     }
 
+    /**
+     * This operation works out the bounding box of the positions of the ship,
+     * which the extremes and the checks of occupancy and closeness rely on
+     * from then on. Ships whose positions are laid out by a subclass should
+     * call it once they are; otherwise it is done on first use.
+     */
+    protected final void fixBounds() {
+        top = bottom = getPositions().get(0).getRow();
+        left = right = getPositions().get(0).getColumn();
+        for (IPosition p : getPositions()) {
+            top = Math.min(top, p.getRow());
+            bottom = Math.max(bottom, p.getRow());
+            left = Math.min(left, p.getColumn());
+            right = Math.max(right, p.getColumn());
+        }
+        bounded = true;
+    }
+
+    private void bound() {
+        if (!bounded)
+            fixBounds();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -124,10 +201,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getTopMostPos() {
-        int top = getPositions().get(0).getRow();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getRow() < top)
-                top = getPositions().get(i).getRow();
+        bound();
         return top;
     }
 
@@ -138,10 +212,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getBottomMostPos() {
-        int bottom = getPositions().get(0).getRow();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getRow() > bottom)
-                bottom = getPositions().get(i).getRow();
+        bound();
         return bottom;
     }
 
@@ -152,10 +223,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getLeftMostPos() {
-        int left = getPositions().get(0).getColumn();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getColumn() < left)
-                left = getPositions().get(i).getColumn();
+        bound();
         return left;
     }
 
@@ -166,10 +234,7 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getRightMostPos() {
-        int right = getPositions().get(0).getColumn();
-        for (int i = 1; i < getSize(); i++)
-            if (getPositions().get(i).getColumn() > right)
-                right = getPositions().get(i).getColumn();
+        bound();
         return right;
     }
 
@@ -182,6 +247,9 @@ public abstract class Ship implements IShip {
     public boolean occupies(IPosition pos) {
         assert pos != null;
 
+        bound();
+        if (pos.getRow() < top || pos.getRow() > bottom || pos.getColumn() < left || pos.getColumn() > right)
+            return false;
         for (int i = 0; i < getSize(); i++)
             if (getPositions().get(i).equals(pos))
                 return true;
@@ -197,6 +265,10 @@ public abstract class Ship implements IShip {
     public boolean tooCloseTo(IShip other) {
         assert other != null;
 
+        bound();
+        if (other.getBottomMostPos() < top - 1 || other.getTopMostPos() > bottom + 1
+                || other.getRightMostPos() < left - 1 || other.getLeftMostPos() > right + 1)
+            return false;
         Iterator<IPosition> otherPos = other.getPositions().iterator();
         while (otherPos.hasNext())
             if (tooCloseTo(otherPos.next()))
@@ -212,6 +284,10 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean tooCloseTo(IPosition pos) {
+        bound();
+        if (pos.getRow() < top - 1 || pos.getRow() > bottom + 1
+                || pos.getColumn() < left - 1 || pos.getColumn() > right + 1)
+            return false;
         for (int i = 0; i < this.getSize(); i++)
             if (getPositions().get(i).isAdjacentTo(pos))
                 return true;
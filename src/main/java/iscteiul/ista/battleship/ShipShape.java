@@ -0,0 +1,388 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shape of a kind of ship given as data: a polyomino, i.e. a set of
+ * edge-connected cells.
+ * <p>
+ * From the declared cells, every distinct orientation of the shape is generated
+ * by rotating it by quarter turns and mirroring it. Each orientation is kept in
+ * canonical form: translated so that its top and left-most cells are at row and
+ * column zero, with cells sorted by row and then by column. Orientations are
+ * numbered in the order rotations (clockwise) of the declared shape come first,
+ * followed by rotations of its mirror image, skipping repeated ones.
+ * <p>
+ * Shapes may be read from a small text file, one shape per line:
+ *
+ * <pre>
+ * # kind    name      cells as row,column
+ * galeao    Galeao    0,0 0,1 0,2 1,1 2,1
+ * </pre>
+ */
+public final class ShipShape {
+    /**
+     * The shapes of the registered kinds of ships, as bundled with the game
+     */
+    public static final String DEFAULT_SHAPES = "/default.shapes";
+
+    private static final Compass[] TURNS = {Compass.NORTH, Compass.EAST, Compass.SOUTH, Compass.WEST};
+
+    /**
+     * This operation reads the shapes of the registered kinds from the bundled
+     * file, which must hold each kind once, under its name and with the cells
+     * it is built with, so that the file and the ships cannot drift apart
+     * unnoticed. It is run by {@link ShipType} as it is loaded.
+     *
+     * @return The shapes, indexed by the ordinals of their kinds
+     * @throws IllegalStateException If the file cannot be read or does not
+     *                               match the registered kinds
+     */
+    static ShipShape[] readRegistered() {
+        List<ShipShape> shapes;
+        try {
+            shapes = loadResource(DEFAULT_SHAPES);
+        } catch (IOException e) {
+            throw new IllegalStateException("ERROR! cannot read the shapes in " + DEFAULT_SHAPES, e);
+        }
+
+        ShipShape[] registered = new ShipShape[ShipType.values().length];
+        for (ShipShape shape : shapes) {
+            ShipType type = ShipType.fromKind(shape.getKind());
+            if (type == null || registered[type.ordinal()] != null || !type.getName().equals(shape.getName()))
+                throw new IllegalStateException("ERROR! unexpected shape " + shape.getKind() + " in " + DEFAULT_SHAPES);
+            ShipShape built = of(type.getKind(), type.getName(), type.rowOffsets(Compass.NORTH),
+                    type.columnOffsets(Compass.NORTH));
+            if (!shape.sameShapeAs(built))
+                throw new IllegalStateException("ERROR! the shape of the " + type.getKind() + " in "
+                        + DEFAULT_SHAPES + " is not the one it is built with");
+            registered[type.ordinal()] = shape;
+        }
+        for (ShipType type : ShipType.values())
+            if (registered[type.ordinal()] == null)
+                throw new IllegalStateException("ERROR! no shape for the " + type.getKind() + " in " + DEFAULT_SHAPES);
+        return registered;
+    }
+
+    private final String kind;
+    private final String name;
+    private final int[][] rowOffsets;
+    private final int[][] columnOffsets;
+    private final int[] turns;
+    private final boolean[] mirrored;
+
+    private ShipShape(String kind, String name, List<int[]> forms, List<Integer> turns, List<Boolean> mirrored) {
+        this.kind = kind;
+        this.name = name;
+        this.rowOffsets = new int[forms.size()][];
+        this.columnOffsets = new int[forms.size()][];
+        this.turns = new int[forms.size()];
+        this.mirrored = new boolean[forms.size()];
+        for (int o = 0; o < forms.size(); o++) {
+            int[] form = forms.get(o);
+            rowOffsets[o] = new int[form.length / 2];
+            columnOffsets[o] = new int[form.length / 2];
+            for (int i = 0; i < form.length / 2; i++) {
+                rowOffsets[o][i] = form[2 * i];
+                columnOffsets[o][i] = form[2 * i + 1];
+            }
+            this.turns[o] = turns.get(o);
+            this.mirrored[o] = mirrored.get(o);
+        }
+    }
+
+    /**
+     * This operation builds a shape from its cells
+     *
+     * @param kind    The lower-case name used to ask for ships of this shape
+     * @param name    The category name under which ships of this shape are shown
+     * @param rows    The rows of the cells of the shape
+     * @param columns The columns of the cells of the shape
+     * @return The shape, with all its orientations
+     * @throws IllegalArgumentException If the cells do not make a polyomino
+     */
+    public static ShipShape of(String kind, String name, int[] rows, int[] columns) {
+        if (kind == null || name == null)
+            throw new NullPointerException("ERROR! a ship shape needs a kind and a name");
+        if (rows.length == 0 || rows.length != columns.length)
+            throw new IllegalArgumentException("ERROR! invalid cells for the shape " + kind);
+
+        int[] cells = new int[2 * rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            cells[2 * i] = rows[i];
+            cells[2 * i + 1] = columns[i];
+        }
+        int[] declared = canonical(cells);
+        if (!isConnectedWithoutRepeats(declared))
+            throw new IllegalArgumentException("ERROR! the cells of the shape " + kind + " are not a polyomino");
+
+        List<int[]> forms = new ArrayList<>();
+        List<Integer> turns = new ArrayList<>();
+        List<Boolean> mirrored = new ArrayList<>();
+        for (int m = 0; m < 2; m++) {
+            int[] form = m == 0 ? declared : canonical(mirror(declared));
+            for (int t = 0; t < TURNS.length; t++) {
+                if (!contains(forms, form)) {
+                    forms.add(form);
+                    turns.add(t);
+                    mirrored.add(m == 1);
+                }
+                form = canonical(rotate(form));
+            }
+        }
+        return new ShipShape(kind, name, forms, turns, mirrored);
+    }
+
+    /**
+     * @param type A registered kind of ship
+     * @return The shape of that kind of ship, as read from
+     * {@link #DEFAULT_SHAPES}
+     */
+    public static ShipShape of(ShipType type) {
+        return type.getShape();
+    }
+
+    /**
+     * This operation reads shapes, one per line, from the given reader. Blank
+     * lines and lines starting with '#' are ignored.
+     *
+     * @param in The reader to read from
+     * @return The shapes read, in the order they were declared
+     * @throws IOException              If reading fails
+     * @throws IllegalArgumentException If a line is not a valid shape
+     */
+    public static List<ShipShape> load(Reader in) throws IOException {
+        List<ShipShape> shapes = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] tokens = line.split("\\s+");
+            if (tokens.length < 3)
+                throw new IllegalArgumentException("ERROR! line " + lineNumber + ": expected kind, name and cells");
+            int[] rows = new int[tokens.length - 2];
+            int[] columns = new int[tokens.length - 2];
+            for (int i = 2; i < tokens.length; i++) {
+                String[] cell = tokens[i].split(",");
+                try {
+                    if (cell.length != 2)
+                        throw new NumberFormatException(tokens[i]);
+                    rows[i - 2] = Integer.parseInt(cell[0]);
+                    columns[i - 2] = Integer.parseInt(cell[1]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("ERROR! line " + lineNumber + ": invalid cell " + tokens[i], e);
+                }
+            }
+            shapes.add(of(tokens[0], tokens[1], rows, columns));
+        }
+        return shapes;
+    }
+
+    /**
+     * This operation reads shapes from a resource in the class path
+     *
+     * @param resource The name of the resource, such as {@link #DEFAULT_SHAPES}
+     * @return The shapes read, in the order they were declared
+     * @throws IOException If the resource does not exist or cannot be read
+     */
+    public static List<ShipShape> loadResource(String resource) throws IOException {
+        InputStream in = ShipShape.class.getResourceAsStream(resource);
+        if (in == null)
+            throw new IOException("ERROR! no such resource " + resource);
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * @return The lower-case name used to ask for ships of this shape
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The category name under which ships of this shape are shown
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of cells of the shape
+     */
+    public int getSize() {
+        return rowOffsets[0].length;
+    }
+
+    /**
+     * @return The number of distinct orientations of the shape, between 1 and 8
+     */
+    public int orientations() {
+        return rowOffsets.length;
+    }
+
+    /**
+     * @param orientation An orientation of the shape
+     * @return The bearing the shape points to in that orientation, i.e. the
+     * number of quarter turns from the declared shape
+     */
+    public Compass bearing(int orientation) {
+        return TURNS[turns[orientation]];
+    }
+
+    /**
+     * @param orientation An orientation of the shape
+     * @return Whether that orientation is a mirror image of the declared shape
+     */
+    public boolean isMirrored(int orientation) {
+        return mirrored[orientation];
+    }
+
+    /**
+     * @param orientation An orientation of the shape
+     * @return The rows of the cells in that orientation. The array is shared and
+     * must not be modified.
+     */
+    int[] rowOffsets(int orientation) {
+        return rowOffsets[orientation];
+    }
+
+    /**
+     * @param orientation An orientation of the shape
+     * @return The columns of the cells in that orientation. The array is shared
+     * and must not be modified.
+     */
+    int[] columnOffsets(int orientation) {
+        return columnOffsets[orientation];
+    }
+
+    /**
+     * @param other Another shape
+     * @return Whether both shapes are the same polyomino, up to rotations and
+     * mirroring, whatever their names
+     */
+    public boolean sameShapeAs(ShipShape other) {
+        if (other.getSize() != getSize() || other.orientations() != orientations())
+            return false;
+        for (int o = 0; o < other.orientations(); o++)
+            if (Arrays.equals(rowOffsets[0], other.rowOffsets[o])
+                    && Arrays.equals(columnOffsets[0], other.columnOffsets[o]))
+                return true;
+        return false;
+    }
+
+    /**
+     * This operation lays out every placement of the shape, in the given
+     * orientation, that fits in a board of the given size
+     *
+     * @param orientation An orientation of the shape
+     * @param boardSize   The number of rows (and columns) of the board
+     * @return The shared table of the placements
+     */
+    public PlacementTable placements(int orientation, int boardSize) {
+        return PlacementTable.forShape(this, orientation, boardSize);
+    }
+
+    /**
+     * This operation builds a ship of this shape
+     *
+     * @param orientation The orientation of the ship
+     * @param pos         The position of the top-left corner of the ship
+     * @return The new ship
+     */
+    public Ship build(int orientation, IPosition pos) {
+        return new ShapedShip(this, orientation, pos);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static int[] rotate(int[] cells) {
+        int[] rotated = new int[cells.length];
+        for (int i = 0; i < cells.length; i += 2) {
+            rotated[i] = cells[i + 1];
+            rotated[i + 1] = -cells[i];
+        }
+        return rotated;
+    }
+
+    private static int[] mirror(int[] cells) {
+        int[] mirrored = new int[cells.length];
+        for (int i = 0; i < cells.length; i += 2) {
+            mirrored[i] = cells[i];
+            mirrored[i + 1] = -cells[i + 1];
+        }
+        return mirrored;
+    }
+
+    private static int[] canonical(int[] cells) {
+        int minRow = Integer.MAX_VALUE;
+        int minColumn = Integer.MAX_VALUE;
+        for (int i = 0; i < cells.length; i += 2) {
+            minRow = Math.min(minRow, cells[i]);
+            minColumn = Math.min(minColumn, cells[i + 1]);
+        }
+
+        long[] keys = new long[cells.length / 2];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = ((long) (cells[2 * i] - minRow) << 32) | (cells[2 * i + 1] - minColumn);
+        Arrays.sort(keys);
+
+        int[] form = new int[cells.length];
+        for (int i = 0; i < keys.length; i++) {
+            form[2 * i] = (int) (keys[i] >>> 32);
+            form[2 * i + 1] = (int) keys[i];
+        }
+        return form;
+    }
+
+    private static boolean isConnectedWithoutRepeats(int[] form) {
+        int n = form.length / 2;
+        for (int i = 1; i < n; i++)
+            if (form[2 * i] == form[2 * i - 2] && form[2 * i + 1] == form[2 * i - 1])
+                return false;
+
+        boolean[] reached = new boolean[n];
+        int[] stack = new int[n];
+        int top = 0;
+        int count = 1;
+        reached[0] = true;
+        stack[top++] = 0;
+        while (top > 0) {
+            int i = stack[--top];
+            for (int j = 0; j < n; j++)
+                if (!reached[j] && Math.abs(form[2 * i] - form[2 * j]) + Math.abs(form[2 * i + 1] - form[2 * j + 1]) == 1) {
+                    reached[j] = true;
+                    stack[top++] = j;
+                    count++;
+                }
+        }
+        return count == n;
+    }
+
+    private static boolean contains(List<int[]> forms, int[] form) {
+        for (int[] f : forms)
+            if (Arrays.equals(f, form))
+                return true;
+        return false;
+    }
+}
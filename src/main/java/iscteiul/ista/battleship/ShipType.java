@@ -0,0 +1,295 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Registry of the kinds of ships of the game.
+ * <p>
+ * Each kind knows its size, the name under which it is shown, the (lower-case)
+ * name under which the user asks for it, how many ships of that kind make up
+ * a standard fleet, and the shape it takes for each
+ * {@link Compass} bearing. Shapes are stored as row and column offsets from the
+ * position of the ship, so that ships are built by walking a table. The
+ * constants are declared in the order in which fleets are shown, and their
+ * ordinals may be used to index per-type arrays.
+ * <p>
+ * The shapes are also given as data, in {@link ShipShape#DEFAULT_SHAPES}; the
+ * registry fails to load, and so does the game, if that file misses a kind or
+ * gives it other cells than its table.
+ */
+public enum ShipType {
+    GALEAO("galeao", "Galeao", 1, Galleon::new, false,
+            new int[][]{{0, 0}, {0, 1}, {0, 2}, {1, 1}, {2, 1}},
+            new int[][]{{0, 0}, {1, 0}, {2, -1}, {2, 0}, {2, 1}},
+            new int[][]{{0, 0}, {1, -2}, {1, -1}, {1, 0}, {2, 0}},
+            new int[][]{{0, 0}, {1, 0}, {1, 1}, {1, 2}, {2, 0}}),
+    FRAGATA("fragata", "Fragata", 1, Frigate::new, false,
+            column(4), column(4), row(4), row(4)),
+    NAU("nau", "Nau", 2, Carrack::new, false,
+            column(3), column(3), row(3), row(3)),
+    CARAVELA("caravela", "Caravela", 3, Caravel::new, false,
+            column(2), column(2), row(2), row(2)),
+    BARCA("barca", "Barca", 4, Barge::new, true,
+            column(1), column(1), column(1), column(1));
+
+    private static final Map<String, ShipType> BY_KIND = new HashMap<>();
+    private static final Map<String, ShipType> BY_NAME = new HashMap<>();
+    private static final ShipShape[] SHAPES;
+
+    static {
+        for (ShipType type : values()) {
+            BY_KIND.put(type.kind, type);
+            BY_NAME.put(type.name, type);
+        }
+        // checked against the bundled shapes before any ship can be built
+        SHAPES = ShipShape.readRegistered();
+    }
+
+    private final String kind;
+    private final String name;
+    private final int fleetCount;
+    private final BiFunction<Compass, IPosition, Ship> factory;
+    private final boolean anyBearing;
+    private final int[][] rowOffsets;
+    private final int[][] columnOffsets;
+    private final Compass[] distinctBearings;
+    private final int lineLength;
+
+    /**
+     * @param kind       The name the user types to ask for this kind of ship
+     * @param name       The category name under which ships of this kind are shown
+     * @param fleetCount The number of ships of this kind in a standard fleet
+     * @param factory    The constructor of ships of this kind
+     * @param anyBearing Whether the shape is the same whatever the bearing, even
+     *                   an unknown one
+     * @param north      The offsets of the cells of the ship heading north
+     * @param south      The offsets of the cells of the ship heading south
+     * @param east       The offsets of the cells of the ship heading east
+     * @param west       The offsets of the cells of the ship heading west
+     */
+    ShipType(String kind, String name, int fleetCount, BiFunction<Compass, IPosition, Ship> factory,
+             boolean anyBearing, int[][] north, int[][] south, int[][] east, int[][] west) {
+        this.kind = kind;
+        this.name = name;
+        this.fleetCount = fleetCount;
+        this.factory = factory;
+        this.anyBearing = anyBearing;
+
+        int[][][] shapes = new int[Compass.values().length][][];
+        shapes[Compass.NORTH.ordinal()] = north;
+        shapes[Compass.SOUTH.ordinal()] = south;
+        shapes[Compass.EAST.ordinal()] = east;
+        shapes[Compass.WEST.ordinal()] = west;
+        if (anyBearing)
+            shapes[Compass.UNKNOWN.ordinal()] = north;
+
+        this.rowOffsets = new int[shapes.length][];
+        this.columnOffsets = new int[shapes.length][];
+        for (int b = 0; b < shapes.length; b++) {
+            if (shapes[b] == null)
+                continue;
+            rowOffsets[b] = new int[shapes[b].length];
+            columnOffsets[b] = new int[shapes[b].length];
+            for (int i = 0; i < shapes[b].length; i++) {
+                rowOffsets[b][i] = shapes[b][i][0];
+                columnOffsets[b][i] = shapes[b][i][1];
+            }
+        }
+
+        Compass[] bearings = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+        int distinct = 0;
+        for (int b = 0; b < bearings.length; b++) {
+            boolean repeated = false;
+            for (int d = 0; d < distinct && !repeated; d++)
+                repeated = sameLayout(shapes[bearings[b].ordinal()], shapes[bearings[d].ordinal()]);
+            if (!repeated)
+                bearings[distinct++] = bearings[b];
+        }
+        this.distinctBearings = Arrays.copyOf(bearings, distinct);
+        this.lineLength = longestLine(north);
+    }
+
+    private static int longestLine(int[][] offsets) {
+        int longest = 0;
+        for (int[] start : offsets)
+            for (int[] step : new int[][]{{0, 1}, {1, 0}}) {
+                int length = 1;
+                while (contains(offsets, start[0] + length * step[0], start[1] + length * step[1]))
+                    length++;
+                longest = Math.max(longest, length);
+            }
+        return longest;
+    }
+
+    private static boolean contains(int[][] offsets, int row, int column) {
+        for (int[] cell : offsets)
+            if (cell[0] == row && cell[1] == column)
+                return true;
+        return false;
+    }
+
+    private static boolean sameLayout(int[][] a, int[][] b) {
+        return Arrays.equals(layout(a), layout(b));
+    }
+
+    private static long[] layout(int[][] offsets) {
+        int minRow = Integer.MAX_VALUE, minColumn = Integer.MAX_VALUE;
+        for (int[] cell : offsets) {
+            minRow = Math.min(minRow, cell[0]);
+            minColumn = Math.min(minColumn, cell[1]);
+        }
+        long[] keys = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++)
+            keys[i] = ((long) (offsets[i][0] - minRow) << 32) | (offsets[i][1] - minColumn);
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static int[][] column(int size) {
+        int[][] offsets = new int[size][];
+        for (int r = 0; r < size; r++)
+            offsets[r] = new int[]{r, 0};
+        return offsets;
+    }
+
+    private static int[][] row(int size) {
+        int[][] offsets = new int[size][];
+        for (int c = 0; c < size; c++)
+            offsets[c] = new int[]{0, c};
+        return offsets;
+    }
+
+    /**
+     * @param kind The lower-case name of a kind of ship, as typed by the user
+     * @return The corresponding type, or null if there is none
+     */
+    public static ShipType fromKind(String kind) {
+        return kind == null ? null : BY_KIND.get(kind);
+    }
+
+    /**
+     * @param name The category name of a kind of ship, as shown to the user
+     * @return The corresponding type, or null if there is none
+     */
+    public static ShipType fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+    /**
+     * @return The lower-case name the user types to ask for this kind of ship
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The category name under which ships of this kind are shown
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of cells taken by a ship of this kind
+     */
+    public int getSize() {
+        return rowOffsets[Compass.NORTH.ordinal()].length;
+    }
+
+    /**
+     * @return The number of cells of the longest straight line, along a row or
+     * a column, taken by a ship of this kind. Shooting every cell whose row plus
+     * column is the same modulo this length is bound to hit the ship.
+     */
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * @return The number of ships of this kind in a standard fleet
+     */
+    public int getFleetCount() {
+        return fleetCount;
+    }
+
+    /**
+     * @return The shape of this kind of ship, as read from
+     * {@link ShipShape#DEFAULT_SHAPES}
+     */
+    public ShipShape getShape() {
+        return SHAPES[ordinal()];
+    }
+
+    /**
+     * @return The number of ships of a standard fleet
+     */
+    public static int standardFleetSize() {
+        int size = 0;
+        for (ShipType type : values())
+            size += type.fleetCount;
+        return size;
+    }
+
+    /**
+     * @return The bearings that lay ships of this kind out differently, e.g.
+     * only north and east for ships in a straight line. The array is shared
+     * and must not be modified.
+     */
+    Compass[] distinctBearings() {
+        return distinctBearings;
+    }
+
+    /**
+     * @param bearing The bearing of the ship
+     * @return Whether a ship of this kind may have the given bearing
+     */
+    public boolean accepts(Compass bearing) {
+        return rowOffsets(bearing) != null;
+    }
+
+    /**
+     * This operation builds a ship of this kind
+     *
+     * @param bearing The bearing of the ship
+     * @param pos     The position of the ship
+     * @return The new ship
+     */
+    public Ship build(Compass bearing, IPosition pos) {
+        return factory.apply(bearing, pos);
+    }
+
+    /**
+     * @param bearing The bearing of the ship
+     * @return The row offsets of the cells of the ship, from its position, or
+     * null if the bearing is not valid for this kind. The array is shared
+     * and must not be modified.
+     */
+    int[] rowOffsets(Compass bearing) {
+        if (bearing == null)
+            return anyBearing ? rowOffsets[Compass.NORTH.ordinal()] : null;
+        return rowOffsets[bearing.ordinal()];
+    }
+
+    /**
+     * @param bearing The bearing of the ship
+     * @return The column offsets of the cells of the ship, from its position, or
+     * null if the bearing is not valid for this kind. The array is shared
+     * and must not be modified.
+     */
+    int[] columnOffsets(Compass bearing) {
+        if (bearing == null)
+            return anyBearing ? columnOffsets[Compass.NORTH.ordinal()] : null;
+        return columnOffsets[bearing.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A journal of every shot fired at some games, written by a thread of its own
+ * so that the threads firing never wait for the disk.
+ * <p>
+ * Games are journaled by decorators, as with {@link Metrics}: every shot fired
+ * at a game returned by {@link #instrument(IGame)} is put in a
+ * {@link ShotRing}, and the thread of the journal takes the shots off the ring
+ * in batches and writes them to a channel, one write per batch, or per buffer
+ * filled. Each shot takes a record of {@value #RECORD_BYTES} bytes, as
+ * big-endian ints but for the last byte: the game, numbered from 0 in the
+ * order the games were instrumented, the number of the shot in its game, from
+ * 0, the row and column fired at, and the ordinal of its
+ * {@link GameFeed.Kind}. The shots of several games may be interleaved, and
+ * the game and shot numbers tell them apart and put each game back in order.
+ * <p>
+ * The games of a journal are to be played from one thread at a time. Should
+ * writing fail, the journal stops, further shots fail with an
+ * {@link IllegalStateException}, and {@link #close()} throws the error. Shots
+ * fired once the journal is closed fail in the same way.
+ */
+public final class ShotJournal implements AutoCloseable {
+    /**
+     * The size of the record of a shot, in bytes
+     */
+    public static final int RECORD_BYTES = 17;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /*
+     * Where the shots of one journaled game go, numbered as they come
+     */
+    private final class Journaled implements PublishingGame.Outlet {
+        private final int game;
+        private int shots;
+
+        private Journaled(int game) {
+            this.game = game;
+        }
+
+        @Override
+        public void publish(GameFeed.Kind kind, IPosition pos, String category) {
+            record(game, shots++, pos.getRow(), pos.getColumn(), kind);
+        }
+    }
+
+    private final WritableByteChannel out;
+    private final ShotRing ring;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final Thread writer;
+    private final AtomicInteger games = new AtomicInteger();
+    private volatile long written;
+    private volatile Exception failure;
+    private volatile boolean closed;
+
+    /**
+     * @param out          Where to write the shots
+     * @param ringSize     The number of shots that may be waiting to be
+     *                     written, a power of two
+     * @param waitStrategy How the thread of the journal waits for shots
+     */
+    public ShotJournal(WritableByteChannel out, int ringSize, ShotRing.WaitStrategy waitStrategy) {
+        if (out == null)
+            throw new NullPointerException("ERROR! null channel");
+        this.out = out;
+        this.ring = new ShotRing(ringSize, waitStrategy);
+        this.writer = new Thread(this::run, "shot-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * @param game The game to journal
+     * @return A game that forwards to the given one, journaling every shot
+     * under the next game number
+     */
+    public IGame instrument(IGame game) {
+        return new PublishingGame(game, new Journaled(games.getAndIncrement()));
+    }
+
+    /**
+     * This operation puts a shot in the journal
+     *
+     * @param game   The game fired at
+     * @param shot   The number of the shot in its game, from 0
+     * @param row    The row fired at
+     * @param column The column fired at
+     * @param kind   What the shot did
+     * @throws IllegalStateException If the journal has stopped or is closed
+     */
+    public void record(int game, int shot, int row, int column, GameFeed.Kind kind) {
+        if (failure != null)
+            throw new IllegalStateException("ERROR! the journal failed", failure);
+        if (closed)
+            throw new IllegalStateException("ERROR! the journal is closed");
+        ring.publish(game, shot, row, column, kind);
+    }
+
+    /**
+     * @return The number of shots written so far
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    private void run() {
+        try {
+            ring.process(this::write);
+        } catch (Exception e) {
+            failure = e;
+            ring.halt();
+        }
+    }
+
+    private void write(ShotRing.Slot slot, long sequence, boolean endOfBatch) throws IOException {
+        if (buffer.remaining() < RECORD_BYTES)
+            drain();
+        buffer.putInt(slot.getGame());
+        buffer.putInt(slot.getShot());
+        buffer.putInt(slot.getRow());
+        buffer.putInt(slot.getColumn());
+        buffer.put((byte) slot.getKind().ordinal());
+        if (endOfBatch) {
+            drain();
+            written = sequence + 1;
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            out.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * This operation waits for every shot recorded to be written, and stops
+     * the thread of the journal; the channel is left open, and no more shots
+     * can be recorded
+     *
+     * @throws IOException If writing failed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        ring.halt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException)
+            throw (IOException) failure;
+        if (failure != null)
+            throw new IOException("ERROR! the journal failed", failure);
+    }
+}
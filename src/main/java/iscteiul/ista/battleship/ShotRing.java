@@ -0,0 +1,395 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A ring of shot slots handed from one producer thread, the one firing, to
+ * one consumer thread, in the manner of the LMAX Disruptor.
+ * <p>
+ * The slots are made once, with the ring, and reused: the producer claims the
+ * next sequence with {@link #next()}, fills in the slot at it, and makes it
+ * visible with {@link #publish(long)}, an ordered store of a cursor, with no
+ * lock and no allocation. The consumer, run by {@link #process(Handler)},
+ * waits for the cursor to move on as told by a {@link WaitStrategy}, and then
+ * hands every slot published since to its handler in one batch before
+ * releasing them all at once. The producer only waits, spinning, yielding
+ * and then parking, when it is a whole ring ahead of the consumer.
+ * <p>
+ * The two sequences are padded to lie on cache lines of their own, so that
+ * the threads writing them do not slow each other down.
+ */
+public final class ShotRing {
+
+    /**
+     * A shot, as held in a slot of the ring
+     */
+    public static final class Slot {
+        private int game;
+        private int shot;
+        private int row;
+        private int column;
+        private GameFeed.Kind kind;
+
+        private Slot() {
+        }
+
+        /**
+         * This operation fills in the slot
+         *
+         * @param game   The game fired at
+         * @param shot   The number of the shot in its game, from 0
+         * @param row    The row fired at
+         * @param column The column fired at
+         * @param kind   What the shot did
+         */
+        public void set(int game, int shot, int row, int column, GameFeed.Kind kind) {
+            this.game = game;
+            this.shot = shot;
+            this.row = row;
+            this.column = column;
+            this.kind = kind;
+        }
+
+        /**
+         * @return The game fired at
+         */
+        public int getGame() {
+            return game;
+        }
+
+        /**
+         * @return The number of the shot in its game, from 0
+         */
+        public int getShot() {
+            return shot;
+        }
+
+        /**
+         * @return The row fired at
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * @return The column fired at
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return What the shot did
+         */
+        public GameFeed.Kind getKind() {
+            return kind;
+        }
+    }
+
+    /**
+     * What the consumer does with each slot
+     */
+    public interface Handler {
+        /**
+         * @param slot       The slot, only to be read until this returns
+         * @param sequence   The sequence of the slot
+         * @param endOfBatch Whether it is the last slot published so far
+         * @throws Exception If the slot cannot be handled; the consumer stops
+         */
+        void onShot(Slot slot, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    /**
+     * How the consumer waits for the producer to publish
+     */
+    public interface WaitStrategy {
+        /**
+         * This operation waits until the given sequence is published or the
+         * ring is halted
+         *
+         * @param sequence The sequence waited for
+         * @param ring     The ring
+         * @return The last sequence published, which may be before the one
+         * waited for if the ring was halted
+         * @throws InterruptedException If interrupted while waiting
+         */
+        long waitFor(long sequence, ShotRing ring) throws InterruptedException;
+
+        /**
+         * This operation wakes up the consumer if it sleeps waiting
+         */
+        default void signal() {
+        }
+    }
+
+    /**
+     * @return A strategy that spins, for the lowest latency at the cost of a
+     * core kept busy
+     */
+    public static WaitStrategy busySpin() {
+        return (sequence, ring) -> {
+            long available;
+            while ((available = ring.getCursor()) < sequence && !ring.halted)
+                Thread.onSpinWait();
+            return available;
+        };
+    }
+
+    /**
+     * @return A strategy that spins a little and then yields the processor
+     */
+    public static WaitStrategy yielding() {
+        return (sequence, ring) -> {
+            long available;
+            for (int spins = 0; (available = ring.getCursor()) < sequence && !ring.halted; spins++)
+                if (spins < 100)
+                    Thread.onSpinWait();
+                else
+                    Thread.yield();
+            return available;
+        };
+    }
+
+    /**
+     * @param sleepNanos The time to sleep between looks at the cursor
+     * @return A strategy that spins, yields, and then sleeps, for a consumer
+     * that costs little when idle and catches up within a sleep
+     */
+    public static WaitStrategy sleeping(long sleepNanos) {
+        if (sleepNanos <= 0)
+            throw new IllegalArgumentException("ERROR! invalid sleep " + sleepNanos);
+        return (sequence, ring) -> {
+            long available;
+            for (int spins = 0; (available = ring.getCursor()) < sequence && !ring.halted; spins++) {
+                if (spins < 100)
+                    Thread.onSpinWait();
+                else if (spins < 200)
+                    Thread.yield();
+                else
+                    LockSupport.parkNanos(sleepNanos);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+            return available;
+        };
+    }
+
+    /**
+     * @return A strategy that waits on a lock until the producer signals,
+     * costing nothing when idle but a lock on every publish
+     */
+    public static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    private static final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+
+        @Override
+        public long waitFor(long sequence, ShotRing ring) throws InterruptedException {
+            long available = ring.getCursor();
+            if (available >= sequence)
+                return available;
+            lock.lock();
+            try {
+                while ((available = ring.getCursor()) < sequence && !ring.halted)
+                    published.await(1, TimeUnit.MILLISECONDS);
+            } finally {
+                lock.unlock();
+            }
+            return available;
+        }
+
+        @Override
+        public void signal() {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /*
+     * A sequence alone on its cache line
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+        private volatile long value = -1;
+        private long q1, q2, q3, q4, q5, q6, q7;
+
+        private long get() {
+            return value;
+        }
+
+        private void setRelease(long v) {
+            VALUE.setRelease(this, v);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final Sequence cursor = new Sequence();
+    private final Sequence consumed = new Sequence();
+    private volatile boolean halted;
+
+    // producer only: the next sequence to claim, and the last one known consumed
+    private long claimed = -1;
+    private long consumedCache = -1;
+
+    /**
+     * @param size         The number of slots, a power of two
+     * @param waitStrategy How the consumer waits for the producer
+     */
+    public ShotRing(int size, WaitStrategy waitStrategy) {
+        if (size <= 0 || Integer.bitCount(size) != 1)
+            throw new IllegalArgumentException("ERROR! the size of a ring must be a power of two, not " + size);
+        if (waitStrategy == null)
+            throw new NullPointerException("ERROR! null wait strategy");
+
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new Slot();
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * @return The number of slots
+     */
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * @return The last sequence published, or -1 if none was
+     */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    /**
+     * @return The last sequence handled by the consumer, or -1 if none was
+     */
+    public long getConsumed() {
+        return consumed.get();
+    }
+
+    /**
+     * This operation claims the next slot for the producer, waiting for the
+     * consumer to free it if the ring is full
+     *
+     * @return The sequence of the slot
+     * @throws IllegalStateException If the ring is halted, as the consumer
+     *                               may never see the slot
+     */
+    public long next() {
+        if (halted)
+            throw new IllegalStateException("ERROR! the ring is halted");
+        long sequence = ++claimed;
+        long wrap = sequence - slots.length;
+        if (wrap > consumedCache) {
+            for (int spins = 0; wrap > (consumedCache = consumed.get()); spins++) {
+                if (halted)
+                    throw new IllegalStateException("ERROR! the ring is halted");
+                if (spins < 100)
+                    Thread.onSpinWait();
+                else if (spins < 200)
+                    Thread.yield();
+                else
+                    LockSupport.parkNanos(1);
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * @param sequence A sequence claimed or published
+     * @return The slot at the sequence
+     */
+    public Slot get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * This operation makes a claimed slot, and any before it, visible to the
+     * consumer
+     *
+     * @param sequence The sequence of the slot
+     */
+    public void publish(long sequence) {
+        cursor.setRelease(sequence);
+        waitStrategy.signal();
+    }
+
+    /**
+     * This operation claims, fills in and publishes a slot
+     *
+     * @param game   The game fired at
+     * @param shot   The number of the shot in its game, from 0
+     * @param row    The row fired at
+     * @param column The column fired at
+     * @param kind   What the shot did
+     * @throws IllegalStateException If the ring is halted
+     */
+    public void publish(int game, int shot, int row, int column, GameFeed.Kind kind) {
+        long sequence = next();
+        slots[(int) sequence & mask].set(game, shot, row, column, kind);
+        publish(sequence);
+    }
+
+    /**
+     * This operation runs the consumer on the calling thread, handing the
+     * slots to the handler in batches, until the ring is halted and every slot
+     * published has been handled, or the handler fails
+     *
+     * @param handler What to do with each slot
+     * @throws Exception If the handler fails
+     */
+    public void process(Handler handler) throws Exception {
+        long next = consumed.get() + 1;
+        while (true) {
+            long available = waitStrategy.waitFor(next, this);
+            if (available < next) {
+                if (halted && cursor.get() < next)
+                    return;
+                continue;
+            }
+            for (long sequence = next; sequence <= available; sequence++)
+                handler.onShot(slots[(int) sequence & mask], sequence, sequence == available);
+            consumed.setRelease(available);
+            next = available + 1;
+        }
+    }
+
+    /**
+     * This operation tells the consumer to stop once it has handled every
+     * slot published so far; no slot can be claimed afterwards
+     */
+    public void halt() {
+        halted = true;
+        waitStrategy.signal();
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A uniform grid over the bounding boxes of a set of ships, for range
+ * queries on boards far larger than the standard one: the ships that touch a
+ * rectangle, those within some radius of a cell, and the floating ship
+ * nearest a cell.
+ * <p>
+ * The area taken by the ships is split in square buckets, sized so that there
+ * are about as many buckets as ships, and each ship is listed in every bucket
+ * its bounding box, from {@link IShip#getTopMostPos()} and the like, overlaps.
+ * A query only looks at the buckets it reaches, so on ships spread over the
+ * board it takes time in proportion to the ships it finds, however many
+ * there are in all. Buckets are kept as flat arrays, as the bounding boxes.
+ * <p>
+ * The index is immutable and may be queried by several threads at once. It
+ * knows where the ships are, not whether they are afloat, which is asked of
+ * each ship at query time; ships must not be moved after it is built.
+ */
+public final class SpatialIndex {
+    private final IShip[] ships;
+    private final int[] tops;
+    private final int[] bottoms;
+    private final int[] lefts;
+    private final int[] rights;
+
+    private final int originRow;
+    private final int originColumn;
+    private final int bucketSize;
+    private final int bucketRows;
+    private final int bucketColumns;
+    private final int[] bucketStarts;
+    private final int[] bucketShips;
+
+    /**
+     * @param fleet A fleet
+     * @return An index of its ships
+     */
+    public static SpatialIndex of(IFleet fleet) {
+        return new SpatialIndex(fleet.getShips());
+    }
+
+    /**
+     * @param ships The ships to index
+     */
+    public SpatialIndex(Collection<? extends IShip> ships) {
+        int n = ships.size();
+        this.ships = ships.toArray(new IShip[0]);
+        this.tops = new int[n];
+        this.bottoms = new int[n];
+        this.lefts = new int[n];
+        this.rights = new int[n];
+
+        int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+        int minColumn = Integer.MAX_VALUE, maxColumn = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            IShip s = this.ships[i];
+            if (s == null)
+                throw new NullPointerException("ERROR! null ship");
+            tops[i] = s.getTopMostPos();
+            bottoms[i] = s.getBottomMostPos();
+            lefts[i] = s.getLeftMostPos();
+            rights[i] = s.getRightMostPos();
+            minRow = Math.min(minRow, tops[i]);
+            maxRow = Math.max(maxRow, bottoms[i]);
+            minColumn = Math.min(minColumn, lefts[i]);
+            maxColumn = Math.max(maxColumn, rights[i]);
+        }
+        if (n == 0) {
+            minRow = maxRow = minColumn = maxColumn = 0;
+        }
+
+        long area = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+        this.originRow = minRow;
+        this.originColumn = minColumn;
+        this.bucketSize = (int) Math.max(1, Math.ceil(Math.sqrt((double) area / Math.max(1, n))));
+        this.bucketRows = (maxRow - minRow) / bucketSize + 1;
+        this.bucketColumns = (maxColumn - minColumn) / bucketSize + 1;
+
+        // two passes: count the ships of each bucket, then list them
+        this.bucketStarts = new int[bucketRows * bucketColumns + 1];
+        for (int i = 0; i < n; i++)
+            for (int r = bucketRow(tops[i]); r <= bucketRow(bottoms[i]); r++)
+                for (int c = bucketColumn(lefts[i]); c <= bucketColumn(rights[i]); c++)
+                    bucketStarts[r * bucketColumns + c + 1]++;
+        for (int b = 0; b < bucketRows * bucketColumns; b++)
+            bucketStarts[b + 1] += bucketStarts[b];
+        this.bucketShips = new int[bucketStarts[bucketRows * bucketColumns]];
+        int[] next = new int[bucketRows * bucketColumns];
+        System.arraycopy(bucketStarts, 0, next, 0, next.length);
+        for (int i = 0; i < n; i++)
+            for (int r = bucketRow(tops[i]); r <= bucketRow(bottoms[i]); r++)
+                for (int c = bucketColumn(lefts[i]); c <= bucketColumn(rights[i]); c++)
+                    bucketShips[next[r * bucketColumns + c]++] = i;
+    }
+
+    /*
+     * The bucket of a row or column, clamped to the grid
+     */
+    private int bucketRow(int row) {
+        return (int) Math.max(0, Math.min(bucketRows - 1, Math.floorDiv((long) row - originRow, bucketSize)));
+    }
+
+    private int bucketColumn(int column) {
+        return (int) Math.max(0, Math.min(bucketColumns - 1, Math.floorDiv((long) column - originColumn, bucketSize)));
+    }
+
+    /**
+     * @return The number of ships indexed
+     */
+    public int size() {
+        return ships.length;
+    }
+
+    /**
+     * @param top    The first row of the rectangle
+     * @param left   The first column of the rectangle
+     * @param bottom The last row of the rectangle
+     * @param right  The last column of the rectangle
+     * @return The ships with some cell in the rectangle, each once, lazily
+     */
+    public Stream<IShip> within(int top, int left, int bottom, int right) {
+        if (top > bottom || left > right)
+            throw new IllegalArgumentException("ERROR! empty rectangle");
+        return candidates(top, left, bottom, right)
+                .filter(i -> anyCell(i, p -> p.getRow() >= top && p.getRow() <= bottom
+                        && p.getColumn() >= left && p.getColumn() <= right))
+                .mapToObj(i -> ships[i]);
+    }
+
+    /**
+     * @param pos    A cell
+     * @param radius A distance, in cells
+     * @return The ships with some cell no further than the radius from the
+     * given one, in a straight line, each once, lazily
+     */
+    public Stream<IShip> withinRadius(IPosition pos, int radius) {
+        if (radius < 0)
+            throw new IllegalArgumentException("ERROR! negative radius " + radius);
+        long limit = (long) radius * radius;
+        return candidates(pos.getRow() - radius, pos.getColumn() - radius, pos.getRow() + radius,
+                pos.getColumn() + radius)
+                .filter(i -> anyCell(i, p -> square(p.getRow() - pos.getRow())
+                        + square(p.getColumn() - pos.getColumn()) <= limit))
+                .mapToObj(i -> ships[i]);
+    }
+
+    private static long square(long x) {
+        return x * x;
+    }
+
+    /*
+     * The ships whose bounding box meets the rectangle, each once: a ship
+     * spanning several buckets is only reported by the bucket holding the
+     * top left corner of its overlap with the rectangle
+     */
+    private IntStream candidates(int top, int left, int bottom, int right) {
+        if (ships.length == 0 || bottom < originRow || right < originColumn)
+            return IntStream.empty();
+        int firstRow = bucketRow(top);
+        int lastRow = bucketRow(bottom);
+        int firstColumn = bucketColumn(left);
+        int lastColumn = bucketColumn(right);
+        return IntStream.rangeClosed(firstRow, lastRow)
+                .flatMap(r -> IntStream.rangeClosed(firstColumn, lastColumn).flatMap(c -> {
+                    int bucket = r * bucketColumns + c;
+                    return IntStream.range(bucketStarts[bucket], bucketStarts[bucket + 1])
+                            .map(e -> bucketShips[e])
+                            .filter(i -> tops[i] <= bottom && bottoms[i] >= top
+                                    && lefts[i] <= right && rights[i] >= left
+                                    && bucketRow(Math.max(tops[i], top)) == r
+                                    && bucketColumn(Math.max(lefts[i], left)) == c);
+                }));
+    }
+
+    private boolean anyCell(int ship, Predicate<IPosition> test) {
+        for (IPosition p : ships[ship].getPositions())
+            if (test.test(p))
+                return true;
+        return false;
+    }
+
+    /**
+     * @param pos A cell
+     * @return The floating ship with a cell nearest the given one, counting
+     * the distance as the largest of the difference of rows and the difference
+     * of columns; of ships as near, the first indexed. Null if every ship was
+     * sunk.
+     */
+    public IShip nearestFloating(IPosition pos) {
+        if (ships.length == 0)
+            return null;
+
+        int row = bucketRow(pos.getRow());
+        int column = bucketColumn(pos.getColumn());
+        int rings = Math.max(Math.max(row, bucketRows - 1 - row), Math.max(column, bucketColumns - 1 - column));
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int k = 0; k <= rings; k++) {
+            // every cell of a bucket k buckets away is at least this far
+            long nearest = k == 0 ? 0 : (long) (k - 1) * bucketSize + 1;
+            if (nearest > bestDistance)
+                break;
+            for (int r = row - k; r <= row + k; r++) {
+                if (r < 0 || r >= bucketRows)
+                    continue;
+                boolean edge = r == row - k || r == row + k;
+                for (int c = column - k; c <= column + k; c += edge || k == 0 ? 1 : 2 * k) {
+                    if (c < 0 || c >= bucketColumns)
+                        continue;
+                    int bucket = r * bucketColumns + c;
+                    for (int e = bucketStarts[bucket]; e < bucketStarts[bucket + 1]; e++) {
+                        int i = bucketShips[e];
+                        if (boxDistance(i, pos) > bestDistance || (best >= 0 && i >= best
+                                && boxDistance(i, pos) == bestDistance) || !ships[i].stillFloating())
+                            continue;
+                        long distance = distance(i, pos);
+                        if (distance < bestDistance || (distance == bestDistance && i < best)) {
+                            best = i;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return best < 0 ? null : ships[best];
+    }
+
+    private long boxDistance(int ship, IPosition pos) {
+        long rows = Math.max(0, Math.max((long) tops[ship] - pos.getRow(), (long) pos.getRow() - bottoms[ship]));
+        long columns = Math.max(0,
+                Math.max((long) lefts[ship] - pos.getColumn(), (long) pos.getColumn() - rights[ship]));
+        return Math.max(rows, columns);
+    }
+
+    private long distance(int ship, IPosition pos) {
+        long nearest = Long.MAX_VALUE;
+        for (IPosition p : ships[ship].getPositions())
+            nearest = Math.min(nearest, Math.max(Math.abs((long) p.getRow() - pos.getRow()),
+                    Math.abs((long) p.getColumn() - pos.getColumn())));
+        return nearest;
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of a game held in a {@link GameStore}: every operation reads and
+ * writes the slot of the game, and the view itself holds nothing else. It must
+ * not be used once the game is released.
+ * <p>
+ * As the store keeps which cells were shot at, but not in which order,
+ * {@link #getShots()} lists the valid shots in board order.
+ */
+final class StoredGame implements IGame {
+    private final GameStore store;
+    private final int slot;
+
+    StoredGame(GameStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    private ByteBuffer chunk() {
+        ByteBuffer chunk = store.chunk(slot);
+        assert chunk.get(GameStore.offset(slot) + GameStore.LIVE) != 0;
+        return chunk;
+    }
+
+    private static int unsigned(ByteBuffer chunk, int at) {
+        return chunk.get(at) & 0xFF;
+    }
+
+    private static void increment(ByteBuffer chunk, int at) {
+        chunk.put(at, (byte) (chunk.get(at) + 1));
+    }
+
+    @Override
+    public IShip fire(IPosition pos) {
+        ByteBuffer chunk = chunk();
+        int base = GameStore.offset(slot);
+        int row = pos.getRow();
+        int column = pos.getColumn();
+        if (row < 0 || row > Fleet.BOARD_SIZE || column < 0 || column > Fleet.BOARD_SIZE) {
+            chunk.putInt(base + GameStore.INVALID, chunk.getInt(base + GameStore.INVALID) + 1);
+            return null;
+        }
+        int shot = row * GameStore.SHOT_STRIDE + column;
+        if (GameStore.getBit(chunk, base + GameStore.SHOTS, shot)) {
+            chunk.putInt(base + GameStore.REPEATED, chunk.getInt(base + GameStore.REPEATED) + 1);
+            return null;
+        }
+        GameStore.setBit(chunk, base + GameStore.SHOTS, shot);
+        increment(chunk, base + GameStore.SHOT_COUNT);
+
+        if (row == Fleet.BOARD_SIZE || column == Fleet.BOARD_SIZE)
+            return null;
+        int cell = row * Fleet.BOARD_SIZE + column;
+        if (!GameStore.getBit(chunk, base + GameStore.OCCUPIED, cell))
+            return null;
+        GameStore.setBit(chunk, base + GameStore.HITS, cell);
+        increment(chunk, base + GameStore.HIT_COUNT);
+
+        int cellShips = chunk.get(base + GameStore.CELL_SHIPS + cell / 2);
+        int ship = (cell % 2 == 0 ? cellShips & 0x0F : cellShips >>> 4 & 0x0F) - 1;
+        int afloat = unsigned(chunk, base + GameStore.AFLOAT + ship) - 1;
+        chunk.put(base + GameStore.AFLOAT + ship, (byte) afloat);
+        if (afloat > 0)
+            return null;
+        increment(chunk, base + GameStore.SUNK);
+        return sunkShip(chunk, base, ship);
+    }
+
+    private static IShip sunkShip(ByteBuffer chunk, int base, int ship) {
+        int record = base + GameStore.SHIP_RECORDS + ship * GameStore.SHIP_RECORD_BYTES;
+        ShipType type = ShipType.values()[chunk.get(record)];
+        Compass bearing = Compass.values()[chunk.get(record + 1)];
+        Ship s = type.build(bearing, new Position(chunk.get(record + 2), chunk.get(record + 3)));
+        for (IPosition p : s.getPositions())
+            s.shoot(p);
+        return s;
+    }
+
+    @Override
+    public List<IPosition> getShots() {
+        ByteBuffer chunk = chunk();
+        int base = GameStore.offset(slot);
+        List<IPosition> shots = new ArrayList<>(unsigned(chunk, base + GameStore.SHOT_COUNT));
+        for (int shot = 0; shot < GameStore.SHOT_STRIDE * GameStore.SHOT_STRIDE; shot++)
+            if (GameStore.getBit(chunk, base + GameStore.SHOTS, shot))
+                shots.add(new Position(shot / GameStore.SHOT_STRIDE, shot % GameStore.SHOT_STRIDE));
+        return shots;
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return chunk().getInt(GameStore.offset(slot) + GameStore.REPEATED);
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return chunk().getInt(GameStore.offset(slot) + GameStore.INVALID);
+    }
+
+    @Override
+    public int getHits() {
+        return unsigned(chunk(), GameStore.offset(slot) + GameStore.HIT_COUNT);
+    }
+
+    @Override
+    public int getSunkShips() {
+        return unsigned(chunk(), GameStore.offset(slot) + GameStore.SUNK);
+    }
+
+    @Override
+    public int getRemainingShips() {
+        ByteBuffer chunk = chunk();
+        int base = GameStore.offset(slot);
+        return unsigned(chunk, base + GameStore.SHIPS) - unsigned(chunk, base + GameStore.SUNK);
+    }
+
+    private void printBoard(int mask, char marker) {
+        ByteBuffer chunk = chunk();
+        int base = GameStore.offset(slot);
+        int stride = mask == GameStore.SHOTS ? GameStore.SHOT_STRIDE : Fleet.BOARD_SIZE;
+        for (int row = 0; row < Fleet.BOARD_SIZE; row++) {
+            StringBuilder line = new StringBuilder(Fleet.BOARD_SIZE);
+            for (int column = 0; column < Fleet.BOARD_SIZE; column++) {
+                int bit = row * stride + column;
+                line.append(GameStore.getBit(chunk, base + mask, bit) ? marker : '.');
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Prints the board showing valid shots that have been fired
+     */
+    @Override
+    public void printValidShots() {
+        printBoard(GameStore.SHOTS, 'X');
+    }
+
+    /**
+     * Prints the board showing the fleet
+     */
+    @Override
+    public void printFleet() {
+        printBoard(GameStore.OCCUPIED, '#');
+    }
+}
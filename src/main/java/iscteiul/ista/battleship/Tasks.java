@@ -3,6 +3,7 @@
  */
 package iscteiul.ista.battleship;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 
@@ -105,19 +106,36 @@ public class Tasks {
     }
 
     /**
-     * This task also tests the fighting element of a round of three shots
+     * This task also tests the fighting element of a round of three shots. If
+     * the {@value Metrics#PORT_PROPERTY} system property is set, the fleet, the
+     * game and every command are instrumented, and the metrics are served at
+     * that port. If the {@value MoveTimer#SHOT_BUDGET_PROPERTY} or
+     * {@value MoveTimer#GAME_BUDGET_PROPERTY} system properties are set, the
+     * shots are played against the clock (see {@link MoveTimer})
      */
     public static void taskD() {
 
         Scanner in = new Scanner(System.in);
+        Metrics metrics = Metrics.fromSystemProperties();
+        MetricsServer server = metrics != null ? serveMetrics(metrics) : null;
+        MoveTimer timer = MoveTimer.fromSystemProperties();
         IFleet fleet = null;
         IGame game = null;
         String command = in.next();
         while (!command.equals(DESISTIR)) {
+            long started = metrics != null ? System.nanoTime() : 0;
             switch (command) {
                 case NOVAFROTA:
-                    fleet = buildFleet(in);
-                    game = new Game(fleet);
+                    if (metrics != null) {
+                        fleet = metrics.instrument(new Fleet());
+                        buildFleet(in, fleet);
+                        game = metrics.instrument(new Game(fleet));
+                    } else {
+                        fleet = buildFleet(in);
+                        game = new Game(fleet);
+                    }
+                    if (timer != null)
+                        timer.newGame();
                     break;
                 case STATUS:
                     if (fleet != null)
@@ -129,10 +147,12 @@ public class Tasks {
                     break;
                 case RAJADA:
                     if (game != null) {
-                        firingRound(in, game);
+                        firingRound(in, game, timer);
 
                         LOGGER.info("Hits: {} Inv: {} Rep: {} Restam {} navios.", game.getHits(), game.getInvalidShots(),
                                 game.getRepeatedShots(), game.getRemainingShips());
+                        if (timer != null && timer.isOutOfTime())
+                            LOGGER.info("Acabou-se o tempo! Os tiros que faltam serao perdidos.");
                         if (game.getRemainingShips() == 0)
                             LOGGER.info("Maldito sejas, Java Sparrow, eu voltarei, glub glub glub...");
                     }
@@ -144,11 +164,95 @@ public class Tasks {
                 default:
                     LOGGER.info("Que comando é esse??? Repete ...");
             }
+            if (metrics != null)
+                commandTimer(metrics, command).stop(started);
             command = in.next();
         }
+        if (server != null)
+            server.close();
         LOGGER.info(GOODBYE_MESSAGE);
     }
 
+    /**
+     * This task plays the Salvo variant between two fleets: the first two
+     * "nova" commands build the fleets of the first and second players, and
+     * each "rajada" then reads the volley of the player whose turn it is, as
+     * many shots as they have ships afloat
+     */
+    public static void taskE() {
+        Scanner in = new Scanner(System.in);
+        Fleet[] fleets = new Fleet[2];
+        Salvo salvo = null;
+        IPosition[] volley = new IPosition[Fleet.FLEET_SIZE + 1];
+        IShip[] sunk = new IShip[Fleet.FLEET_SIZE + 1];
+        String command = in.next();
+        while (!command.equals(DESISTIR)) {
+            switch (command) {
+                case NOVAFROTA:
+                    if (fleets[Salvo.FIRST] == null || salvo != null) {
+                        fleets[Salvo.FIRST] = buildFleet(in);
+                        fleets[Salvo.SECOND] = null;
+                        salvo = null;
+                    } else {
+                        fleets[Salvo.SECOND] = buildFleet(in);
+                        salvo = new Salvo(fleets[Salvo.FIRST], fleets[Salvo.SECOND]);
+                    }
+                    break;
+                case STATUS:
+                    for (Fleet fleet : fleets)
+                        if (fleet != null)
+                            fleet.printStatus();
+                    break;
+                case RAJADA:
+                    if (salvo != null && !salvo.isOver()) {
+                        int player = salvo.getTurn();
+                        salvoRound(in, salvo, volley, sunk);
+
+                        IGame game = salvo.getGameAgainst(1 - player);
+                        LOGGER.info("Jogador {}: Hits: {} Inv: {} Rep: {} Restam {} navios.", player + 1,
+                                game.getHits(), game.getInvalidShots(), game.getRepeatedShots(),
+                                salvo.volleySize(1 - player));
+                        if (salvo.isOver())
+                            LOGGER.info("O jogador {} afundou a frota toda!", salvo.getWinner() + 1);
+                    }
+                    break;
+                case VERTIROS:
+                    if (salvo != null)
+                        salvo.getGameAgainst(1 - salvo.getTurn()).printValidShots();
+                    break;
+                default:
+                    LOGGER.info("Que comando é esse??? Repete ...");
+            }
+            command = in.next();
+        }
+        LOGGER.info(GOODBYE_MESSAGE);
+    }
+
+    private static MetricsServer serveMetrics(Metrics metrics) {
+        try {
+            MetricsServer server = new MetricsServer(metrics, Integer.getInteger(Metrics.PORT_PROPERTY, 0));
+            LOGGER.info("Metricas em http://localhost:{}{}", server.getPort(), MetricsServer.PATH);
+            return server;
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Nao foi possivel servir as metricas: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Metrics.Timer commandTimer(Metrics metrics, String command) {
+        switch (command) {
+            case NOVAFROTA:
+            case STATUS:
+            case BATOTA:
+            case RAJADA:
+            case VERTIROS:
+                break;
+            default:
+                command = "desconhecido";
+        }
+        return metrics.timer("command", "Time taken by each command of the game loop", "command", command);
+    }
+
     /**
      * This operation allows the build up of a fleet, given user data
      *
@@ -156,10 +260,27 @@ public class Tasks {
      * @return The fleet that has been built
      */
     static Fleet buildFleet(Scanner in) {
+        Fleet fleet = new Fleet();
+        buildFleet(in, fleet);
+        return fleet;
+    }
+
+    /**
+     * This operation allows the build up of a given fleet, given user data, and
+     * reports the ships added, rejected and unknown in a
+     * {@link GameEvents.FleetBuilt} event
+     *
+     * @param in    The scanner to read from
+     * @param fleet The fleet to add the ships to
+     */
+    static void buildFleet(Scanner in, IFleet fleet) {
         assert in != null;
 
-        Fleet fleet = new Fleet();
+        GameEvents.FleetBuilt event = new GameEvents.FleetBuilt();
+        event.begin();
         int i = 0; // i represents the total of successfully created ships
+        int rejected = 0;
+        int unknown = 0;
 
         while (i <= Fleet.FLEET_SIZE) {
             IShip s = readShip(in);
@@ -167,14 +288,23 @@ public class Tasks {
                 boolean success = fleet.addShip(s);
                 if (success)
                     i++;
-                else
+                else {
+                    rejected++;
                     LOGGER.info("Falha na criacao de {} {} {}", s.getCategory(), s.getBearing(), s.getPosition());
+                }
             } else {
+                unknown++;
                 LOGGER.info("Navio desconhecido!");
             }
         }
         LOGGER.info("{} navios adicionados com sucesso!", i);
-        return fleet;
+        event.end();
+        if (event.shouldCommit()) {
+            event.added = i;
+            event.rejected = rejected;
+            event.unknown = unknown;
+            event.commit();
+        }
     }
 
     /**
@@ -203,6 +333,40 @@ public class Tasks {
         return new Position(row, column);
     }
 
+    /**
+     * This operation fires a Salvo volley, as many shots as the player whose
+     * turn it is has ships afloat, all landing together. The volley is reported
+     * in a {@link GameEvents.Volley} event
+     *
+     * @param in     The scanner to read from
+     * @param salvo  The game being played
+     * @param volley Room for the shots of the volley, reused across volleys
+     * @param sunk   Room for the ships sunk by the volley, reused across volleys
+     */
+    static void salvoRound(Scanner in, Salvo salvo, IPosition[] volley, IShip[] sunk) {
+        GameEvents.Volley event = new GameEvents.Volley();
+        event.begin();
+        IGame game = salvo.getGameAgainst(1 - salvo.getTurn());
+        int hits = game.getHits();
+        int invalid = game.getInvalidShots();
+        int repeated = game.getRepeatedShots();
+        int count = salvo.volleySize(salvo.getTurn());
+        for (int i = 0; i < count; i++)
+            volley[i] = readPosition(in);
+        int sinks = salvo.fire(volley, count, sunk);
+        for (int i = 0; i < sinks; i++)
+            LOGGER.info("Mas... mas... {}s nao sao a prova de bala? :-(", sunk[i].getCategory());
+        event.end();
+        if (event.shouldCommit()) {
+            event.shots = count;
+            event.hits = game.getHits() - hits;
+            event.sinks = sinks;
+            event.invalid = game.getInvalidShots() - invalid;
+            event.repeated = game.getRepeatedShots() - repeated;
+            event.commit();
+        }
+    }
+
     /**
      * This operation allows firing a round of shots (three) over a fleet, in the
      * context of a game
@@ -211,13 +375,49 @@ public class Tasks {
      * @param game The context game while fleet is being attacked
      */
     static void firingRound(Scanner in, IGame game) {
+        firingRound(in, game, null);
+    }
+
+    /**
+     * This operation allows firing a round of shots (three) over a fleet, in the
+     * context of a game, against the clock: a shot chosen later than the per-shot
+     * budget of the timer is forfeited, as are all those chosen once the game is
+     * out of time. The round is reported in a {@link GameEvents.Volley} event
+     *
+     * @param in    The scanner to read from
+     * @param game  The context game while fleet is being attacked
+     * @param timer The clock of the player, or null for no time limits
+     */
+    static void firingRound(Scanner in, IGame game, MoveTimer timer) {
+        GameEvents.Volley event = new GameEvents.Volley();
+        event.begin();
+        int hits = game.getHits();
+        int sinks = game.getSunkShips();
+        int invalid = game.getInvalidShots();
+        int repeated = game.getRepeatedShots();
+        int late = 0;
         for (int i = 0; i < NUMBER_SHOTS; i++) {
+            long started = timer != null ? timer.start() : 0;
             IPosition pos = readPosition(in);
+            if (timer != null && !timer.stop(started)) {
+                late++;
+                LOGGER.info("Tiro em {} fora de tempo, perdido!", pos);
+                continue;
+            }
             IShip sh = game.fire(pos);
             if (sh != null)
                 LOGGER.info("Mas... mas... {}s nao sao a prova de bala? :-(", sh.getCategory());
         }
-
+        event.end();
+        if (event.shouldCommit()) {
+            event.shots = NUMBER_SHOTS - late;
+            event.hits = game.getHits() - hits;
+            event.sinks = game.getSunkShips() - sinks;
+            event.invalid = game.getInvalidShots() - invalid;
+            event.repeated = game.getRepeatedShots() - repeated;
+            event.late = late;
+            event.commit();
+        }
     }
 
 }
@@ -0,0 +1,253 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * A tournament between bots, its matches played in parallel on a fork-join
+ * pool.
+ * <p>
+ * In a match each bot lays out a fleet and then sinks the fleet of the other
+ * on a game of its own; whoever takes fewer shots wins, and equal counts make
+ * a draw. A bot whose placer does not lay out a standard fleet forfeits.
+ * <p>
+ * Each shot is timed by a {@link MoveTimer}, and the latencies of every bot
+ * are kept with the results. Time budgets may be set: a shot chosen later than
+ * the per-shot budget costs one more shot, and a bot whose shots in a match
+ * take longer than the per-game budget forfeits it.
+ * Every match gets its own seed, derived from the seed of the tournament and
+ * the index of the match, so the same tournament always has the same
+ * outcomes, whatever the order in which workers play them; only the final
+ * ratings, which are updated as matches end, may differ slightly. Swiss
+ * pairings are made from the outcomes alone, never from the ratings, so they
+ * are the same too.
+ * <p>
+ * Pairings are either round robin, each bot against every other, or Swiss,
+ * each round pairing bots of close standings that have not yet met. A
+ * tournament holds its pool until it is closed.
+ */
+public class Tournament implements AutoCloseable {
+    private final List<Bot> bots;
+    private final int gamesPerPairing;
+    private final ForkJoinPool pool;
+    private final long shotBudgetNanos;
+    private final long gameBudgetNanos;
+
+    /**
+     * @param bots            The bots taking part, at least two
+     * @param gamesPerPairing The number of matches each pair of bots plays
+     * @param parallelism     The number of worker threads
+     */
+    public Tournament(List<Bot> bots, int gamesPerPairing, int parallelism) {
+        this(bots, gamesPerPairing, parallelism, MoveTimer.UNLIMITED, MoveTimer.UNLIMITED);
+    }
+
+    /**
+     * @param bots            The bots taking part, at least two
+     * @param gamesPerPairing The number of matches each pair of bots plays
+     * @param parallelism     The number of worker threads
+     * @param shotBudgetNanos The time each shot may take, in nanoseconds
+     * @param gameBudgetNanos The time the shots of a bot in a match may take,
+     *                        in nanoseconds
+     */
+    public Tournament(List<Bot> bots, int gamesPerPairing, int parallelism, long shotBudgetNanos,
+                      long gameBudgetNanos) {
+        if (bots.size() < 2)
+            throw new IllegalArgumentException("ERROR! a tournament needs at least two bots");
+        if (gamesPerPairing <= 0 || parallelism <= 0 || shotBudgetNanos <= 0 || gameBudgetNanos <= 0)
+            throw new IllegalArgumentException("ERROR! invalid tournament settings");
+
+        this.bots = List.copyOf(bots);
+        this.gamesPerPairing = gamesPerPairing;
+        this.pool = new ForkJoinPool(parallelism);
+        this.shotBudgetNanos = shotBudgetNanos;
+        this.gameBudgetNanos = gameBudgetNanos;
+    }
+
+    /**
+     * This operation plays every bot against every other
+     *
+     * @param seed The seed of the tournament
+     * @return The results
+     */
+    public TournamentResults roundRobin(long seed) {
+        List<int[]> pairings = new ArrayList<>();
+        for (int a = 0; a < bots.size(); a++)
+            for (int b = a + 1; b < bots.size(); b++)
+                pairings.add(new int[]{a, b});
+
+        TournamentResults results = new TournamentResults(bots);
+        playAll(results, pairings, seed, 0);
+        return results;
+    }
+
+    /**
+     * This operation plays a Swiss tournament: in each round the bots are
+     * ranked by points, then by the points of the opponents they have met (the
+     * Buchholz score), then by the order they were given in, all of which are
+     * the same however the matches were scheduled, and each is paired with the
+     * best ranked
+     * one it has not met yet, if any; with an odd number of bots, the lowest
+     * ranked of those with fewest byes sits the round out and scores a point
+     *
+     * @param rounds The number of rounds
+     * @param seed   The seed of the tournament
+     * @return The results
+     */
+    public TournamentResults swiss(int rounds, long seed) {
+        if (rounds <= 0)
+            throw new IllegalArgumentException("ERROR! invalid number of rounds " + rounds);
+
+        int n = bots.size();
+        TournamentResults results = new TournamentResults(bots);
+        boolean[][] met = new boolean[n][n];
+        long played = 0;
+        for (int round = 0; round < rounds; round++) {
+            // ratings depend on the order matches ended in, so ties are broken on Buchholz scores
+            double[] buchholz = new double[n];
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    if (met[i][j])
+                        buchholz[i] += results.getPoints(j);
+            Integer[] standings = new Integer[n];
+            for (int i = 0; i < n; i++)
+                standings[i] = i;
+            Arrays.sort(standings, Comparator.comparingDouble((Integer i) -> -results.getPoints(i))
+                    .thenComparingDouble(i -> -buchholz[i]).thenComparingInt(i -> i));
+
+            List<int[]> pairings = new ArrayList<>(n / 2);
+            boolean[] paired = new boolean[n];
+            if (n % 2 == 1) {
+                int bye = standings[n - 1];
+                for (int i = n - 2; i >= 0; i--)
+                    if (results.getByes(standings[i]) < results.getByes(bye))
+                        bye = standings[i];
+                results.bye(bye);
+                paired[bye] = true;
+            }
+            for (int i = 0; i < n; i++) {
+                int a = standings[i];
+                if (paired[a])
+                    continue;
+                int b = -1;
+                for (int j = i + 1; j < n; j++) {
+                    int c = standings[j];
+                    if (paired[c])
+                        continue;
+                    if (b < 0)
+                        b = c;
+                    if (!met[a][c]) {
+                        b = c;
+                        break;
+                    }
+                }
+                assert b >= 0;
+                paired[a] = paired[b] = true;
+                met[a][b] = met[b][a] = true;
+                pairings.add(new int[]{a, b});
+            }
+
+            playAll(results, pairings, seed, played);
+            played += (long) pairings.size() * gamesPerPairing;
+        }
+        return results;
+    }
+
+    /*
+     * Plays the matches of the pairings in parallel, numbering them from the
+     * given index
+     */
+    private void playAll(TournamentResults results, List<int[]> pairings, long seed, long first) {
+        int matches = pairings.size() * gamesPerPairing;
+        pool.submit(() -> IntStream.range(0, matches).parallel().forEach(m -> {
+            int[] pairing = pairings.get(m / gamesPerPairing);
+            play(results, pairing[0], pairing[1], Zobrist.mix(seed + first + m));
+        })).join();
+    }
+
+    private void play(TournamentResults results, int a, int b, long seed) {
+        Random random = new Random(seed);
+        Fleet fleetA = layOut(bots.get(a), random);
+        Fleet fleetB = layOut(bots.get(b), random);
+        if (fleetA == null || fleetB == null) {
+            results.forfeit(a, b, fleetA == null, fleetB == null);
+            return;
+        }
+
+        MoveTimer timerA = new MoveTimer(shotBudgetNanos, gameBudgetNanos);
+        MoveTimer timerB = new MoveTimer(shotBudgetNanos, gameBudgetNanos);
+        int shotsA = sink(bots.get(a), fleetB, random, timerA);
+        int shotsB = sink(bots.get(b), fleetA, random, timerB);
+        results.time(a, timerA);
+        results.time(b, timerB);
+        if (timerA.isOutOfTime() || timerB.isOutOfTime())
+            results.forfeit(a, b, timerA.isOutOfTime(), timerB.isOutOfTime());
+        else
+            results.record(a, b, shotsA, shotsB);
+    }
+
+    /*
+     * The fleet laid out by the bot, or null if it is not a standard one
+     */
+    private static Fleet layOut(Bot bot, Random random) {
+        Fleet fleet = new Fleet();
+        bot.getPlacer().place(fleet, random);
+
+        List<IShip> ships = fleet.getShips();
+        if (ships.size() != ShipType.standardFleetSize())
+            return null;
+        int[] counts = new int[ShipType.values().length];
+        for (IShip s : ships) {
+            ShipType type = s.getType();
+            if (type == null || ++counts[type.ordinal()] > type.getFleetCount())
+                return null;
+        }
+        return fleet;
+    }
+
+    /*
+     * The shots the bot takes to sink the fleet, counting late ones twice; stops
+     * early if the bot runs out of time
+     */
+    private static int sink(Bot bot, Fleet fleet, Random random, MoveTimer timer) {
+        List<IShip> ships = fleet.getShips();
+        ShipType[] types = new ShipType[ships.size()];
+        for (int i = 0; i < types.length; i++)
+            types[i] = ships.get(i).getType();
+
+        IShooter shooter = bot.newShooter(random);
+        shooter.newGame(types);
+        Game game = new Game(fleet);
+        int shots = 0;
+        while (!shooter.isDone() && !timer.isOutOfTime()) {
+            long started = timer.start();
+            shooter.fire(game);
+            timer.stop(started);
+            shots++;
+        }
+        return shots + timer.getLateShots();
+    }
+
+    /**
+     * @return The bots taking part
+     */
+    public List<Bot> getBots() {
+        return bots;
+    }
+
+    /**
+     * This operation stops the worker threads
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
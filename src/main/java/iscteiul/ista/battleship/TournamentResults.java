@@ -0,0 +1,307 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The results of a tournament, recorded as matches end on any worker thread.
+ * <p>
+ * Counters are {@link LongAdder}s, so concurrent matches do not contend on
+ * them, and Elo ratings are updated incrementally, each with a
+ * compare-and-set loop over the bits of its value: no lock is ever taken.
+ * The latencies of the shots of each bot are merged, match by match, into
+ * per-bot histograms of atomic counters in the same way. Reading while matches
+ * are being recorded gives a consistent value for each counter, though not a
+ * snapshot of all of them.
+ */
+public final class TournamentResults {
+    /**
+     * The rating every bot starts with
+     */
+    public static final double INITIAL_RATING = 1500;
+    /**
+     * The largest change of rating a single match may make
+     */
+    public static final double K_FACTOR = 16;
+
+    private final List<Bot> bots;
+    private final LongAdder[] wins;
+    private final LongAdder[] losses;
+    private final LongAdder[] draws;
+    private final LongAdder[] shots;
+    private final LongAdder[] played;
+    private final LongAdder[] forfeits;
+    private final LongAdder[] byes;
+    private final LongAdder[] lateShots;
+    private final LongAdder matches;
+    private final AtomicLongArray meetings;
+    private final AtomicLongArray ratings;
+    private final AtomicLongArray[] latencies;
+    private final LongAdder[] latencyTotals;
+    private final LongAccumulator[] latencyMaxima;
+
+    /**
+     * @param bots The bots taking part
+     */
+    public TournamentResults(List<Bot> bots) {
+        this.bots = List.copyOf(bots);
+        int n = this.bots.size();
+        this.wins = adders(n);
+        this.losses = adders(n);
+        this.draws = adders(n);
+        this.shots = adders(n);
+        this.played = adders(n);
+        this.forfeits = adders(n);
+        this.byes = adders(n);
+        this.lateShots = adders(n);
+        this.latencyTotals = adders(n);
+        this.latencies = new AtomicLongArray[n];
+        this.latencyMaxima = new LongAccumulator[n];
+        for (int i = 0; i < n; i++) {
+            latencies[i] = new AtomicLongArray(LatencyHistogram.buckets());
+            latencyMaxima[i] = new LongAccumulator(Math::max, 0);
+        }
+        this.matches = new LongAdder();
+        this.meetings = new AtomicLongArray(n * n);
+        this.ratings = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++)
+            ratings.set(i, Double.doubleToLongBits(INITIAL_RATING));
+    }
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    /**
+     * This operation records the end of a match in which both fleets were sunk
+     *
+     * @param a      The index of a bot
+     * @param b      The index of its opponent
+     * @param shotsA The number of shots bot a took to sink the fleet of b
+     * @param shotsB The number of shots bot b took to sink the fleet of a
+     */
+    void record(int a, int b, int shotsA, int shotsB) {
+        shots[a].add(shotsA);
+        shots[b].add(shotsB);
+        played[a].increment();
+        played[b].increment();
+        score(a, b, shotsA < shotsB ? 1 : shotsA > shotsB ? 0 : 0.5);
+    }
+
+    /**
+     * This operation records a match forfeited because a bot laid out a fleet
+     * that is not a standard one, or ran out of time
+     *
+     * @param a        The index of a bot
+     * @param b        The index of its opponent
+     * @param forfeitA Whether bot a forfeited
+     * @param forfeitB Whether bot b forfeited
+     */
+    void forfeit(int a, int b, boolean forfeitA, boolean forfeitB) {
+        assert forfeitA || forfeitB;
+        if (forfeitA)
+            forfeits[a].increment();
+        if (forfeitB)
+            forfeits[b].increment();
+        score(a, b, forfeitA == forfeitB ? 0.5 : forfeitA ? 0 : 1);
+    }
+
+    /**
+     * This operation adds the timings of the shots of a bot in a match
+     *
+     * @param bot   The index of the bot
+     * @param timer The clock of the bot in the match
+     */
+    void time(int bot, MoveTimer timer) {
+        LatencyHistogram h = timer.getLatencies();
+        for (int b = 0; b < LatencyHistogram.buckets(); b++)
+            if (h.countAt(b) != 0)
+                latencies[bot].addAndGet(b, h.countAt(b));
+        latencyTotals[bot].add(h.getTotal());
+        latencyMaxima[bot].accumulate(h.getMax());
+        lateShots[bot].add(timer.getLateShots());
+    }
+
+    /**
+     * This operation records a round a bot sat out for want of an opponent
+     *
+     * @param bot The index of the bot
+     */
+    void bye(int bot) {
+        byes[bot].increment();
+    }
+
+    /*
+     * Counts the result of a match and moves the ratings of both bots towards it
+     */
+    private void score(int a, int b, double scoreA) {
+        matches.increment();
+        meetings.incrementAndGet(a * bots.size() + b);
+        meetings.incrementAndGet(b * bots.size() + a);
+        if (scoreA == 1) {
+            wins[a].increment();
+            losses[b].increment();
+        } else if (scoreA == 0) {
+            losses[a].increment();
+            wins[b].increment();
+        } else {
+            draws[a].increment();
+            draws[b].increment();
+        }
+
+        double expectedA = 1 / (1 + Math.pow(10, (getRating(b) - getRating(a)) / 400));
+        double delta = K_FACTOR * (scoreA - expectedA);
+        addRating(a, delta);
+        addRating(b, -delta);
+    }
+
+    private void addRating(int bot, double delta) {
+        long bits;
+        do {
+            bits = ratings.get(bot);
+        } while (!ratings.compareAndSet(bot, bits, Double.doubleToLongBits(Double.longBitsToDouble(bits) + delta)));
+    }
+
+    /**
+     * @param a The index of a bot
+     * @param b The index of another bot
+     * @return The number of matches the two bots played against each other,
+     * forfeits included
+     */
+    public long getMeetings(int a, int b) {
+        return meetings.get(a * bots.size() + b);
+    }
+
+    /**
+     * @return The bots taking part
+     */
+    public List<Bot> getBots() {
+        return bots;
+    }
+
+    /**
+     * @return The number of matches recorded
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The current Elo rating of the bot
+     */
+    public double getRating(int bot) {
+        return Double.longBitsToDouble(ratings.get(bot));
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of matches the bot won
+     */
+    public long getWins(int bot) {
+        return wins[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of matches the bot lost
+     */
+    public long getLosses(int bot) {
+        return losses[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of matches the bot drew
+     */
+    public long getDraws(int bot) {
+        return draws[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of matches the bot forfeited
+     */
+    public long getForfeits(int bot) {
+        return forfeits[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of shots of the bot that took longer than the per-shot
+     * budget
+     */
+    public long getLateShots(int bot) {
+        return lateShots[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return A snapshot of the time the bot took to choose each of its shots
+     */
+    public LatencyHistogram getLatencies(int bot) {
+        long[] counts = new long[LatencyHistogram.buckets()];
+        for (int b = 0; b < counts.length; b++)
+            counts[b] = latencies[bot].get(b);
+        return new LatencyHistogram(counts, latencyTotals[bot].sum(), latencyMaxima[bot].get());
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The number of rounds the bot sat out
+     */
+    public long getByes(int bot) {
+        return byes[bot].sum();
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The points of the bot: one per win or bye, half per draw
+     */
+    public double getPoints(int bot) {
+        return getWins(bot) + getByes(bot) + getDraws(bot) / 2.0;
+    }
+
+    /**
+     * @param bot The index of a bot
+     * @return The average number of shots the bot took to sink a fleet, or NaN
+     * if it has not fired in any match
+     */
+    public double getAverageShots(int bot) {
+        long games = played[bot].sum();
+        return games == 0 ? Double.NaN : (double) shots[bot].sum() / games;
+    }
+
+    /**
+     * @return The indexes of the bots, best rated first
+     */
+    public int[] ranking() {
+        Integer[] order = new Integer[bots.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> -getRating(i)));
+        int[] ranking = new int[order.length];
+        for (int i = 0; i < order.length; i++)
+            ranking[i] = order[i];
+        return ranking;
+    }
+
+    /**
+     * This operation prints the standings, best rated first
+     */
+    public void printStandings() {
+        for (int i : ranking())
+            System.out.printf("%-20s %7.1f  %d-%d-%d  %.2f shots%n", bots.get(i).getName(), getRating(i),
+                    getWins(i), getLosses(i), getDraws(i), getAverageShots(i));
+    }
+}
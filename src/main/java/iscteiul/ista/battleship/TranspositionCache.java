@@ -0,0 +1,182 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * A bounded memo of values keyed by 64-bit hashes, such as the
+ * {@link Zobrist} hashes of board states.
+ * <p>
+ * Entries live in a fixed number of slots. When all of them are taken, a new
+ * entry replaces the one chosen by the clock algorithm: a hand sweeps the
+ * slots, sparing (and clearing the mark of) those read since it last passed,
+ * and evicting the first one that was not. Keys are found through an open
+ * addressing index over the slots, so lookups and insertions take O(1) and
+ * allocate nothing.
+ * <p>
+ * Keys are trusted to identify their values: two states with the same hash
+ * share an entry. A cache is not thread safe; use one per thread.
+ *
+ * @param <V> The type of the values kept
+ */
+public final class TranspositionCache<V> {
+    private final int capacity;
+    private final long[] keys;
+    private final Object[] values;
+    private final boolean[] referenced;
+    private final int[] index;
+    private final int mask;
+
+    private int size;
+    private int hand;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param capacity The largest number of entries kept
+     */
+    public TranspositionCache(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 29)
+            throw new IllegalArgumentException("ERROR! invalid capacity " + capacity);
+
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.referenced = new boolean[capacity];
+        this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        this.mask = index.length - 1;
+    }
+
+    /**
+     * @param key The hash of interest
+     * @return The value kept for it, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = find(key);
+        if (index[i] == 0) {
+            misses++;
+            return null;
+        }
+        int slot = index[i] - 1;
+        referenced[slot] = true;
+        hits++;
+        return (V) values[slot];
+    }
+
+    /**
+     * This operation keeps a value for the given hash, evicting another entry if
+     * the cache is full
+     *
+     * @param key   The hash of interest
+     * @param value The value, not null
+     */
+    public void put(long key, V value) {
+        if (value == null)
+            throw new NullPointerException("ERROR! the cache does not keep null values");
+
+        int i = find(key);
+        if (index[i] != 0) {
+            values[index[i] - 1] = value;
+            return;
+        }
+
+        int slot;
+        if (size < capacity)
+            slot = size++;
+        else {
+            slot = victim();
+            unlink(find(keys[slot]));
+            i = find(key);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        referenced[slot] = false;
+        index[i] = slot + 1;
+    }
+
+    /**
+     * @return The number of entries kept
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The largest number of entries kept
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of lookups that found a value
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of lookups that found none
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * This operation drops every entry
+     */
+    public void clear() {
+        Arrays.fill(index, 0);
+        Arrays.fill(values, null);
+        Arrays.fill(referenced, false);
+        size = 0;
+        hand = 0;
+    }
+
+    private int victim() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+        int slot = hand;
+        hand = (hand + 1) % capacity;
+        return slot;
+    }
+
+    private int home(long key) {
+        return (int) Zobrist.mix(key) & mask;
+    }
+
+    /*
+     * The position in the index holding the key, or the empty position where it
+     * would be inserted
+     */
+    private int find(long key) {
+        int i = home(key);
+        while (index[i] != 0 && keys[index[i] - 1] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    /*
+     * Empties a position of the index, moving back the entries after it that
+     * could no longer be found otherwise
+     */
+    private void unlink(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (index[j] == 0)
+                break;
+            int k = home(keys[index[j] - 1]);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j))
+                continue;
+            index[i] = index[j];
+            i = j;
+        }
+        index[i] = 0;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist keys of the states of a board: one random 64-bit key per cell and
+ * per layer of information about that cell, so that a state is hashed by
+ * XORing the keys of what is known about it, and updated in O(1) as cells
+ * change, by XORing their keys in and out.
+ * <p>
+ * Besides what shots tell, there is one layer per kind of ship for the cells
+ * taken by the ships of a fleet. Keys are derived from a fixed seed, so hashes
+ * are the same from one run to the next; cells outside the board, which some
+ * shots and ships may name, get keys derived on the fly. The keys for a board
+ * size are built on first use and then shared by all threads.
+ */
+public final class Zobrist {
+    /**
+     * Layer of the cells fired at where there was no ship
+     */
+    public static final int MISS = 0;
+    /**
+     * Layer of the cells fired at where a ship was hit
+     */
+    public static final int HIT = 1;
+    /**
+     * Layer of the cells of the ships sunk
+     */
+    public static final int SUNK = 2;
+
+    private static final int SHIPS = 3;
+    private static final int LAYERS = SHIPS + ShipType.values().length + 1;
+    private static final long SEED = 0x5DEECE66DL;
+    private static final Map<Integer, Zobrist> BOARDS = new ConcurrentHashMap<>();
+
+    private final int boardSize;
+    private final int cells;
+    private final long[] keys;
+
+    private Zobrist(int boardSize) {
+        this.boardSize = boardSize;
+        this.cells = boardSize * boardSize;
+        this.keys = new long[LAYERS * cells];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = mix(SEED + ((long) boardSize << 40) + i);
+    }
+
+    /**
+     * @param boardSize The number of rows (and columns) of the board
+     * @return The shared keys of the states of such a board
+     */
+    public static Zobrist forBoard(int boardSize) {
+        Zobrist zobrist = BOARDS.get(boardSize);
+        if (zobrist == null)
+            zobrist = BOARDS.computeIfAbsent(boardSize, Zobrist::new);
+        return zobrist;
+    }
+
+    /**
+     * @return The number of rows (and columns) of the board
+     */
+    public int boardSize() {
+        return boardSize;
+    }
+
+    /**
+     * @param layer The layer of information, such as {@link #HIT}
+     * @param cell  A cell of the board
+     * @return The key of that cell in that layer
+     */
+    public long key(int layer, int cell) {
+        return keys[layer * cells + cell];
+    }
+
+    /**
+     * @param layer  The layer of information, such as {@link #HIT}
+     * @param row    The row of a cell, which may lie outside the board
+     * @param column The column of that cell
+     * @return The key of that cell in that layer
+     */
+    public long key(int layer, int row, int column) {
+        if (row >= 0 && row < boardSize && column >= 0 && column < boardSize)
+            return key(layer, row * boardSize + column);
+        return mix(SEED ^ ((long) layer << 56) ^ ((long) row << 28) ^ (column & 0xFFFFFFFL) ^ Long.MIN_VALUE);
+    }
+
+    /**
+     * @param type   The kind of a ship, or null if it is of no registered kind
+     * @param row    The row of a cell of the ship, which may lie outside the board
+     * @param column The column of that cell
+     * @return The key of a ship of that kind taking that cell
+     */
+    public long ship(ShipType type, int row, int column) {
+        return key(SHIPS + (type == null ? ShipType.values().length : type.ordinal()), row, column);
+    }
+
+    /**
+     * @param type  A kind of ship
+     * @param count A number of ships of that kind
+     * @return The key of there being that many ships of that kind afloat, zero
+     * when there are none
+     */
+    public long floating(ShipType type, int count) {
+        return count == 0 ? 0L : mix(~SEED ^ ((long) boardSize << 48) ^ ((long) type.ordinal() << 32) ^ count);
+    }
+
+    /*
+     * The finalizer of SplitMix64: spreads every bit of the input over the whole
+     * output.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,58 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as operações sobre máscaras do tabuleiro")
+class BoardMaskTest {
+
+    private static long[] randomMask(Random random, int boardSize, double density) {
+        long[] mask = BoardMask.create(boardSize);
+        for (int cell = 0; cell < boardSize * boardSize; cell++)
+            if (random.nextDouble() < density)
+                BoardMask.set(mask, cell);
+        return mask;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8, 10, 11, 1000})
+    @DisplayName("As operações palavra a palavra dão o mesmo que célula a célula")
+    void wordOperationsMatchCellOperations(int boardSize) {
+        Random random = new Random(boardSize);
+        int cells = boardSize * boardSize;
+        long[] a = randomMask(random, boardSize, 0.3);
+        long[] b = randomMask(random, boardSize, 0.6);
+        long[] c = randomMask(random, boardSize, 0.5);
+        long[] andNotBoth = BoardMask.create(boardSize);
+        long[] andNot = BoardMask.create(boardSize);
+        long[] full = BoardMask.create(boardSize);
+        BoardMask.andNot(andNotBoth, a, b, c);
+        BoardMask.andNot(andNot, a, b);
+        BoardMask.fill(full, cells);
+        int[] counts = new int[cells];
+        BoardMask.count(a, counts);
+        BoardMask.count(b, counts);
+
+        int expectedAndNot = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            boolean inA = BoardMask.get(a, cell);
+            boolean inB = BoardMask.get(b, cell);
+            assertEquals(inA && !inB && !BoardMask.get(c, cell), BoardMask.get(andNotBoth, cell));
+            assertEquals(inA && !inB, BoardMask.get(andNot, cell));
+            assertTrue(BoardMask.get(full, cell));
+            assertEquals((inA ? 1 : 0) + (inB ? 1 : 0), counts[cell]);
+            expectedAndNot += inA && !inB ? 1 : 0;
+        }
+        assertEquals(cells, BoardMask.cardinality(full));
+        assertEquals(expectedAndNot, BoardMask.cardinality(andNot));
+        assertEquals(expectedAndNot, BoardMask.cardinalityAndNot(a, 0, b));
+
+        BoardMask.andNot(a, a, a);
+        assertEquals(0, BoardMask.cardinality(a));
+    }
+}
@@ -0,0 +1,109 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o renderizador incremental do tabuleiro")
+class BoardRendererTest {
+
+    private Fleet fleet;
+    private Game game;
+    private BoardRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, new Position(2, 2)));
+        game = new Game(fleet);
+        renderer = new BoardRenderer(game, fleet);
+    }
+
+    private String render(BoardRenderer.Viewer viewer) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        viewer.render(sb);
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Um novo espectador recebe o tabuleiro completo")
+    void newViewerGetsFullBoard() throws IOException {
+        BoardRenderer.Viewer viewer = renderer.newViewer(1, 1);
+        StringBuilder sb = new StringBuilder();
+        int drawn = viewer.render(sb);
+
+        assertEquals(Fleet.BOARD_SIZE * Fleet.BOARD_SIZE, drawn);
+        assertTrue(sb.toString().startsWith("\u001B[2J"));
+        assertTrue(sb.toString().contains("\u001B[10;1H.........."));
+    }
+
+    @Test
+    @DisplayName("Sem tiros novos nada é emitido")
+    void nothingChangedEmitsNothing() throws IOException {
+        BoardRenderer.Viewer viewer = renderer.newViewer(1, 1);
+        render(viewer);
+
+        assertEquals("", render(viewer));
+    }
+
+    @Test
+    @DisplayName("Um tiro na água emite apenas essa célula")
+    void missEmitsSingleCell() throws IOException {
+        BoardRenderer.Viewer viewer = renderer.newViewer(1, 1);
+        render(viewer);
+
+        game.fire(new Position(0, 0));
+
+        assertEquals("\u001B[1;1Ho", render(viewer));
+        assertEquals(BoardRenderer.MISS, renderer.cellAt(0, 0));
+    }
+
+    @Test
+    @DisplayName("Afundar um navio redesenha todas as suas posições")
+    void sinkRedrawsWholeShip() throws IOException {
+        BoardRenderer.Viewer viewer = renderer.newViewer(1, 1);
+        render(viewer);
+
+        game.fire(new Position(2, 2));
+        assertEquals("\u001B[3;3HX", render(viewer));
+
+        game.fire(new Position(2, 3));
+        assertEquals("\u001B[3;3H##", render(viewer));
+        assertEquals(BoardRenderer.SUNK, renderer.cellAt(2, 2));
+        assertEquals(BoardRenderer.SUNK, renderer.cellAt(2, 3));
+    }
+
+    @Test
+    @DisplayName("Cada espectador recebe apenas o que ainda não viu")
+    void viewersAreIndependent() throws IOException {
+        BoardRenderer.Viewer early = renderer.newViewer(1, 1);
+        render(early);
+        game.fire(new Position(5, 5));
+        render(early);
+
+        BoardRenderer.Viewer late = renderer.newViewer(1, 1);
+        assertTrue(render(late).contains("\u001B[6;1H.....o...."));
+
+        game.fire(new Position(7, 7));
+        assertEquals("\u001B[8;8Ho", render(early));
+        assertEquals("\u001B[8;8Ho", render(late));
+    }
+
+    @Test
+    @DisplayName("Tiros repetidos e fora do tabuleiro não alteram o ecrã")
+    void repeatedAndOffBoardShotsAreIgnored() throws IOException {
+        BoardRenderer.Viewer viewer = renderer.newViewer(1, 1);
+        game.fire(new Position(4, 4));
+        render(viewer);
+
+        game.fire(new Position(4, 4));
+        game.fire(new Position(Fleet.BOARD_SIZE, Fleet.BOARD_SIZE));
+        game.fire(new Position(-1, 3));
+
+        assertEquals("", render(viewer));
+    }
+}
@@ -0,0 +1,93 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para a frota guardada em colunas")
+class ColumnarFleetTest {
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private static Ship randomShip(Random random) {
+        ShipType type = ShipType.values()[random.nextInt(ShipType.values().length)];
+        return type.build(BEARINGS[random.nextInt(BEARINGS.length)],
+                new Position(random.nextInt(12) - 1, random.nextInt(12) - 1));
+    }
+
+    @Test
+    @DisplayName("Aceita e recusa os mesmos navios que a Fleet")
+    void acceptsWhatFleetAccepts() {
+        Random random = new Random(42);
+        for (int f = 0; f < 100; f++) {
+            Fleet fleet = new Fleet();
+            ColumnarFleet columnar = new ColumnarFleet();
+            for (int i = 0; i < 60; i++) {
+                Ship s = randomShip(random);
+                assertEquals(fleet.addShip(s), columnar.addShip(s), s.toString());
+            }
+            assertEquals(fleet.getShips().size(), columnar.getShips().size());
+            for (int i = 0; i < fleet.getShips().size(); i++) {
+                IShip expected = fleet.getShips().get(i);
+                IShip actual = columnar.getShips().get(i);
+                assertEquals(expected.getCategory(), actual.getCategory());
+                assertEquals(expected.getPosition(), actual.getPosition());
+                assertEquals(expected.getBearing(), actual.getBearing());
+                assertEquals(new HashSet<>(expected.getPositions()), new HashSet<>(actual.getPositions()));
+                assertEquals(expected.getTopMostPos(), actual.getTopMostPos());
+                assertEquals(expected.getRightMostPos(), actual.getRightMostPos());
+            }
+            for (ShipType type : ShipType.values())
+                assertEquals(fleet.getShipsLike(type).size(), columnar.getShipsLike(type.getName()).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Um jogo sobre a frota em colunas corre como sobre a Fleet")
+    void gamesPlayAlike() {
+        Random random = new Random(7);
+        for (int g = 0; g < 50; g++) {
+            Fleet fleet = new FleetGenerator().generate(random);
+            ColumnarFleet columnar = ColumnarFleet.of(fleet);
+            Game expected = new Game(fleet);
+            Game actual = new Game(columnar);
+
+            for (int i = 0; i < 150; i++) {
+                Position p = new Position(random.nextInt(12) - 1, random.nextInt(12) - 1);
+                IShip a = expected.fire(p);
+                IShip b = actual.fire(p);
+                assertEquals(a == null, b == null);
+                if (a != null)
+                    assertEquals(a.getCategory(), b.getCategory());
+                assertEquals(fleet.shipAt(p) == null, columnar.shipAt(p) == null);
+            }
+            assertEquals(expected.getHits(), actual.getHits());
+            assertEquals(expected.getRemainingShips(), actual.getRemainingShips());
+            assertEquals(expected.getRemainingShips(), columnar.countFloating());
+            assertEquals(expected.getHash(), actual.getHash());
+        }
+    }
+
+    @Test
+    @DisplayName("As consultas em bloco contam navios e células por afundar")
+    void bulkQueries() {
+        ColumnarFleet fleet = ColumnarFleet.of(new FleetGenerator().generate(new Random(3)));
+        assertEquals(ShipType.standardFleetSize(), fleet.countFloating());
+        assertEquals(25, fleet.countRemainingCells());
+
+        IShip first = fleet.getShips().get(0);
+        for (IPosition p : first.getPositions())
+            first.shoot(p);
+        first.shoot(first.getPositions().get(0));
+        assertFalse(first.stillFloating());
+        assertTrue(first.getPositions().stream().allMatch(IPosition::isHit));
+        assertEquals(ShipType.standardFleetSize() - 1, fleet.countFloating());
+        assertEquals(25 - first.getSize(), fleet.countRemainingCells());
+        assertFalse(fleet.getFloatingShips().contains(first));
+        assertThrows(UnsupportedOperationException.class, () -> fleet.getShips().add(first));
+    }
+}
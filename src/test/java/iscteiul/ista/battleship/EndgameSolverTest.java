@@ -0,0 +1,112 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o solucionador exato de finais de jogo")
+class EndgameSolverTest {
+    private static final int SIZE = IFleet.BOARD_SIZE;
+
+    private static long[] allBut(int... cells) {
+        long[] mask = BoardMask.create(SIZE);
+        for (int cell = 0; cell < SIZE * SIZE; cell++)
+            BoardMask.set(mask, cell);
+        for (int cell : cells)
+            BoardMask.clear(mask, cell);
+        return mask;
+    }
+
+    private static long[] only(int... cells) {
+        long[] mask = BoardMask.create(SIZE);
+        for (int cell : cells)
+            BoardMask.set(mask, cell);
+        return mask;
+    }
+
+    // a budget no loaded test machine runs out of, for tests that need exact answers
+    private static EndgameSolver patient() {
+        return new EndgameSolver(SIZE, 10_000_000_000L, EndgameSolver.DEFAULT_MAX_LAYOUTS);
+    }
+
+    @Test
+    @DisplayName("Uma barca em três células leva em média dois tiros")
+    void bargeInThreeCells() {
+        EndgameSolver solver = patient();
+        int cell = solver.bestShot(allBut(0, 22, 99), BoardMask.create(SIZE), new ShipType[]{ShipType.BARCA});
+
+        assertTrue(cell == 0 || cell == 22 || cell == 99);
+        assertEquals(3, solver.getLayouts());
+        assertTrue(solver.isExact());
+        assertEquals(2.0, solver.getExpectedShots(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Com um acerto, dispara ao lado dele")
+    void firesNextToHit() {
+        EndgameSolver solver = patient();
+        int hit = 5 * SIZE + 5;
+        int cell = solver.bestShot(BoardMask.create(SIZE), only(hit), new ShipType[]{ShipType.FRAGATA});
+
+        assertEquals(8, solver.getLayouts());
+        assertTrue(solver.isExact());
+        assertTrue(cell == hit - 1 || cell == hit + 1 || cell == hit - SIZE || cell == hit + SIZE);
+    }
+
+    @Test
+    @DisplayName("Navios do mesmo tipo não são contados duas vezes")
+    void identicalShipsCountedOnce() {
+        EndgameSolver solver = new EndgameSolver();
+        solver.bestShot(allBut(0, 2, 4), BoardMask.create(SIZE), new ShipType[]{ShipType.BARCA, ShipType.BARCA});
+
+        assertEquals(3, solver.getLayouts());
+    }
+
+    @Test
+    @DisplayName("Sem disposições consistentes, não há tiro")
+    void noConsistentLayout() {
+        EndgameSolver solver = new EndgameSolver();
+
+        assertEquals(-1, solver.bestShot(allBut(0, 1), BoardMask.create(SIZE), new ShipType[]{ShipType.NAU}));
+        assertEquals(0, solver.getLayouts());
+    }
+
+    @Test
+    @DisplayName("Respeita o orçamento de tempo mesmo com a frota inteira")
+    void respectsTimeBudget() {
+        EndgameSolver solver = new EndgameSolver(SIZE, 5_000_000L, EndgameSolver.DEFAULT_MAX_LAYOUTS);
+        long start = System.nanoTime();
+        int cell = solver.bestShot(BoardMask.create(SIZE), BoardMask.create(SIZE), FleetGenerator.standardFleet());
+
+        assertFalse(solver.isExact());
+        assertTrue(Double.isNaN(solver.getExpectedShots()));
+        assertTrue(cell >= 0 && cell < SIZE * SIZE);
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+
+    @Test
+    @DisplayName("Orçamentos não positivos são rejeitados")
+    void invalidBudgets() {
+        assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(SIZE, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(SIZE, 10, 0));
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("O atirador com final exato afunda a frota sem repetir tiros")
+    void shooterWithEndgame() {
+        Random random = new Random();
+        Game game = new Game(new FleetGenerator().generate(random));
+        HuntTargetShooter shooter = new HuntTargetShooter(random, SIZE, new EndgameSolver(), 2);
+        shooter.newGame(FleetGenerator.standardFleet());
+
+        int shots = shooter.playOut(game);
+
+        assertEquals(0, game.getRemainingShips());
+        assertEquals(0, game.getRepeatedShots());
+        assertTrue(shots <= 100);
+    }
+}
@@ -0,0 +1,95 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o índice por categoria de Fleet")
+class FleetCategoryIndexTest {
+
+    private Fleet fleet;
+
+    @BeforeEach
+    void setUp() {
+        fleet = new Fleet();
+        fleet.addShip(new Galleon(Compass.NORTH, new Position(0, 0)));
+        fleet.addShip(new Caravel(Compass.EAST, new Position(0, 5)));
+        fleet.addShip(new Caravel(Compass.EAST, new Position(5, 5)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Consultas repetidas devolvem a mesma vista, sem alocar")
+    void queriesReturnCachedViews() {
+        List<IShip> caravels = fleet.getShipsLike("Caravela");
+
+        assertEquals(2, caravels.size());
+        assertSame(caravels, fleet.getShipsLike("Caravela"));
+        assertSame(caravels, fleet.getShipsLike(ShipType.CARAVELA));
+    }
+
+    @Test
+    @DisplayName("As vistas por categoria não podem ser alteradas")
+    void viewsAreReadOnly() {
+        List<IShip> galleons = fleet.getShipsLike("Galeao");
+
+        assertThrows(UnsupportedOperationException.class, () -> galleons.clear());
+    }
+
+    @Test
+    @DisplayName("As vistas acompanham os navios adicionados")
+    void viewsFollowAddedShips() {
+        List<IShip> barges = fleet.getShipsLike("Barca");
+        assertEquals(1, barges.size());
+
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(9, 9))));
+
+        assertEquals(2, barges.size());
+        assertEquals(List.of("Barca", "Barca"), List.of(barges.get(0).getCategory(), barges.get(1).getCategory()));
+    }
+
+    @Test
+    @DisplayName("O índice é reconstruído se a lista de navios mudar por fora")
+    void indexIsRebuiltWhenShipsChangeBehindItsBack() {
+        fleet.getShips().add(new Frigate(Compass.NORTH, new Position(3, 9)));
+
+        assertEquals(1, fleet.getShipsLike("Fragata").size());
+
+        fleet.getShips().clear();
+
+        assertTrue(fleet.getShipsLike("Fragata").isEmpty());
+        assertTrue(fleet.getShipsLike("Caravela").isEmpty());
+    }
+
+    @Test
+    @DisplayName("O índice é reconstruído se um navio for trocado por fora, mesmo sem mudar o tamanho")
+    void indexIsRebuiltWhenShipsAreReplacedBehindItsBack() {
+        IShip barge = new Barge(Compass.NORTH, new Position(9, 9));
+        fleet.getShips().set(3, barge);
+
+        assertNull(fleet.shipAt(new Position(9, 0)));
+        assertSame(barge, fleet.shipAt(new Position(9, 9)));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(9, 0))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(8, 9))));
+
+        IShip frigate = new Frigate(Compass.NORTH, new Position(3, 9));
+        fleet.getShips().remove(2);
+        fleet.getShips().add(frigate);
+
+        assertEquals(1, fleet.getShipsLike("Caravela").size());
+        assertEquals(List.of(frigate), fleet.getShipsLike("Fragata"));
+        assertNull(fleet.shipAt(new Position(5, 6)));
+        assertSame(frigate, fleet.shipAt(new Position(3, 9)));
+    }
+
+    @Test
+    @DisplayName("Categorias desconhecidas continuam a ser pesquisadas")
+    void unknownCategoriesAreScanned() {
+        assertTrue(fleet.getShipsLike("Submarino").isEmpty());
+        assertTrue(fleet.getShipsLike((String) null).isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o gerador de frotas aleatórias")
+class FleetGeneratorTest {
+
+    @Test
+    @DisplayName("A frota padrão tem onze navios")
+    void standardFleet() {
+        ShipType[] fleet = FleetGenerator.standardFleet();
+
+        assertEquals(11, fleet.length);
+        assertEquals(ShipType.standardFleetSize(), fleet.length);
+        assertEquals(IFleet.FLEET_SIZE + 1, fleet.length);
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("As frotas geradas respeitam as regras do jogo")
+    void generatedFleetsAreValid() {
+        Fleet fleet = new FleetGenerator().generate(new Random());
+        List<IShip> ships = fleet.getShips();
+
+        assertEquals(11, ships.size());
+        assertEquals(4, fleet.getShipsLike(ShipType.BARCA).size());
+        assertEquals(1, fleet.getShipsLike(ShipType.GALEAO).size());
+        for (int i = 0; i < ships.size(); i++) {
+            IShip s = ships.get(i);
+            assertTrue(s.getTopMostPos() >= 0 && s.getLeftMostPos() >= 0);
+            assertTrue(s.getBottomMostPos() < IFleet.BOARD_SIZE && s.getRightMostPos() < IFleet.BOARD_SIZE);
+            for (int j = i + 1; j < ships.size(); j++)
+                assertFalse(s.tooCloseTo(ships.get(j)));
+        }
+    }
+
+    @Test
+    @DisplayName("A mesma semente gera a mesma frota")
+    void deterministicWithSeed() {
+        Fleet a = new FleetGenerator().generate(new Random(42));
+        Fleet b = new FleetGenerator().generate(new Random(42));
+
+        assertEquals(a.getShips().toString(), b.getShips().toString());
+    }
+
+    @Test
+    @DisplayName("Uma frota que recusa os navios gerados é um erro, mesmo sem asserções")
+    void refusedShipsAreAnError() {
+        FleetGenerator generator = new FleetGenerator();
+        Fleet fleet = generator.generate(new Random(3));
+
+        assertThrows(IllegalStateException.class, () -> generator.addShipsTo(fleet));
+    }
+
+    @Test
+    @DisplayName("As máscaras da última frota ocupam as células dos navios")
+    void masksOfLastLayout() {
+        FleetGenerator generator = new FleetGenerator();
+        generator.place(new Random(7));
+
+        assertEquals(25, BoardMask.cardinality(generator.occupied()));
+        long[] union = BoardMask.create(IFleet.BOARD_SIZE);
+        for (int i = 0; i < generator.shipCount(); i++) {
+            assertFalse(generator.table(i).overlaps(generator.placement(i), union));
+            generator.table(i).addFootprint(generator.placement(i), union);
+        }
+        assertArrayEquals(generator.occupied(), union);
+        assertEquals(ShipType.GALEAO, generator.type(0));
+    }
+
+    @Test
+    @DisplayName("Frotas que não cabem no tabuleiro são recusadas")
+    void impossibleFleets() {
+        FleetGenerator tooMany = new FleetGenerator(new ShipType[]{ShipType.GALEAO, ShipType.GALEAO}, 4);
+        assertThrows(IllegalStateException.class, () -> tooMany.place(new Random(1)));
+
+        FleetGenerator otherBoard = new FleetGenerator(new ShipType[]{ShipType.BARCA}, 20);
+        assertThrows(IllegalStateException.class, () -> otherBoard.generate(new Random(1)));
+    }
+
+    @RepeatedTest(5)
+    @DisplayName("A validação por máscaras de Fleet concorda com a validação posição a posição")
+    void maskValidationAgreesWithPositions() {
+        Random random = new Random();
+        Fleet fleet = new Fleet();
+        for (int n = 0; n < 300 && fleet.getShips().size() <= IFleet.FLEET_SIZE; n++) {
+            ShipType type = ShipType.values()[random.nextInt(ShipType.values().length)];
+            Compass bearing = Compass.values()[random.nextInt(4)];
+            Ship ship = type.build(bearing, new Position(random.nextInt(14) - 2, random.nextInt(14) - 2));
+
+            boolean inside = ship.getTopMostPos() >= 0 && ship.getLeftMostPos() >= 0
+                    && ship.getBottomMostPos() < IFleet.BOARD_SIZE && ship.getRightMostPos() < IFleet.BOARD_SIZE;
+            boolean clash = false;
+            for (IShip other : fleet.getShips())
+                clash |= other.tooCloseTo(ship);
+
+            assertEquals(inside && !clash, fleet.addShip(ship), ship::toString);
+        }
+    }
+}
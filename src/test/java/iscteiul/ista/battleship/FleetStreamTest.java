@@ -0,0 +1,93 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as consultas preguiçosas sobre a frota")
+class FleetStreamTest {
+
+    private static Set<IShip> near(IFleet fleet, IPosition pos, int distance) {
+        Set<IShip> near = new HashSet<>();
+        for (IShip s : fleet.getShips())
+            for (IPosition p : s.getPositions())
+                if (Math.abs(p.getRow() - pos.getRow()) <= distance
+                        && Math.abs(p.getColumn() - pos.getColumn()) <= distance)
+                    near.add(s);
+        return near;
+    }
+
+    private static void assertStreamsMatchLists(IFleet fleet, Random random) {
+        assertEquals(fleet.getShips(), fleet.ships().collect(Collectors.toList()));
+        assertEquals(fleet.getFloatingShips(), fleet.floatingShips().collect(Collectors.toList()));
+        for (ShipType type : ShipType.values())
+            assertEquals(new HashSet<>(fleet.getShipsLike(type.getName())),
+                    fleet.shipsLike(type).collect(Collectors.toSet()));
+
+        for (int i = 0; i < 100; i++) {
+            Position pos = new Position(random.nextInt(14) - 2, random.nextInt(14) - 2);
+            int distance = random.nextInt(4);
+            List<IShip> found = fleet.shipsNear(pos, distance).collect(Collectors.toList());
+            assertEquals(near(fleet, pos, distance), new HashSet<>(found), pos + " " + distance);
+            assertEquals(new HashSet<>(found).size(), found.size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> fleet.shipsNear(new Position(0, 0), -1));
+    }
+
+    @Test
+    @DisplayName("As consultas preguiçosas dão o mesmo que as listas, em qualquer frota")
+    void streamsMatchLists() {
+        Random random = new Random(44);
+        for (int f = 0; f < 20; f++) {
+            Fleet fleet = new FleetGenerator().generate(random);
+            Game game = new Game(fleet);
+            for (int i = 0; i < 40; i++)
+                game.fire(new Position(random.nextInt(10), random.nextInt(10)));
+
+            assertStreamsMatchLists(fleet, random);
+            assertStreamsMatchLists(new Metrics().instrument(fleet), random);
+            ColumnarFleet columnar = ColumnarFleet.of(fleet);
+            assertStreamsMatchLists(columnar, random);
+        }
+    }
+
+    @Test
+    @DisplayName("Uma frota com navios fora do tabuleiro responde sem o índice")
+    void shipsOffTheBoard() {
+        Fleet fleet = new Fleet();
+        fleet.getShips().add(new Frigate(Compass.EAST, new Position(0, 8)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+
+        assertEquals(List.of(fleet.getShips().get(0)), fleet.shipsNear(new Position(0, 11), 0)
+                .collect(Collectors.toList()));
+        assertEquals(2, fleet.shipsNear(new Position(3, 7), 3).count());
+    }
+
+    @Test
+    @DisplayName("As consultas param ao primeiro navio que basta")
+    void queriesShortCircuit() {
+        Fleet fleet = new FleetGenerator().generate(new Random(5));
+        AtomicInteger seen = new AtomicInteger();
+
+        IShip galleon = fleet.shipsLike(ShipType.GALEAO).peek(s -> seen.incrementAndGet())
+                .filter(IShip::stillFloating).findFirst().orElseThrow();
+        assertEquals("Galeao", galleon.getCategory());
+        assertEquals(1, seen.get());
+
+        seen.set(0);
+        assertTrue(fleet.floatingShips().peek(s -> seen.incrementAndGet()).anyMatch(s -> true));
+        assertEquals(1, seen.get());
+
+        IPosition cell = galleon.getPositions().get(0);
+        assertEquals(galleon, fleet.shipsNear(cell, 0).findFirst().orElseThrow());
+        assertEquals(fleet.shipAt(cell), fleet.shipsNear(cell, 0).findAny().orElse(null));
+    }
+}
@@ -0,0 +1,143 @@
+package iscteiul.ista.battleship;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para os eventos do Java Flight Recorder")
+class GameEventsTest {
+
+    /*
+     * Eleven barges, one of which is first refused for touching another, and a
+     * ship of an unknown kind
+     */
+    private static final String FLEET = "barca 0 0 n\nbarca 0 1 n\nsubmarino 5 5 n\n"
+            + "barca 2 0 n\nbarca 4 0 n\nbarca 6 0 n\nbarca 8 0 n\n"
+            + "barca 0 2 n\nbarca 2 2 n\nbarca 4 2 n\nbarca 6 2 n\nbarca 8 2 n\nbarca 0 4 n\n";
+
+    private static final String SHOTS = "0 0\n2 0\n4 0\n6 0\n8 0\n0 2\n2 2\n4 2\n6 2\n8 2\n0 4\n9 9\n";
+
+    private static List<RecordedEvent> recorded(Recording recording, Runnable play) throws IOException {
+        Path file = Files.createTempFile("battleship", ".jfr");
+        try (recording) {
+            recording.start();
+            play.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    private static void play() {
+        Fleet fleet = Tasks.buildFleet(new Scanner(FLEET));
+        Game game = new Game(fleet);
+        Scanner shots = new Scanner(SHOTS);
+        for (int round = 0; round < 4; round++)
+            Tasks.firingRound(shots, game);
+    }
+
+    @Test
+    @DisplayName("As definições incluídas registam o ciclo de vida do jogo")
+    void bundledSettingsRecordTheGame() throws IOException {
+        List<RecordedEvent> events = recorded(new Recording(GameEvents.configuration()), GameEventsTest::play);
+
+        List<RecordedEvent> built = named(events, "battleship.FleetBuilt");
+        assertEquals(1, built.size());
+        assertEquals(11, built.get(0).getInt("added"));
+        assertEquals(1, built.get(0).getInt("rejected"));
+        assertEquals(1, built.get(0).getInt("unknown"));
+
+        List<RecordedEvent> created = named(events, "battleship.GameCreated");
+        assertEquals(1, created.size());
+        assertEquals(11, created.get(0).getInt("ships"));
+
+        List<RecordedEvent> volleys = named(events, "battleship.Volley");
+        assertEquals(4, volleys.size());
+        assertEquals(11, volleys.stream().mapToInt(e -> e.getInt("hits")).sum());
+        assertEquals(11, volleys.stream().mapToInt(e -> e.getInt("sinks")).sum());
+
+        assertEquals(11, named(events, "battleship.ShipSunk").size());
+        assertEquals("Barca", named(events, "battleship.ShipSunk").get(0).getString("category"));
+        List<RecordedEvent> ended = named(events, "battleship.GameEnded");
+        assertEquals(1, ended.size());
+        assertEquals(11, ended.get(0).getInt("shots"));
+    }
+
+    @Test
+    @DisplayName("Uma rajada fora de tempo regista só os tiros disparados")
+    void lateShotsAreNotCountedAsFired() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(GameEvents.Volley.class);
+        List<RecordedEvent> events = recorded(recording, () -> {
+            MoveTimer timer = new MoveTimer(MoveTimer.UNLIMITED, 1);
+            timer.stop(timer.start() - 10);
+            Tasks.firingRound(new Scanner("1 1\n2 2\n3 3\n"), new Game(new Fleet()), timer);
+        });
+
+        List<RecordedEvent> volleys = named(events, "battleship.Volley");
+        assertEquals(1, volleys.size());
+        assertEquals(0, volleys.get(0).getInt("shots"));
+        assertEquals(3, volleys.get(0).getInt("late"));
+    }
+
+    @Test
+    @DisplayName("A amostragem guarda um evento em cada tantos")
+    void samplingThinsOutVolleys() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(GameEvents.Volley.class).with(GameEvents.SAMPLING, "2");
+        List<RecordedEvent> events = recorded(recording, () -> {
+            Game game = new Game(new Fleet());
+            Scanner shots = new Scanner("1 1\n".repeat(30));
+            for (int round = 0; round < 10; round++)
+                Tasks.firingRound(shots, game);
+        });
+
+        assertEquals(5, named(events, "battleship.Volley").size());
+    }
+
+    @Test
+    @DisplayName("Os tiros só são registados quando pedidos")
+    void shotsAreOptIn() throws IOException {
+        Recording recording = new Recording();
+        recording.enable(GameEvents.ShipSunk.class);
+        List<RecordedEvent> quiet = recorded(recording, GameEventsTest::play);
+        assertTrue(named(quiet, "battleship.Shot").isEmpty());
+        assertEquals(11, named(quiet, "battleship.ShipSunk").size());
+
+        Recording shots = new Recording();
+        shots.enable(GameEvents.Shot.class).with(GameEvents.SAMPLING, "1");
+        List<RecordedEvent> loud = recorded(shots, GameEventsTest::play);
+        List<RecordedEvent> fired = named(loud, "battleship.Shot");
+        assertEquals(12, fired.size());
+        assertEquals(11, fired.stream().filter(e -> e.getBoolean("hit")).count());
+    }
+
+    @Test
+    @DisplayName("As definições incluídas também registam as pausas da JVM")
+    void bundledSettingsCoverPauses() throws IOException {
+        Configuration configuration = GameEvents.configuration();
+
+        assertEquals("Battleship", configuration.getLabel());
+        assertEquals("true", configuration.getSettings().get("jdk.GarbageCollection#enabled"));
+        assertEquals("true", configuration.getSettings().get("jdk.SafepointBegin#enabled"));
+        assertEquals("100", configuration.getSettings().get("battleship.Shot#" + GameEvents.SAMPLING));
+    }
+}
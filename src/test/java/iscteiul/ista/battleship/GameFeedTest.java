@@ -0,0 +1,178 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o fluxo de eventos dos jogos")
+class GameFeedTest {
+
+    /*
+     * A subscriber that asks for a given number of batches, keeping them
+     */
+    private static final class Collector implements Flow.Subscriber<List<GameFeed.Event>> {
+        private final long demand;
+        private final List<List<GameFeed.Event>> batches = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private Collector(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onNext(List<GameFeed.Event> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        private List<GameFeed.Event> events() {
+            List<GameFeed.Event> events = new ArrayList<>();
+            for (List<GameFeed.Event> batch : batches)
+                events.addAll(batch);
+            return events;
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Cada tiro dá um evento do tipo certo, publicado em lotes")
+    void everyShotBecomesAnEvent() throws InterruptedException {
+        GameFeed feed = new GameFeed(8, 1024);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        feed.subscribe(collector);
+        assertEquals(1, feed.getSubscribers());
+
+        Game plain = new Game(new FleetGenerator().generate(new Random(9)));
+        IGame game = feed.instrument(new Game(new FleetGenerator().generate(new Random(9))));
+        List<GameFeed.Kind> expected = new ArrayList<>();
+        Random random = new Random(10);
+        while (plain.getRemainingShips() > 0) {
+            Position pos = new Position(random.nextInt(12) - 1, random.nextInt(12) - 1);
+            int hits = plain.getHits(), invalid = plain.getInvalidShots(), repeated = plain.getRepeatedShots();
+            IShip sunk = plain.fire(pos);
+            assertEquals(sunk == null, game.fire(pos) == null);
+            if (sunk != null)
+                expected.add(GameFeed.Kind.SINK);
+            else if (plain.getHits() > hits)
+                expected.add(GameFeed.Kind.HIT);
+            else if (plain.getInvalidShots() > invalid)
+                expected.add(GameFeed.Kind.INVALID);
+            else if (plain.getRepeatedShots() > repeated)
+                expected.add(GameFeed.Kind.REPEAT);
+            else
+                expected.add(GameFeed.Kind.MISS);
+        }
+        expected.add(GameFeed.Kind.GAME_OVER);
+        feed.close();
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+
+        List<GameFeed.Event> events = collector.events();
+        assertEquals(expected.size(), events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(expected.get(i), events.get(i).getKind());
+            assertEquals(i + 1, events.get(i).getSequence());
+            assertEquals(events.get(i).getKind() == GameFeed.Kind.SINK, events.get(i).getCategory() != null);
+        }
+        for (int i = 0; i < collector.batches.size() - 1; i++)
+            assertEquals(8, collector.batches.get(i).size());
+        assertEquals(0, feed.getDropped());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Os eventos de jogos intercalados dizem de que jogo são e que tiro foram nele")
+    void interleavedGamesAreToldApart() throws InterruptedException {
+        GameFeed feed = new GameFeed(5, 1024);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        feed.subscribe(collector);
+
+        Game[] plain = new Game[2];
+        IGame[] games = new IGame[2];
+        for (int g = 0; g < 2; g++) {
+            plain[g] = new Game(new FleetGenerator().generate(new Random(20 + g)));
+            games[g] = feed.instrument(new Game(new FleetGenerator().generate(new Random(20 + g))));
+        }
+        List<int[]> expected = new ArrayList<>();
+        int[] shots = new int[2];
+        Random random = new Random(22);
+        while (plain[0].getRemainingShips() > 0 || plain[1].getRemainingShips() > 0) {
+            int g = plain[0].getRemainingShips() == 0 ? 1 : plain[1].getRemainingShips() == 0 ? 0 : random.nextInt(2);
+            Position pos = new Position(random.nextInt(Fleet.BOARD_SIZE), random.nextInt(Fleet.BOARD_SIZE));
+            plain[g].fire(pos);
+            games[g].fire(pos);
+            expected.add(new int[]{g, shots[g]++, pos.getRow(), pos.getColumn()});
+            if (plain[g].getRemainingShips() == 0)
+                expected.add(new int[]{g, shots[g]++, pos.getRow(), pos.getColumn()});
+        }
+        feed.close();
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+
+        List<GameFeed.Event> events = collector.events();
+        assertEquals(expected.size(), events.size());
+        for (int i = 0; i < events.size(); i++) {
+            GameFeed.Event event = events.get(i);
+            assertEquals(i + 1, event.getSequence());
+            assertEquals(expected.get(i)[0], event.getGame());
+            assertEquals(expected.get(i)[1], event.getShot());
+            assertEquals(expected.get(i)[2], event.getRow());
+            assertEquals(expected.get(i)[3], event.getColumn());
+        }
+        long over = events.stream().filter(e -> e.getKind() == GameFeed.Kind.GAME_OVER).count();
+        assertEquals(2, over);
+        for (GameFeed.Event event : events)
+            if (event.getKind() == GameFeed.Kind.GAME_OVER)
+                assertEquals(shots[event.getGame()] - 1, event.getShot());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Um subscritor que não pede mais perde lotes sem atrasar os outros")
+    void slowSubscriberLosesBatches() throws InterruptedException {
+        GameFeed feed = new GameFeed(1, 4);
+        Collector slow = new Collector(1);
+        Collector fast = new Collector(Long.MAX_VALUE);
+        feed.subscribe(slow);
+        feed.subscribe(fast);
+
+        IGame game = feed.instrument(new Game(new FleetGenerator().generate(new Random(11))));
+        for (int r = 0; r < Fleet.BOARD_SIZE; r++)
+            for (int c = 0; c < Fleet.BOARD_SIZE; c++)
+                game.fire(new Position(r, c));
+        feed.close();
+
+        assertTrue(fast.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, slow.batches.size());
+        assertTrue(feed.getDropped() > 0);
+        // the fast one may lose a batch too, on a busy machine, but never out of order
+        List<GameFeed.Event> events = fast.events();
+        assertTrue(events.size() > slow.batches.size());
+        for (int i = 1; i < events.size(); i++)
+            assertTrue(events.get(i).getSequence() > events.get(i - 1).getSequence());
+        assertTrue(events.size() + feed.getDropped() >= Fleet.BOARD_SIZE * Fleet.BOARD_SIZE + 1);
+        assertThrows(IllegalArgumentException.class, () -> new GameFeed(0, 1));
+    }
+}
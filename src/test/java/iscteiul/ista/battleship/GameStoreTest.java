@@ -0,0 +1,99 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o armazém de jogos fora do heap")
+class GameStoreTest {
+
+    @Test
+    @DisplayName("Um jogo guardado joga-se como um Game")
+    void storedGamesPlayLikeGames() {
+        GameStore store = new GameStore(50);
+        Random random = new Random(41);
+        for (int g = 0; g < 50; g++) {
+            IFleet fleet = new FleetGenerator().generate(random);
+            IGame stored = store.game(store.create(fleet));
+            Game game = new Game(fleet);
+
+            for (int i = 0; i < 200; i++) {
+                Position p = new Position(random.nextInt(13) - 1, random.nextInt(13) - 1);
+                IShip expected = game.fire(p);
+                IShip actual = stored.fire(p);
+                if (expected == null)
+                    assertNull(actual);
+                else {
+                    assertEquals(expected.getCategory(), actual.getCategory());
+                    assertEquals(new HashSet<>(expected.getPositions()), new HashSet<>(actual.getPositions()));
+                    assertFalse(actual.stillFloating());
+                }
+            }
+            assertEquals(game.getHits(), stored.getHits());
+            assertEquals(game.getSunkShips(), stored.getSunkShips());
+            assertEquals(game.getInvalidShots(), stored.getInvalidShots());
+            assertEquals(game.getRepeatedShots(), stored.getRepeatedShots());
+            assertEquals(game.getRemainingShips(), stored.getRemainingShips());
+            assertEquals(new HashSet<>(game.getShots()), new HashSet<>(stored.getShots()));
+        }
+        assertEquals(50, store.size());
+    }
+
+    @Test
+    @DisplayName("Os lugares libertados são reutilizados e um armazém cheio recusa jogos")
+    void slotsAreReused() {
+        GameStore store = new GameStore(3);
+        IFleet fleet = new FleetGenerator().generate(new Random(1));
+        int a = store.create(fleet);
+        int b = store.create(fleet);
+        int c = store.create(fleet);
+        assertEquals(3, new HashSet<>(List.of(a, b, c)).size());
+        assertThrows(IllegalStateException.class, () -> store.create(fleet));
+
+        store.game(b).fire(new Position(0, 0));
+        store.release(b);
+        assertEquals(2, store.size());
+        assertThrows(IllegalArgumentException.class, () -> store.game(b));
+        assertThrows(IllegalArgumentException.class, () -> store.release(b));
+
+        int d = store.create(fleet);
+        assertEquals(b, d);
+        IGame fresh = store.game(d);
+        assertEquals(0, fresh.getShots().size());
+        assertEquals(ShipType.standardFleetSize(), fresh.getRemainingShips());
+        assertEquals(3L * GameStore.SLOT_BYTES, store.getAllocatedBytes());
+    }
+
+    @Test
+    @DisplayName("Pedidos inválidos são recusados")
+    void invalidRequests() {
+        assertThrows(IllegalArgumentException.class, () -> new GameStore(0));
+        GameStore store = new GameStore(1);
+        assertThrows(NullPointerException.class, () -> store.create(null));
+        assertThrows(IllegalArgumentException.class, () -> store.game(-1));
+        assertThrows(IllegalArgumentException.class, () -> store.game(0));
+        assertEquals(0, store.getAllocatedBytes());
+    }
+
+    @Test
+    @DisplayName("As vistas de um jogo partilham o seu estado")
+    void viewsShareTheSlot() {
+        GameStore store = new GameStore(2);
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, new Position(3, 3)));
+        int slot = store.create(fleet);
+
+        assertNull(store.game(slot).fire(new Position(3, 3)));
+        IShip sunk = store.game(slot).fire(new Position(3, 4));
+        assertNotNull(sunk);
+        assertEquals("Caravela", sunk.getCategory());
+        assertEquals(Compass.EAST, sunk.getBearing());
+        assertEquals(0, store.game(slot).getRemainingShips());
+        assertEquals(2, store.game(slot).getHits());
+    }
+}
@@ -0,0 +1,178 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para os mapas de calor de um corpus de jogos")
+class HeatmapsTest {
+
+    private static List<GameRecord> corpus(int games, long seed) {
+        Random random = new Random(seed);
+        FleetGenerator generator = new FleetGenerator();
+        HuntTargetShooter shooter = new HuntTargetShooter(random);
+        List<GameRecord> records = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            Fleet fleet = generator.generate(random);
+            Game game = new Game(fleet);
+            shooter.newGame(FleetGenerator.standardFleet());
+            shooter.playOut(game);
+            records.add(GameRecord.of(fleet, game.getShots()));
+        }
+        return records;
+    }
+
+    private static long sum(long[] counts) {
+        return Arrays.stream(counts).sum();
+    }
+
+    @Test
+    @DisplayName("Os contadores somam os tiros, os acertos e as células dos navios")
+    void countersAddUp() {
+        List<GameRecord> records = corpus(50, 1);
+        Heatmaps heatmaps = records.stream().collect(Heatmaps.collector(Fleet.BOARD_SIZE));
+
+        long shots = records.stream().mapToLong(GameRecord::shotCount).sum();
+        long shipCells = 0;
+        for (ShipType type : ShipType.values())
+            shipCells += (long) type.getSize() * type.getFleetCount();
+
+        assertEquals(50, heatmaps.getGames());
+        assertEquals(shots, heatmaps.getShotCount());
+        long fired = 0;
+        long hits = 0;
+        for (GamePhase phase : GamePhase.values()) {
+            fired += sum(heatmaps.getShots(phase));
+            hits += sum(heatmaps.getHits(phase));
+        }
+        assertEquals(shots, fired);
+        assertEquals(50 * shipCells, hits);
+        for (ShipType type : ShipType.values())
+            assertEquals(50L * type.getSize() * type.getFleetCount(), sum(heatmaps.getOccupancy(type)));
+    }
+
+    @Test
+    @DisplayName("Cada tiro é contado na fase do jogo em que foi disparado")
+    void shotsCountedByPhase() {
+        int[] cells = new int[100];
+        cells[0] = 1;
+        cells[10] = 2;
+        cells[20] = 3;
+        ShipType[] ships = {ShipType.BARCA, ShipType.BARCA, ShipType.BARCA};
+        Heatmaps heatmaps = new Heatmaps(10);
+        heatmaps.add(new GameRecord(10, ships, cells, new int[]{5, 0, 6, 10, 7, 20}));
+
+        assertEquals(2, sum(heatmaps.getShots(GamePhase.OPENING)));
+        assertEquals(0, sum(heatmaps.getShots(GamePhase.MIDDLE)));
+        assertEquals(4, sum(heatmaps.getShots(GamePhase.ENDGAME)));
+        assertEquals(1, heatmaps.getHits(GamePhase.OPENING)[0]);
+        assertEquals(1, heatmaps.getShots(GamePhase.ENDGAME)[6]);
+    }
+
+    @Test
+    @DisplayName("A análise em paralelo dá os mesmos mapas que a sequencial")
+    void parallelMatchesSequential() {
+        List<GameRecord> records = corpus(200, 2);
+        Heatmaps sequential = records.stream().collect(Heatmaps.collector(Fleet.BOARD_SIZE));
+        Heatmaps parallel = Heatmaps.analyze(records.stream(), Fleet.BOARD_SIZE, 4);
+
+        assertEquals(sequential.getShotCount(), parallel.getShotCount());
+        for (GamePhase phase : GamePhase.values()) {
+            assertArrayEquals(sequential.getShots(phase), parallel.getShots(phase));
+            assertArrayEquals(sequential.getHits(phase), parallel.getHits(phase));
+        }
+        for (ShipType type : ShipType.values())
+            assertArrayEquals(sequential.getOccupancy(type), parallel.getOccupancy(type));
+    }
+
+    @Test
+    @DisplayName("Os registos escritos num fluxo são lidos de volta iguais")
+    void recordsRoundTrip() throws IOException {
+        List<GameRecord> records = corpus(20, 3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (GameRecord r : records)
+                r.write(out);
+        }
+
+        List<GameRecord> read = GameRecord.stream(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+                .collect(Collectors.toList());
+        assertEquals(records.size(), read.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).shotCount(), read.get(i).shotCount());
+            for (int s = 0; s < records.get(i).shotCount(); s++)
+                assertEquals(records.get(i).shot(s), read.get(i).shot(s));
+            for (int cell = 0; cell < 100; cell++)
+                assertEquals(records.get(i).shipAt(cell), read.get(i).shipAt(cell));
+        }
+    }
+
+    @Test
+    @DisplayName("O desenho vai da célula mais fria à mais quente")
+    void renderShadesCells() {
+        Heatmaps heatmaps = new Heatmaps(2);
+        String drawing = heatmaps.render(new long[]{0, 5, 10, 10});
+
+        assertEquals(" =\n@@\n", drawing);
+        assertEquals("  \n  \n", heatmaps.render(new long[4]));
+    }
+
+    @Test
+    @DisplayName("Registos de tabuleiros com mais de 65536 células são lidos de volta iguais")
+    void largeBoardsRoundTrip() throws IOException {
+        int size = 300;
+        int[] cells = new int[size * size];
+        cells[size * size - 1] = 1;
+        int[] shots = {size * size - 1, 70_000, 65_536, 65_535, 5};
+        GameRecord record = new GameRecord(size, new ShipType[]{ShipType.BARCA}, cells, shots);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            record.write(out);
+        }
+        GameRecord read = GameRecord.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(size, read.getBoardSize());
+        assertEquals(shots.length, read.shotCount());
+        for (int i = 0; i < shots.length; i++)
+            assertEquals(shots[i], read.shot(i));
+        assertEquals(1, read.shipAt(size * size - 1));
+    }
+
+    @Test
+    @DisplayName("Registos inválidos são rejeitados")
+    void invalidRecords() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(10, new ShipType[0], new int[99], new int[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(10, new ShipType[0], new int[100], new int[]{100}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Heatmaps(10).add(new GameRecord(2, new ShipType[0], new int[4], new int[0])));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(10, new ShipType[0], new int[100], new int[]{5, 6, 5}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(10, new ShipType[]{null}, new int[100], new int[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(65_536, new ShipType[0], new int[0], new int[0]));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new GameRecord(10, new ShipType[0], new int[100], new int[]{5, 6}).write(out);
+        }
+        byte[] repeated = bytes.toByteArray();
+        repeated[repeated.length - 1] = 5;
+        assertThrows(IOException.class, () -> GameRecord.read(new DataInputStream(new ByteArrayInputStream(repeated))));
+    }
+}
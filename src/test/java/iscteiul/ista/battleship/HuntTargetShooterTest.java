@@ -0,0 +1,105 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o atirador de caça e alvo")
+class HuntTargetShooterTest {
+
+    @RepeatedTest(20)
+    @DisplayName("Afunda a frota padrão sem tiros repetidos nem inválidos")
+    void sinksStandardFleet() {
+        Random random = new Random();
+        Game game = new Game(new FleetGenerator().generate(random));
+        HuntTargetShooter shooter = new HuntTargetShooter(random);
+        shooter.newGame(FleetGenerator.standardFleet());
+
+        int shots = shooter.playOut(game);
+
+        assertEquals(0, game.getRemainingShips());
+        assertEquals(11, game.getSunkShips());
+        assertEquals(25, game.getHits());
+        assertEquals(0, game.getRepeatedShots());
+        assertEquals(0, game.getInvalidShots());
+        assertEquals(shots, game.getShots().size());
+        assertTrue(shots <= 100);
+    }
+
+    @Test
+    @DisplayName("Precisa, em média, de bem menos tiros do que ao acaso")
+    void fewerShotsThanRandom() {
+        Random random = new Random(2024);
+        FleetGenerator generator = new FleetGenerator();
+        HuntTargetShooter shooter = new HuntTargetShooter(random);
+        int games = 200;
+        int total = 0;
+        for (int g = 0; g < games; g++) {
+            Game game = new Game(generator.generate(random));
+            shooter.newGame(FleetGenerator.standardFleet());
+            total += shooter.playOut(game);
+        }
+
+        assertTrue(total / games < 80, "média de " + total / games + " tiros");
+    }
+
+    @Test
+    @DisplayName("Caça na rede de paridade do navio mais curto ainda a flutuar")
+    void huntsOnParityLattice() {
+        Fleet fleet = new Fleet();
+        assertTrue(fleet.addShip(new Frigate(Compass.EAST, new Position(9, 6))));
+        Game game = new Game(fleet);
+        HuntTargetShooter shooter = new HuntTargetShooter(new Random(1));
+        shooter.newGame(new ShipType[]{ShipType.FRAGATA});
+
+        assertEquals(4, shooter.getStep());
+        while (game.getHits() == 0)
+            shooter.fire(game);
+
+        IPosition first = game.getShots().get(0);
+        int phase = (first.getRow() + first.getColumn()) % 4;
+        for (IPosition shot : game.getShots())
+            assertEquals(phase, (shot.getRow() + shot.getColumn()) % 4);
+
+        shooter.playOut(game);
+        assertEquals(1, game.getSunkShips());
+        assertTrue(shooter.isDone());
+    }
+
+    @Test
+    @DisplayName("A rede estreita quando os navios mais curtos são afundados")
+    void latticeFollowsFloatingShips() {
+        Fleet fleet = new Fleet();
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+        assertTrue(fleet.addShip(new Carrack(Compass.SOUTH, new Position(5, 5))));
+        Game game = new Game(fleet);
+        HuntTargetShooter shooter = new HuntTargetShooter(new Random(3));
+        shooter.newGame(new ShipType[]{ShipType.BARCA, ShipType.NAU});
+
+        assertEquals(1, shooter.getStep());
+        while (game.getSunkShips() == 0)
+            shooter.fire(game);
+        if (game.getHits() == 1)
+            assertEquals(3, shooter.getStep());
+
+        shooter.playOut(game);
+        assertEquals(2, game.getSunkShips());
+    }
+
+    @Test
+    @DisplayName("Sem navios por encontrar, esgota o tabuleiro e para")
+    void stopsWhenBoardIsExhausted() {
+        Game game = new Game(new Fleet());
+        HuntTargetShooter shooter = new HuntTargetShooter(new Random(5));
+        shooter.newGame(new ShipType[]{ShipType.BARCA});
+
+        assertEquals(100, shooter.playOut(game));
+        assertEquals(0, game.getRepeatedShots());
+        assertTrue(shooter.isDone());
+        assertThrows(IllegalStateException.class, () -> shooter.fire(game));
+    }
+}
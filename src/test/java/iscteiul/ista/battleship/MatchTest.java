@@ -0,0 +1,194 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para os jogos entre dois jogadores")
+class MatchTest {
+
+    @Test
+    @DisplayName("Os jogadores alternam e os espectadores veem cada tiro, acerto, afundamento e vitória")
+    void spectatorsSeeTheWholeMatch() {
+        Match match = new Match(new FleetGenerator().generate(new Random(1)),
+                new FleetGenerator().generate(new Random(2)));
+        List<MatchEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Match.Subscription subscription = match.subscribe(100_000, events::add);
+
+        int winner = match.play(new HuntTargetShooter(new Random(3)), new HuntTargetShooter(new Random(4)));
+        match.close();
+
+        assertTrue(match.isOver());
+        assertEquals(winner, match.getWinner());
+        assertEquals(winner, match.getTurn());
+        assertEquals(0, match.getGameAgainst(1 - winner).getRemainingShips());
+        assertTrue(match.getGameAgainst(winner).getRemainingShips() > 0);
+        assertEquals(0, subscription.getDropped());
+        assertEquals(events.size(), subscription.getDelivered());
+
+        int fires = 0, hits = 0, sinks = 0;
+        int[] shotsBy = new int[2];
+        for (MatchEvent e : events)
+            switch (e.getKind()) {
+                case FIRE:
+                    fires++;
+                    assertEquals(fires, e.getTurn());
+                    shotsBy[e.getPlayer()]++;
+                    break;
+                case HIT:
+                    hits++;
+                    assertNotNull(e.getCategory());
+                    break;
+                case SINK:
+                    sinks++;
+                    break;
+                default:
+                    assertEquals(winner, e.getPlayer());
+                    assertSame(e, events.get(events.size() - 1));
+            }
+        assertTrue(Math.abs(shotsBy[0] - shotsBy[1]) <= 1);
+        assertEquals(match.getGameAgainst(0).getHits() + match.getGameAgainst(1).getHits(), hits);
+        assertEquals(match.getGameAgainst(0).getSunkShips() + match.getGameAgainst(1).getSunkShips(), sinks);
+        assertEquals(match.getGameAgainst(0).getShots().size() + match.getGameAgainst(1).getShots().size()
+                + match.getGameAgainst(0).getRepeatedShots() + match.getGameAgainst(1).getRepeatedShots(), fires);
+        assertThrows(IllegalStateException.class, () -> match.fire(new Position(0, 0)));
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Um espectador parado não atrasa o jogo: os eventos a mais perdem-se")
+    void stalledSpectatorDropsEvents() throws InterruptedException {
+        Match match = new Match(new FleetGenerator().generate(new Random(5)),
+                new FleetGenerator().generate(new Random(6)));
+        CountDownLatch release = new CountDownLatch(1);
+        Match.Subscription stalled = match.subscribe(4, e -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<MatchEvent> seen = Collections.synchronizedList(new ArrayList<>());
+        Match.Subscription fast = match.subscribe(100_000, seen::add);
+
+        match.play(new RandomShooter(new Random(7)), new RandomShooter(new Random(8)));
+        assertTrue(match.isOver());
+        assertTrue(stalled.getDropped() > 0);
+        assertEquals(0, fast.getDropped());
+
+        release.countDown();
+        match.close();
+        // one event in the hands of the spectator, and a full queue behind it
+        assertTrue(stalled.getDelivered() <= 5);
+        assertEquals(seen.size(), stalled.getDelivered() + stalled.getDropped());
+    }
+
+    @Test
+    @Timeout(10)
+    @DisplayName("Um espectador parado à espera de eventos sai logo, e pode sair por si mesmo")
+    void idleAndSelfClosingSpectatorsStop() throws InterruptedException {
+        Match match = new Match(new FleetGenerator().generate(new Random(9)),
+                new FleetGenerator().generate(new Random(10)));
+        Match.Subscription idle = match.subscribe(10, e -> { });
+        Thread.sleep(50);
+        idle.close();
+        assertEquals(0, idle.getDelivered());
+
+        CountDownLatch closed = new CountDownLatch(1);
+        Match.Subscription[] self = new Match.Subscription[1];
+        self[0] = match.subscribe(10, e -> {
+            self[0].close();
+            closed.countDown();
+        });
+        match.fire(new Position(0, 0));
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        match.fire(new Position(0, 0));
+        // closing again waits for the thread, already on its way out
+        self[0].close();
+        match.close();
+        assertEquals(1, self[0].getDelivered());
+    }
+
+    @Test
+    @DisplayName("Só joga quem tem a vez, e um espectador que sai deixa de ver o jogo")
+    void turnsAndUnsubscribing() {
+        Fleet first = new Fleet();
+        first.addShip(new Barge(Compass.NORTH, new Position(0, 0)));
+        Fleet second = new Fleet();
+        second.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+        Match match = new Match(first, second);
+        List<MatchEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Match.Subscription subscription = match.subscribe(10, events::add);
+
+        assertNull(match.fire(new Position(0, 0)));
+        assertEquals(Match.SECOND, match.getTurn());
+        subscription.close();
+        assertEquals(1, events.size());
+        assertEquals(MatchEvent.Kind.FIRE, events.get(0).getKind());
+        assertEquals(Match.FIRST, events.get(0).getPlayer());
+
+        assertNotNull(match.fire(new Position(0, 0)));
+        assertEquals(Match.SECOND, match.getWinner());
+        assertEquals(1, events.size());
+        assertThrows(IllegalArgumentException.class, () -> match.subscribe(0, e -> { }));
+        assertThrows(IllegalArgumentException.class, () -> match.getFleet(2));
+        assertTrue(first.getShips().get(0).getPositions().get(0).isHit());
+    }
+
+    /*
+     * A shooter that fires its whole volley at once, as in Salvo
+     */
+    private static final class VolleyShooter implements IShooter {
+        private final IPosition[] volley;
+        private boolean done;
+
+        private VolleyShooter(IPosition... volley) {
+            this.volley = volley;
+        }
+
+        @Override
+        public void newGame(ShipType[] fleet) {
+            done = false;
+        }
+
+        @Override
+        public IShip fire(IGame game) {
+            IShip[] sunk = new IShip[1];
+            int sinks = game.fire(volley, volley.length, sunk);
+            done = true;
+            return sinks > 0 ? sunk[0] : null;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    @Test
+    @DisplayName("Uma rajada de vários tiros é recusada antes de algum cair; um só tiro é um turno")
+    void volleysAreOneShotTurns() {
+        Fleet first = new Fleet();
+        first.addShip(new Barge(Compass.NORTH, new Position(0, 0)));
+        Fleet second = new Fleet();
+        second.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+        Match match = new Match(first, second);
+
+        IShooter twoShots = new VolleyShooter(new Position(1, 1), new Position(5, 5));
+        assertThrows(IllegalStateException.class, () -> match.play(twoShots, new VolleyShooter(new Position(0, 0))));
+        assertTrue(match.getGameAgainst(Match.SECOND).getShots().isEmpty());
+        assertEquals(Match.FIRST, match.getTurn());
+
+        Match single = new Match(first, second);
+        assertEquals(Match.FIRST, single.play(new VolleyShooter(new Position(5, 5)), new VolleyShooter(new Position(9, 9))));
+    }
+}
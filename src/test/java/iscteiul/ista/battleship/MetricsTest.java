@@ -0,0 +1,125 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as métricas opcionais do jogo e da frota")
+class MetricsTest {
+
+    private static String prometheus(Metrics metrics) throws IOException {
+        StringBuilder out = new StringBuilder();
+        metrics.writePrometheus(out);
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("Os tiros são contados por resultado e cronometrados")
+    void firesAreCountedAndTimed() {
+        Metrics metrics = new Metrics();
+        IFleet fleet = metrics.instrument(new Fleet());
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+        assertTrue(fleet.addShip(new Caravel(Compass.EAST, new Position(5, 5))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 1))));
+        IGame game = metrics.instrument(new Game(fleet));
+
+        assertNull(game.fire(new Position(9, 9)));
+        assertNull(game.fire(new Position(5, 5)));
+        assertNotNull(game.fire(new Position(0, 0)));
+        game.fire(new Position(0, 0));
+        game.fire(new Position(-1, 0));
+
+        assertEquals(1, metrics.misses.get());
+        assertEquals(1, metrics.repeated.get());
+        assertEquals(1, metrics.invalid.get());
+        assertEquals(1, metrics.hits.get());
+        assertEquals(1, metrics.sinks.get());
+        assertEquals(1, metrics.rejected.get());
+        assertEquals(5, metrics.fire.snapshot().getCount());
+        assertEquals(3, metrics.shipAt.snapshot().getCount());
+        assertEquals(3, metrics.addShip.snapshot().getCount());
+        assertEquals(1, game.getRepeatedShots());
+    }
+
+    @Test
+    @DisplayName("Os registos de cada thread são juntados na leitura")
+    void perThreadRecordersMerge() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int g = 0; g < 10; g++) {
+                    IGame game = metrics.instrument(new Game(new FleetGenerator().generate(random)));
+                    RandomShooter shooter = new RandomShooter(random);
+                    shooter.newGame(FleetGenerator.standardFleet());
+                    shooter.playOut(game);
+                }
+            }));
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+
+        LatencyHistogram fires = metrics.fire.snapshot();
+        assertTrue(fires.getCount() >= 40 * 25);
+        assertEquals(fires.getCount(), metrics.misses.get() + metrics.hits.get() + metrics.sinks.get());
+        assertEquals(40 * ShipType.standardFleetSize(), metrics.sinks.get());
+    }
+
+    @Test
+    @DisplayName("As métricas são escritas no formato de texto do Prometheus")
+    void prometheusFormat() throws IOException {
+        Metrics metrics = new Metrics();
+        IGame game = metrics.instrument(new Game(new Fleet()));
+        game.fire(new Position(1, 1));
+        game.fire(new Position(2, 2));
+        metrics.timer("command", "Commands", "command", "rajada").stop(System.nanoTime());
+
+        String text = prometheus(metrics);
+        assertTrue(text.contains("# TYPE battleship_game_fire_seconds histogram\n"));
+        assertTrue(text.contains("battleship_game_fire_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("battleship_game_fire_seconds_count 2\n"));
+        assertTrue(text.contains("battleship_command_seconds_count{command=\"rajada\"} 1\n"));
+        assertTrue(text.contains("battleship_game_shots_total{outcome=\"miss\"} 2\n"));
+        assertEquals(1, text.split("# TYPE battleship_game_shots_total counter", -1).length - 1);
+        for (String line : text.split("\n"))
+            assertTrue(line.startsWith("#") || line.matches("battleship_\\w+(\\{[^}]*})? [0-9.E+-]+"), line);
+    }
+
+    @Test
+    @DisplayName("As métricas são servidas por HTTP num porto local")
+    void servedOverHttp() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.instrument(new Game(new Fleet())).fire(new Position(3, 3));
+        try (MetricsServer server = new MetricsServer(metrics, 0)) {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort()
+                    + MetricsServer.PATH).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertTrue(connection.getContentType().startsWith("text/plain"));
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(body.contains("battleship_game_fire_seconds_count 1"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Sem a propriedade de sistema as métricas estão desligadas")
+    void disabledByDefault() {
+        assertNull(System.getProperty(Metrics.PORT_PROPERTY));
+        assertNull(Metrics.fromSystemProperties());
+    }
+}
@@ -0,0 +1,149 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o relógio de jogadas e os histogramas de latência")
+class MoveTimerTest {
+
+    @Test
+    @DisplayName("Cada latência cai num balde que a contém, com erro abaixo de 12.5%")
+    void bucketsBoundLatencies() {
+        for (long nanos : new long[]{0, 1, 7, 8, 15, 16, 100, 1_000, 123_456, 1L << 40, Long.MAX_VALUE}) {
+            int b = LatencyHistogram.bucket(nanos);
+            assertTrue(LatencyHistogram.lowest(b) <= nanos);
+            if (b + 1 < LatencyHistogram.buckets()) {
+                long next = LatencyHistogram.lowest(b + 1);
+                assertTrue(nanos < next);
+                assertTrue(next - LatencyHistogram.lowest(b) <= Math.max(1, LatencyHistogram.lowest(b) / 8));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Os percentis são limites superiores das latências registadas")
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500.0, histogram.getMean(), 1e-9);
+        long p50 = histogram.percentile(0.5);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.125);
+        assertEquals(1_000_000, histogram.percentile(1));
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(-5);
+        histogram.add(other);
+        assertEquals(1001, histogram.getCount());
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(1.5));
+    }
+
+    @Test
+    @DisplayName("O relógio conta as jogadas atrasadas e o tempo do jogo")
+    void timerEnforcesBudgets() {
+        MoveTimer late = new MoveTimer(1, MoveTimer.UNLIMITED);
+        MoveTimer relaxed = new MoveTimer(MoveTimer.UNLIMITED, MoveTimer.UNLIMITED);
+        for (int i = 0; i < 10; i++) {
+            late.stop(late.start() - 1_000);
+            assertTrue(relaxed.stop(relaxed.start()));
+        }
+
+        assertEquals(10, late.getLateShots());
+        assertEquals(0, relaxed.getLateShots());
+        assertEquals(10, late.getLatencies().getCount());
+
+        MoveTimer game = new MoveTimer(MoveTimer.UNLIMITED, 1_000);
+        assertFalse(game.stop(game.start() - 2_000));
+        assertTrue(game.isOutOfTime());
+        game.newGame();
+        assertFalse(game.isOutOfTime());
+        assertThrows(IllegalArgumentException.class, () -> new MoveTimer(0, 1));
+    }
+
+    @Test
+    @DisplayName("Cronometrar uma jogada custa menos de um microssegundo")
+    void timingIsCheap() {
+        MoveTimer timer = new MoveTimer(MoveTimer.UNLIMITED, MoveTimer.UNLIMITED);
+        int shots = 1_000_000;
+        long started = System.nanoTime();
+        for (int i = 0; i < shots; i++)
+            timer.stop(timer.start());
+        long perShot = (System.nanoTime() - started) / shots;
+
+        assertTrue(perShot < 1_000, "timing took " + perShot + "ns per shot");
+    }
+
+    @Test
+    @DisplayName("Os orçamentos da consola vêm das propriedades do sistema")
+    void budgetsFromSystemProperties() {
+        try {
+            System.clearProperty(MoveTimer.SHOT_BUDGET_PROPERTY);
+            System.clearProperty(MoveTimer.GAME_BUDGET_PROPERTY);
+            assertNull(MoveTimer.fromSystemProperties());
+
+            System.setProperty(MoveTimer.GAME_BUDGET_PROPERTY, "1");
+            MoveTimer timer = MoveTimer.fromSystemProperties();
+            assertNotNull(timer);
+            assertTrue(timer.stop(timer.start()));
+            assertFalse(timer.stop(timer.start() - 2_000_000));
+            assertTrue(timer.isOutOfTime());
+
+            System.setProperty(MoveTimer.SHOT_BUDGET_PROPERTY, "depressa");
+            assertThrows(IllegalArgumentException.class, MoveTimer::fromSystemProperties);
+        } finally {
+            System.clearProperty(MoveTimer.SHOT_BUDGET_PROPERTY);
+            System.clearProperty(MoveTimer.GAME_BUDGET_PROPERTY);
+        }
+    }
+
+    @Test
+    @DisplayName("Numa rajada cronometrada os tiros fora de tempo são perdidos")
+    void firingRoundForfeitsLateShots() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0)));
+        Game game = new Game(fleet);
+        MoveTimer timer = new MoveTimer(MoveTimer.UNLIMITED, 1);
+        timer.stop(timer.start() - 10);
+
+        Tasks.firingRound(new Scanner("0 0\n1 1\n2 2\n3 3\n"), game, timer);
+        assertEquals(0, game.getShots().size());
+
+        Game untimed = new Game(fleet);
+        Scanner in = new Scanner("5 5\n1 1\n2 2\n");
+        Tasks.firingRound(in, untimed, new MoveTimer(MoveTimer.UNLIMITED, MoveTimer.UNLIMITED));
+        assertEquals(3, untimed.getShots().size());
+        assertFalse(in.hasNext());
+    }
+
+    @Test
+    @DisplayName("No torneio o tempo de cada bot é registado e quem o esgota perde")
+    void tournamentTimesBots() {
+        List<Bot> bots = List.of(new Bot("a", RandomShooter::new, new RandomPlacer()),
+                new Bot("b", HuntTargetShooter::new, new RandomPlacer()));
+        try (Tournament timed = new Tournament(bots, 4, 1, MoveTimer.UNLIMITED, 1)) {
+            TournamentResults results = timed.roundRobin(3);
+
+            assertEquals(4, results.getForfeits(0));
+            assertEquals(4, results.getForfeits(1));
+            assertEquals(4, results.getDraws(0));
+        }
+        try (Tournament relaxed = new Tournament(bots, 4, 1)) {
+            TournamentResults results = relaxed.roundRobin(3);
+
+            assertEquals(0, results.getForfeits(0) + results.getForfeits(1));
+            LatencyHistogram latencies = results.getLatencies(1);
+            assertTrue(latencies.getCount() >= 4 * 25);
+            assertTrue(latencies.getMax() >= latencies.percentile(0.5));
+            assertEquals(0, results.getLateShots(1));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o livro de aberturas")
+class OpeningBookTest {
+
+    private static OpeningBook book;
+
+    @BeforeAll
+    static void build() {
+        book = OpeningBook.build(6, 8192, 32, 11, 2);
+    }
+
+    @Test
+    @DisplayName("A primeira jogada é a célula mais provável de ter um navio")
+    void rootIsLikelyHit() {
+        int root = book.root();
+
+        assertTrue(root >= 0);
+        assertEquals(8192, book.getSamples(root));
+        // 25 of the 100 cells hold a ship, so the best one must beat a quarter
+        assertTrue(book.getHitChance(root) > 0.25);
+        assertTrue(book.size() > 6);
+        assertEquals(6, book.getDepth());
+    }
+
+    @Test
+    @DisplayName("A procura de um histórico segue as jogadas do livro")
+    void lookupFollowsMoves() {
+        int root = book.root();
+        int first = book.move(root);
+        int afterMiss = book.child(root, OpeningBook.MISS);
+
+        assertEquals(first, book.lookup(new int[0], new int[0], 0));
+        assertTrue(afterMiss >= 0);
+        assertEquals(book.move(afterMiss), book.lookup(new int[]{first}, new int[]{OpeningBook.MISS}, 1));
+        assertNotEquals(first, book.move(afterMiss));
+        assertEquals(-1, book.lookup(new int[]{(first + 1) % 100}, new int[]{OpeningBook.MISS}, 1));
+        assertTrue(book.getSamples(afterMiss) < book.getSamples(root));
+    }
+
+    @Test
+    @DisplayName("O mesmo livro é construído qualquer que seja o paralelismo")
+    void buildIsDeterministic(@TempDir Path dir) throws IOException {
+        Path one = dir.resolve("one.book");
+        Path four = dir.resolve("four.book");
+        OpeningBook.build(4, 4096, 32, 5, 1).write(one);
+        OpeningBook.build(4, 4096, 32, 5, 4).write(four);
+
+        assertArrayEquals(Files.readAllBytes(one), Files.readAllBytes(four));
+    }
+
+    @Test
+    @DisplayName("Um livro escrito num ficheiro é mapeado de volta em memória")
+    void writeAndMap(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("opening.book");
+        book.write(file);
+        OpeningBook mapped = OpeningBook.open(file);
+
+        assertEquals(book.size(), mapped.size());
+        assertEquals(book.bytes(), Files.size(file));
+        int a = book.root();
+        int b = mapped.root();
+        while (a >= 0) {
+            assertEquals(book.move(a), mapped.move(b));
+            assertEquals(book.getHitChance(a), mapped.getHitChance(b));
+            a = book.child(a, OpeningBook.MISS);
+            b = mapped.child(b, OpeningBook.MISS);
+        }
+        assertEquals(-1, b);
+    }
+
+    @Test
+    @DisplayName("Ficheiros que não têm um livro válido são rejeitados")
+    void rejectsInvalidFiles(@TempDir Path dir) throws IOException {
+        Path junk = Files.write(dir.resolve("junk.book"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+        Path truncated = dir.resolve("truncated.book");
+        book.write(truncated);
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> OpeningBook.open(junk));
+        assertThrows(IOException.class, () -> OpeningBook.open(truncated));
+        assertThrows(IllegalArgumentException.class, () -> OpeningBook.build(0, 10, 1, 1, 1));
+    }
+
+    @Test
+    @DisplayName("O atirador abre o jogo com o livro e termina-o sozinho")
+    void shooterOpensWithBook() {
+        Random random = new Random(4);
+        HuntTargetShooter shooter = new HuntTargetShooter(random, Fleet.BOARD_SIZE, null, 0, book);
+        for (int g = 0; g < 20; g++) {
+            Fleet fleet = new FleetGenerator().generate(random);
+            Game game = new Game(fleet);
+            shooter.newGame(FleetGenerator.standardFleet());
+            shooter.fire(game);
+
+            int first = book.move(book.root());
+            assertEquals(first / 10, game.getShots().get(0).getRow());
+            assertEquals(first % 10, game.getShots().get(0).getColumn());
+            shooter.playOut(game);
+            assertEquals(0, game.getRemainingShips());
+            assertEquals(0, game.getRepeatedShots());
+        }
+    }
+}
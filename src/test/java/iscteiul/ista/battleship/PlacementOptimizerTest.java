@@ -0,0 +1,90 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o otimizador de disposições da frota")
+class PlacementOptimizerTest {
+    private static final List<Function<Random, IShooter>> STRATEGIES =
+            List.of(HuntTargetShooter::new, RandomShooter::new);
+
+    private PlacementOptimizer optimizer;
+
+    @AfterEach
+    void close() {
+        if (optimizer != null)
+            optimizer.close();
+    }
+
+    @Test
+    @DisplayName("O atirador aleatório afunda a frota sem repetir tiros")
+    void randomShooterSinksFleet() {
+        Random random = new Random(9);
+        Game game = new Game(new FleetGenerator().generate(random));
+        RandomShooter shooter = new RandomShooter(random);
+        shooter.newGame(FleetGenerator.standardFleet());
+
+        int shots = shooter.playOut(game);
+
+        assertEquals(0, game.getRemainingShips());
+        assertEquals(0, game.getRepeatedShots());
+        assertTrue(shots >= 25 && shots <= 100);
+    }
+
+    @Test
+    @DisplayName("A disposição otimizada é uma frota válida e tão difícil como a inicial")
+    void optimizedLayoutIsValid() {
+        optimizer = new PlacementOptimizer(STRATEGIES, 2, 8, 16, 100);
+        Fleet fleet = optimizer.optimize(new Random(4), 15);
+
+        assertEquals(11, fleet.getShips().size());
+        assertEquals(4, fleet.getShipsLike(ShipType.BARCA).size());
+        assertTrue(optimizer.getBestScore() >= 25);
+        assertEquals(optimizer.getBestScore(), optimizer.evaluate(fleet));
+        assertTrue(optimizer.getEvaluations() > 1);
+    }
+
+    @Test
+    @DisplayName("Disposições já avaliadas vêm da cache")
+    void fitnessIsCached() {
+        optimizer = new PlacementOptimizer(STRATEGIES, 2, 8, 16, 100);
+        Fleet fleet = new FleetGenerator().generate(new Random(1));
+
+        double first = optimizer.evaluate(fleet);
+        long games = optimizer.getGamesPlayed();
+        double again = optimizer.evaluate(new FleetGenerator().generate(new Random(1)));
+
+        assertEquals(first, again);
+        assertEquals(games, optimizer.getGamesPlayed());
+        assertEquals(1, optimizer.getEvaluations());
+        assertEquals(1, optimizer.getCacheHits());
+    }
+
+    @Test
+    @DisplayName("A avaliação para quando a estimativa é confiável, ou no máximo de jogos")
+    void stopsWhenConfident() {
+        optimizer = new PlacementOptimizer(STRATEGIES, 2, 8, 64, 1000);
+        optimizer.evaluate(new FleetGenerator().generate(new Random(2)));
+        assertEquals(8, optimizer.getGamesPlayed());
+        optimizer.close();
+
+        optimizer = new PlacementOptimizer(STRATEGIES, 2, 8, 64, 1e-9);
+        optimizer.evaluate(new FleetGenerator().generate(new Random(2)));
+        assertEquals(64, optimizer.getGamesPlayed());
+    }
+
+    @Test
+    @DisplayName("Configurações inválidas são rejeitadas")
+    void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new PlacementOptimizer(List.of(), 1));
+        assertThrows(IllegalArgumentException.class, () -> new PlacementOptimizer(STRATEGIES, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PlacementOptimizer(STRATEGIES, 1, 10, 5, 1));
+    }
+}
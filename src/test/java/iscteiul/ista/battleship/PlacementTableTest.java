@@ -0,0 +1,132 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as tabelas de colocações pré-calculadas")
+class PlacementTableTest {
+
+    private static final int SIZE = IFleet.BOARD_SIZE;
+
+    @ParameterizedTest
+    @EnumSource(ShipType.class)
+    @DisplayName("Pegada e halo coincidem com as posições do navio")
+    void footprintAndHaloMatchShips(ShipType type) {
+        for (Compass bearing : type.distinctBearings()) {
+            PlacementTable table = PlacementTable.forType(type, bearing, SIZE);
+            for (int p = 0; p < table.size(); p++) {
+                Ship ship = type.build(bearing, table.anchorPosition(p));
+                for (int cell = 0; cell < SIZE * SIZE; cell++) {
+                    Position pos = new Position(cell / SIZE, cell % SIZE);
+                    long[] mask = BoardMask.create(SIZE);
+                    BoardMask.set(mask, cell);
+                    assertEquals(ship.occupies(pos), table.occupies(p, cell));
+                    assertEquals(ship.tooCloseTo(pos) && !ship.occupies(pos), table.touches(p, mask));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShipType.class)
+    @DisplayName("Há uma colocação por cada âncora dentro do tabuleiro")
+    void indexOfMatchesInsideBoard(ShipType type) {
+        Fleet fleet = new Fleet();
+        for (Compass bearing : type.distinctBearings()) {
+            PlacementTable table = PlacementTable.forType(type, bearing, SIZE);
+            int found = 0;
+            for (int r = -3; r < SIZE + 3; r++)
+                for (int c = -3; c < SIZE + 3; c++) {
+                    int p = table.indexOf(r, c);
+                    Ship ship = type.build(bearing, new Position(r, c));
+                    boolean inside = ship.getTopMostPos() >= 0 && ship.getLeftMostPos() >= 0
+                            && ship.getBottomMostPos() < SIZE && ship.getRightMostPos() < SIZE;
+                    assertEquals(inside, p >= 0, () -> type + " " + bearing);
+                    if (p >= 0) {
+                        assertEquals(r * SIZE + c, table.anchor(p));
+                        found++;
+                    }
+                }
+            assertEquals(table.size(), found);
+        }
+    }
+
+    @Test
+    @DisplayName("As tabelas são partilhadas e construídas uma só vez")
+    void tablesAreCached() throws Exception {
+        assertSame(PlacementTable.forType(ShipType.GALEAO, Compass.EAST, 12),
+                PlacementTable.forType(ShipType.GALEAO, Compass.EAST, 12));
+        assertNotSame(PlacementTable.forType(ShipType.GALEAO, Compass.EAST, 12),
+                PlacementTable.forType(ShipType.GALEAO, Compass.EAST, 13));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<PlacementTable>> lookups = new ArrayList<>();
+            for (int i = 0; i < 16; i++)
+                lookups.add(() -> PlacementTable.forType(ShipType.FRAGATA, Compass.WEST, 37));
+            PlacementTable first = null;
+            for (Future<PlacementTable> f : pool.invokeAll(lookups)) {
+                if (first == null)
+                    first = f.get();
+                assertSame(first, f.get());
+            }
+            assertEquals(37 * 34, first.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Formas lidas de novo reutilizam as tabelas das mesmas células")
+    void reloadedShapesShareTables() throws Exception {
+        ShipShape galleon = ShipShape.loadResource(ShipShape.DEFAULT_SHAPES).get(0);
+        ShipShape again = ShipShape.loadResource(ShipShape.DEFAULT_SHAPES).get(0);
+
+        assertNotSame(galleon, again);
+        for (int o = 0; o < galleon.orientations(); o++)
+            assertSame(galleon.placements(o, SIZE), again.placements(o, SIZE));
+        assertSame(PlacementTable.forType(ShipType.GALEAO, Compass.NORTH, SIZE), galleon.placements(0, SIZE));
+        assertSame(ShipShape.of(ShipType.GALEAO).placements(0, SIZE), galleon.placements(0, SIZE));
+    }
+
+    @Test
+    @DisplayName("Rumos inválidos são rejeitados")
+    void invalidBearings() {
+        assertThrows(IllegalArgumentException.class, () -> PlacementTable.forType(ShipType.NAU, Compass.UNKNOWN, SIZE));
+        assertThrows(IllegalArgumentException.class, () -> PlacementTable.forType(ShipType.NAU, null, SIZE));
+        assertNotNull(PlacementTable.forType(ShipType.BARCA, Compass.UNKNOWN, SIZE));
+    }
+
+    @Test
+    @DisplayName("Rumos distintos de cada tipo")
+    void distinctBearings() {
+        assertArrayEquals(new Compass[]{Compass.NORTH}, ShipType.BARCA.distinctBearings());
+        assertArrayEquals(new Compass[]{Compass.NORTH, Compass.EAST}, ShipType.NAU.distinctBearings());
+        assertEquals(4, ShipType.GALEAO.distinctBearings().length);
+    }
+
+    @Test
+    @DisplayName("Tabuleiros maiores do que 64 células usam várias palavras")
+    void largeBoards() {
+        PlacementTable table = PlacementTable.forType(ShipType.FRAGATA, Compass.EAST, 100);
+        int p = table.indexOf(99, 96);
+        long[] mask = BoardMask.create(100);
+        table.addFootprint(p, mask);
+
+        assertEquals(157, table.words());
+        assertEquals(4, BoardMask.cardinality(mask));
+        assertTrue(BoardMask.get(mask, 99 * 100 + 99));
+        assertEquals(-1, table.indexOf(99, 97));
+    }
+}
@@ -0,0 +1,129 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as rajadas simultâneas e o modo Salvo")
+class SalvoTest {
+
+    @Test
+    @DisplayName("Uma rajada deixa o jogo como os mesmos tiros disparados um a um")
+    void volleyMatchesSingleShots() {
+        Random random = new Random(47);
+        for (int g = 0; g < 50; g++) {
+            long seed = random.nextLong();
+            Game single = new Game(new FleetGenerator().generate(new Random(seed)));
+            Game batch = new Game(new FleetGenerator().generate(new Random(seed)));
+            IPosition[] volley = new IPosition[40];
+            IShip[] sunk = new IShip[ShipType.standardFleetSize()];
+
+            for (int v = 0; v < 10; v++) {
+                int count = random.nextInt(volley.length + 1);
+                int sinks = 0;
+                for (int i = 0; i < count; i++) {
+                    volley[i] = new Position(random.nextInt(13) - 1, random.nextInt(13) - 1);
+                    sinks += single.fire(volley[i]) != null ? 1 : 0;
+                }
+                assertEquals(sinks, batch.fire(volley, count, sunk));
+                for (int i = 0; i < sinks; i++)
+                    assertFalse(sunk[i].stillFloating());
+                assertEquals(sinks, new HashSet<>(Arrays.asList(sunk).subList(0, sinks)).size());
+
+                assertEquals(single.getHits(), batch.getHits());
+                assertEquals(single.getSunkShips(), batch.getSunkShips());
+                assertEquals(single.getInvalidShots(), batch.getInvalidShots());
+                assertEquals(single.getRepeatedShots(), batch.getRepeatedShots());
+                assertEquals(single.getShots(), batch.getShots());
+                assertEquals(single.getHash(), batch.getHash());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Um navio afundado por vários tiros da rajada é dado uma só vez")
+    void shipSunkOnceByVolley() {
+        Fleet fleet = new Fleet();
+        Galleon galleon = new Galleon(Compass.NORTH, new Position(0, 0));
+        fleet.addShip(galleon);
+        fleet.addShip(new Barge(Compass.NORTH, new Position(9, 9)));
+        Game game = new Game(fleet);
+
+        IPosition[] volley = new IPosition[galleon.getSize() + 3];
+        for (int i = 0; i < galleon.getSize(); i++)
+            volley[i] = galleon.getPositions().get(i);
+        volley[galleon.getSize()] = new Position(0, 0);
+        volley[galleon.getSize() + 1] = new Position(-1, 3);
+        volley[galleon.getSize() + 2] = new Position(9, 9);
+        IShip[] sunk = new IShip[1];
+
+        assertEquals(2, game.fire(volley, volley.length, sunk));
+        assertSame(galleon, sunk[0]);
+        assertEquals(galleon.getSize() + 1, game.getHits());
+        assertEquals(1, game.getRepeatedShots());
+        assertEquals(1, game.getInvalidShots());
+        assertEquals(0, game.getRemainingShips());
+        assertThrows(IllegalArgumentException.class, () -> game.fire(volley, volley.length + 1, sunk));
+    }
+
+    @Test
+    @DisplayName("No modo Salvo, cada rajada tem tantos tiros como navios à tona")
+    void salvoVolleysShrinkWithTheFleet() {
+        Fleet first = new FleetGenerator().generate(new Random(1));
+        Fleet second = new FleetGenerator().generate(new Random(2));
+        Salvo salvo = new Salvo(first, second);
+        IPosition[] volley = new IPosition[ShipType.standardFleetSize()];
+        IShip[] sunk = new IShip[ShipType.standardFleetSize()];
+        assertEquals(ShipType.standardFleetSize(), salvo.volleySize(Salvo.FIRST));
+        assertEquals(Salvo.FIRST, salvo.getTurn());
+        assertThrows(IllegalArgumentException.class, () -> salvo.volleySize(2));
+
+        // the first player sinks the first ship of the second fleet
+        IShip target = second.getShips().get(0);
+        for (int i = 0; i < target.getSize(); i++)
+            volley[i] = target.getPositions().get(i);
+        assertEquals(1, salvo.fire(volley, target.getSize(), sunk));
+        assertEquals(Salvo.SECOND, salvo.getTurn());
+        assertEquals(ShipType.standardFleetSize() - 1, salvo.volleySize(Salvo.SECOND));
+        assertThrows(IllegalArgumentException.class,
+                () -> salvo.fire(volley, ShipType.standardFleetSize(), sunk));
+
+        // then every player fires at all the cells in turn, until one wins
+        int[] next = new int[2];
+        while (!salvo.isOver()) {
+            int player = salvo.getTurn();
+            int count = salvo.volleySize(player);
+            for (int i = 0; i < count; i++, next[player]++)
+                volley[i] = new Position(next[player] / Fleet.BOARD_SIZE % Fleet.BOARD_SIZE,
+                        next[player] % Fleet.BOARD_SIZE);
+            salvo.fire(volley, count, sunk);
+        }
+        int winner = salvo.getWinner();
+        assertEquals(0, salvo.getGameAgainst(1 - winner).getRemainingShips());
+        assertEquals(0, salvo.volleySize(1 - winner));
+        assertThrows(IllegalStateException.class, () -> salvo.fire(volley, 0, sunk));
+    }
+
+    @Test
+    @DisplayName("A tarefa do modo Salvo lê tantos tiros como navios à tona")
+    void salvoRoundReadsVolleySize() {
+        Fleet first = new FleetGenerator().generate(new Random(3));
+        Fleet second = new FleetGenerator().generate(new Random(4));
+        Salvo salvo = new Salvo(first, second);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < ShipType.standardFleetSize(); i++)
+            input.append(i).append(" 10 ");
+        input.append("0 0");
+
+        Scanner in = new Scanner(input.toString());
+        Tasks.salvoRound(in, salvo, new IPosition[ShipType.standardFleetSize()], new IShip[1]);
+        assertEquals(ShipType.standardFleetSize(), salvo.getGameAgainst(Salvo.SECOND).getShots().size());
+        assertEquals("0", in.next());
+    }
+}
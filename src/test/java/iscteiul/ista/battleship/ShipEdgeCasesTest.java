@@ -4,6 +4,9 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Testes de casos extremos para Ship")
@@ -317,6 +320,47 @@ class ShipEdgeCasesTest {
             assertEquals(5, galleon.getSize());
         }
     }
+
+    @Nested
+    @DisplayName("Testes da caixa envolvente guardada")
+    class CachedBoundsTests {
+
+        @Test
+        @DisplayName("A caixa envolvente não muda as respostas de occupies e tooCloseTo")
+        void boundingBoxKeepsAnswers() {
+            List<Ship> ships = new ArrayList<>();
+            for (ShipType type : ShipType.values())
+                for (Compass bearing : new Compass[]{Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST})
+                    ships.add(type.build(bearing, new Position(4, 4)));
+            ShipShape shape = ShipShape.of("T", "T", new int[]{0, 0, 0, 1}, new int[]{0, 1, 2, 1});
+            for (int o = 0; o < shape.orientations(); o++)
+                ships.add(shape.build(o, new Position(4, 4)));
+
+            for (Ship ship : ships)
+                for (int r = 0; r < 12; r++)
+                    for (int c = 0; c < 12; c++) {
+                        Position pos = new Position(r, c);
+                        boolean occupied = ship.getPositions().contains(pos);
+                        boolean close = ship.getPositions().stream().anyMatch(p -> p.isAdjacentTo(pos));
+                        assertEquals(occupied, ship.occupies(pos), ship + " " + pos);
+                        assertEquals(close, ship.tooCloseTo(pos), ship + " " + pos);
+                        Barge barge = new Barge(Compass.NORTH, pos);
+                        assertEquals(close, ship.tooCloseTo(barge), ship + " " + pos);
+                        assertEquals(close, barge.tooCloseTo(ship), ship + " " + pos);
+                    }
+        }
+
+        @Test
+        @DisplayName("Os extremos de um navio com forma dada vêm das suas posições")
+        void shapedShipBounds() {
+            ShapedShip ship = new ShapedShip(ShipShape.of("L", "L", new int[]{0, 1, 2, 2}, new int[]{0, 0, 0, 1}), 0,
+                    new Position(2, 3));
+            assertEquals(2, ship.getTopMostPos());
+            assertEquals(4, ship.getBottomMostPos());
+            assertEquals(3, ship.getLeftMostPos());
+            assertEquals(4, ship.getRightMostPos());
+        }
+    }
 }
 //
 //
@@ -0,0 +1,207 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para as formas de navio declaradas como dados")
+class ShipShapeTest {
+
+    private static ShipShape shape(String kind, int... cells) {
+        int[] rows = new int[cells.length / 2];
+        int[] columns = new int[cells.length / 2];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = cells[2 * i];
+            columns[i] = cells[2 * i + 1];
+        }
+        return ShipShape.of(kind, kind.toUpperCase(), rows, columns);
+    }
+
+    @Nested
+    @DisplayName("Orientações")
+    class Orientations {
+
+        @Test
+        @DisplayName("Número de orientações distintas de cada forma")
+        void distinctOrientations() {
+            assertEquals(1, ShipShape.of(ShipType.BARCA).orientations());
+            assertEquals(2, ShipShape.of(ShipType.CARAVELA).orientations());
+            assertEquals(2, ShipShape.of(ShipType.FRAGATA).orientations());
+            assertEquals(4, ShipShape.of(ShipType.GALEAO).orientations());
+            assertEquals(1, shape("quadrado", 0, 0, 0, 1, 1, 0, 1, 1).orientations());
+            assertEquals(4, shape("s", 0, 1, 0, 2, 1, 0, 1, 1).orientations());
+            assertEquals(8, shape("l", 0, 0, 1, 0, 2, 0, 2, 1).orientations());
+        }
+
+        @Test
+        @DisplayName("As orientações estão em forma canónica e são todas diferentes")
+        void orientationsAreCanonicalAndDistinct() {
+            ShipShape l = shape("l", 5, 5, 6, 5, 7, 5, 7, 6);
+            Set<String> seen = new HashSet<>();
+            for (int o = 0; o < l.orientations(); o++) {
+                int[] rows = l.rowOffsets(o);
+                int[] columns = l.columnOffsets(o);
+                int minColumn = Integer.MAX_VALUE;
+                for (int i = 0; i < rows.length; i++) {
+                    minColumn = Math.min(minColumn, columns[i]);
+                    if (i > 0)
+                        assertTrue(rows[i - 1] < rows[i] || rows[i - 1] == rows[i] && columns[i - 1] < columns[i]);
+                }
+                assertEquals(0, rows[0]);
+                assertEquals(0, minColumn);
+                assertTrue(seen.add(java.util.Arrays.toString(rows) + java.util.Arrays.toString(columns)));
+            }
+        }
+
+        @Test
+        @DisplayName("Metade das orientações do L são espelhadas")
+        void mirroredOrientations() {
+            ShipShape l = shape("l", 0, 0, 1, 0, 2, 0, 2, 1);
+            int mirrored = 0;
+            for (int o = 0; o < l.orientations(); o++)
+                if (l.isMirrored(o))
+                    mirrored++;
+            assertEquals(4, mirrored);
+            assertEquals(Compass.NORTH, l.bearing(0));
+            assertFalse(l.isMirrored(0));
+        }
+
+        @Test
+        @DisplayName("Formas iguais a menos de rotação ou espelho são a mesma")
+        void sameShapeUpToSymmetry() {
+            ShipShape l = shape("l", 0, 0, 1, 0, 2, 0, 2, 1);
+            ShipShape j = shape("j", 0, 1, 1, 1, 2, 1, 2, 0);
+            ShipShape t = shape("t", 0, 0, 0, 1, 0, 2, 1, 1);
+
+            assertTrue(l.sameShapeAs(j));
+            assertFalse(l.sameShapeAs(t));
+        }
+    }
+
+    @Nested
+    @DisplayName("Validação e leitura")
+    class Loading {
+
+        @Test
+        @DisplayName("Células desligadas ou repetidas são rejeitadas")
+        void invalidCellsAreRejected() {
+            assertThrows(IllegalArgumentException.class, () -> shape("x", 0, 0, 0, 2));
+            assertThrows(IllegalArgumentException.class, () -> shape("x", 0, 0, 1, 1));
+            assertThrows(IllegalArgumentException.class, () -> shape("x", 0, 0, 0, 0));
+            assertThrows(IllegalArgumentException.class, () -> shape("x"));
+        }
+
+        @Test
+        @DisplayName("As formas incluídas correspondem aos tipos registados")
+        void defaultShapesMatchRegisteredTypes() throws IOException {
+            List<ShipShape> shapes = ShipShape.loadResource(ShipShape.DEFAULT_SHAPES);
+
+            assertEquals(ShipType.values().length, shapes.size());
+            for (ShipShape s : shapes) {
+                ShipType type = ShipType.fromKind(s.getKind());
+                assertNotNull(type, s.getKind());
+                assertEquals(type.getName(), s.getName());
+                assertTrue(s.sameShapeAs(ShipShape.of(type)), s.getKind());
+            }
+        }
+
+        @Test
+        @DisplayName("Comentários e linhas vazias são ignorados")
+        void parseCustomFile() throws IOException {
+            String text = "# frota de torneio\n\n  tetris  Tetris  0,0 1,0 2,0 2,1  \nduo Duo 0,0 0,1\n";
+            List<ShipShape> shapes = ShipShape.load(new StringReader(text));
+
+            assertEquals(2, shapes.size());
+            assertEquals("tetris", shapes.get(0).getKind());
+            assertEquals("Tetris", shapes.get(0).getName());
+            assertEquals(4, shapes.get(0).getSize());
+            assertEquals(8, shapes.get(0).orientations());
+        }
+
+        @Test
+        @DisplayName("Linhas mal formadas indicam o número da linha")
+        void malformedLines() {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> ShipShape.load(new StringReader("ok Ok 0,0\nmau Mau 0;0\n")));
+            assertTrue(e.getMessage().contains("line 2"));
+            assertThrows(IllegalArgumentException.class, () -> ShipShape.load(new StringReader("so-nome\n")));
+            assertThrows(IOException.class, () -> ShipShape.loadResource("/nao-existe.shapes"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Colocações e navios")
+    class PlacementsAndShips {
+
+        @Test
+        @DisplayName("Número de colocações que cabem no tabuleiro")
+        void placementCount() {
+            ShipShape caravel = ShipShape.of(ShipType.CARAVELA);
+            for (int o = 0; o < caravel.orientations(); o++)
+                assertEquals(90, caravel.placements(o, 10).size());
+
+            ShipShape galleon = ShipShape.of(ShipType.GALEAO);
+            for (int o = 0; o < galleon.orientations(); o++)
+                assertEquals(64, galleon.placements(o, 10).size());
+
+            assertEquals(0, galleon.placements(0, 2).size());
+        }
+
+        @Test
+        @DisplayName("As máscaras das colocações coincidem com as posições do navio")
+        void masksMatchShips() {
+            ShipShape l = shape("l", 0, 0, 1, 0, 2, 0, 2, 1);
+            for (int o = 0; o < l.orientations(); o++) {
+                PlacementTable table = l.placements(o, 10);
+                for (int p = 0; p < table.size(); p++) {
+                    Ship ship = l.build(o, table.anchorPosition(p));
+                    long[] mask = BoardMask.create(10);
+                    table.addFootprint(p, mask);
+                    assertEquals(4, BoardMask.cardinality(mask));
+                    for (IPosition pos : ship.getPositions())
+                        assertTrue(table.occupies(p, pos.getRow() * 10 + pos.getColumn()));
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("Navios com forma personalizada entram numa frota")
+        void shapedShipsJoinFleets() {
+            ShipShape l = shape("l", 0, 0, 1, 0, 2, 0, 2, 1);
+            Fleet fleet = new Fleet();
+            Ship ship = l.build(3, new Position(4, 4));
+
+            assertTrue(fleet.addShip(ship));
+            assertEquals(4, ship.getSize());
+            assertNull(ship.getType());
+            assertEquals(List.of(ship), fleet.getShipsLike("L"));
+            assertSame(ship, fleet.shipAt(ship.getPositions().get(2)));
+            assertThrows(IllegalArgumentException.class, () -> l.build(8, new Position(0, 0)));
+        }
+
+        @Test
+        @DisplayName("Uma forma com o nome de um tipo é desse tipo, mas a colocação segue as suas células")
+        void namedShapesKeepTheirTypeAndCells() {
+            assertSame(ShipType.GALEAO, ShipShape.of(ShipType.GALEAO).build(1, new Position(0, 0)).getType());
+            assertSame(ShipType.GALEAO.getShape(), ShipShape.of(ShipType.GALEAO));
+
+            ShipShape fake = ShipShape.of("galeao", "Galeao", new int[]{0, 0}, new int[]{0, 1});
+            Ship ship = fake.build(0, new Position(0, 8));
+            assertSame(ShipType.GALEAO, ship.getType());
+            assertEquals(2, ship.getSize());
+
+            Fleet fleet = new Fleet();
+            assertTrue(fleet.addShip(ship));
+            assertEquals(List.of(ship), fleet.getShipsLike("Galeao"));
+            assertFalse(fleet.addShip(fake.build(0, new Position(1, 7))));
+        }
+    }
+}
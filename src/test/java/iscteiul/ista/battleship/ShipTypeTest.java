@@ -0,0 +1,119 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o registo de tipos de navio")
+class ShipTypeTest {
+
+    @ParameterizedTest
+    @EnumSource(ShipType.class)
+    @DisplayName("Os nomes de cada tipo encontram o próprio tipo")
+    void lookupByKindAndName(ShipType type) {
+        assertSame(type, ShipType.fromKind(type.getKind()));
+        assertSame(type, ShipType.fromName(type.getName()));
+        assertNull(ShipType.fromKind(type.getName().toUpperCase()));
+    }
+
+    @Test
+    @DisplayName("Nomes desconhecidos ou nulos não têm tipo")
+    void unknownNames() {
+        assertNull(ShipType.fromKind("submarino"));
+        assertNull(ShipType.fromKind(null));
+        assertNull(ShipType.fromName(null));
+    }
+
+    @Test
+    @DisplayName("Tamanhos dos tipos registados")
+    void sizes() {
+        assertEquals(5, ShipType.GALEAO.getSize());
+        assertEquals(4, ShipType.FRAGATA.getSize());
+        assertEquals(3, ShipType.NAU.getSize());
+        assertEquals(2, ShipType.CARAVELA.getSize());
+        assertEquals(1, ShipType.BARCA.getSize());
+    }
+
+    @Test
+    @DisplayName("Comprimento da maior linha reta de cada tipo")
+    void lineLengths() {
+        assertEquals(3, ShipType.GALEAO.getLineLength());
+        assertEquals(4, ShipType.FRAGATA.getLineLength());
+        assertEquals(3, ShipType.NAU.getLineLength());
+        assertEquals(2, ShipType.CARAVELA.getLineLength());
+        assertEquals(1, ShipType.BARCA.getLineLength());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShipType.class)
+    @DisplayName("Navios construídos pelo tipo seguem a forma da tabela")
+    void builtShipsFollowTheTable(ShipType type) {
+        for (Compass bearing : Compass.values()) {
+            if (!type.accepts(bearing)) {
+                assertThrows(IllegalArgumentException.class, () -> type.build(bearing, new Position(4, 4)));
+                continue;
+            }
+            Ship ship = type.build(bearing, new Position(4, 4));
+            assertSame(type, ship.getType());
+            assertEquals(type.getName(), ship.getCategory());
+            assertEquals(type.getSize(), ship.getSize());
+            assertEquals(type.getSize(), ship.getPositions().size());
+            for (int i = 0; i < type.getSize(); i++) {
+                assertEquals(4 + type.rowOffsets(bearing)[i], ship.getPositions().get(i).getRow());
+                assertEquals(4 + type.columnOffsets(bearing)[i], ship.getPositions().get(i).getColumn());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Só a barca aceita qualquer rumo")
+    void onlyBargeAcceptsAnyBearing() {
+        assertTrue(ShipType.BARCA.accepts(Compass.UNKNOWN));
+        assertTrue(ShipType.BARCA.accepts(null));
+        assertFalse(ShipType.GALEAO.accepts(Compass.UNKNOWN));
+        assertFalse(ShipType.CARAVELA.accepts(null));
+    }
+
+    @Test
+    @DisplayName("A ordem dos tipos é a usada para mostrar a frota")
+    void declarationOrder() {
+        assertArrayEquals(new ShipType[]{ShipType.GALEAO, ShipType.FRAGATA, ShipType.NAU, ShipType.CARAVELA, ShipType.BARCA},
+                ShipType.values());
+    }
+
+    /*
+     * A ship called a galleon whose cells are not those of a galleon
+     */
+    private static final class FakeGalleon extends Ship {
+        private FakeGalleon(IPosition pos) {
+            super(ShipType.GALEAO.getName(), Compass.NORTH, pos);
+            getPositions().add(new Position(pos.getRow(), pos.getColumn()));
+            getPositions().add(new Position(pos.getRow(), pos.getColumn() + 1));
+            fixBounds();
+        }
+    }
+
+    @Test
+    @DisplayName("Um navio com o nome de um tipo mas outras posições é desse tipo, com o tamanho e as regras das posições")
+    void nameGivesTheTypeButNotTheShape() {
+        IShip fake = new FakeGalleon(new Position(0, 9));
+
+        assertSame(ShipType.GALEAO, fake.getType());
+        assertEquals(2, fake.getSize());
+        assertNull(PlacementTable.forShip(fake, Fleet.BOARD_SIZE));
+        assertFalse(new Fleet().addShip(fake));
+
+        Fleet fleet = new Fleet();
+        IShip inside = new FakeGalleon(new Position(0, 8));
+        assertTrue(fleet.addShip(inside));
+        assertEquals(List.of(inside), fleet.getShipsLike("Galeao"));
+        assertEquals(List.of(inside), fleet.getShipsLike(ShipType.GALEAO));
+        assertEquals(1, fleet.shipsLike(ShipType.GALEAO).count());
+        assertSame(inside, fleet.shipAt(new Position(0, 9)));
+    }
+}
@@ -0,0 +1,146 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o anel de tiros e o diário que o escreve")
+class ShotJournalTest {
+
+    private static ShotRing.WaitStrategy waitStrategy(String name) {
+        switch (name) {
+            case "busySpin":
+                return ShotRing.busySpin();
+            case "yielding":
+                return ShotRing.yielding();
+            case "sleeping":
+                return ShotRing.sleeping(100_000);
+            default:
+                return ShotRing.blocking();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"busySpin", "yielding", "sleeping", "blocking"})
+    @Timeout(20)
+    @DisplayName("O diário escreve cada tiro de cada jogo, pela ordem, com o que fez")
+    void journalWritesEveryShot(String strategy) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ShotJournal journal = new ShotJournal(Channels.newChannel(bytes), 16, waitStrategy(strategy));
+        Game[] plain = new Game[2];
+        IGame[] games = new IGame[2];
+        int[] shots = new int[2];
+        for (int g = 0; g < 2; g++) {
+            plain[g] = new Game(new FleetGenerator().generate(new Random(50 + g)));
+            games[g] = journal.instrument(new Game(new FleetGenerator().generate(new Random(50 + g))));
+        }
+
+        List<int[]> expected = new ArrayList<>();
+        Random random = new Random(51);
+        for (int i = 0; i < 500; i++) {
+            int g = random.nextInt(2);
+            Position pos = new Position(random.nextInt(13) - 1, random.nextInt(13) - 1);
+            int hits = plain[g].getHits(), invalid = plain[g].getInvalidShots(), repeated = plain[g].getRepeatedShots();
+            IShip sunk = plain[g].fire(pos);
+            games[g].fire(pos);
+            GameFeed.Kind kind = sunk != null ? GameFeed.Kind.SINK
+                    : plain[g].getHits() > hits ? GameFeed.Kind.HIT
+                    : plain[g].getInvalidShots() > invalid ? GameFeed.Kind.INVALID
+                    : plain[g].getRepeatedShots() > repeated ? GameFeed.Kind.REPEAT : GameFeed.Kind.MISS;
+            expected.add(new int[]{g, shots[g]++, pos.getRow(), pos.getColumn(), kind.ordinal()});
+            if (sunk != null && plain[g].getRemainingShips() == 0)
+                expected.add(new int[]{g, shots[g]++, pos.getRow(), pos.getColumn(), GameFeed.Kind.GAME_OVER.ordinal()});
+        }
+        journal.close();
+
+        assertEquals(expected.size(), journal.getWritten());
+        ByteBuffer written = ByteBuffer.wrap(bytes.toByteArray());
+        assertEquals(expected.size() * ShotJournal.RECORD_BYTES, written.remaining());
+        for (int[] shot : expected) {
+            assertEquals(shot[0], written.getInt());
+            assertEquals(shot[1], written.getInt());
+            assertEquals(shot[2], written.getInt());
+            assertEquals(shot[3], written.getInt());
+            assertEquals(shot[4], written.get());
+        }
+        assertThrows(IllegalStateException.class, () -> games[0].fire(new Position(0, 0)));
+        assertEquals(expected.size(), journal.getWritten());
+    }
+
+    @Test
+    @Timeout(20)
+    @DisplayName("O anel dá a volta muitas vezes sem perder nem trocar tiros")
+    void ringWrapsInOrder() throws Exception {
+        ShotRing ring = new ShotRing(64, ShotRing.yielding());
+        int shots = 200_000;
+        long[] seen = new long[1];
+        long[] batches = new long[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                ring.process((slot, sequence, endOfBatch) -> {
+                    assertEquals(seen[0], sequence);
+                    assertEquals((int) sequence, slot.getShot());
+                    assertEquals((int) sequence, slot.getRow());
+                    assertEquals(-(int) sequence, slot.getColumn());
+                    seen[0]++;
+                    batches[0] += endOfBatch ? 1 : 0;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < shots; i++)
+            ring.publish(0, i, i, -i, GameFeed.Kind.MISS);
+        ring.halt();
+        consumer.join();
+
+        assertEquals(shots, seen[0]);
+        assertEquals(shots - 1, ring.getConsumed());
+        assertTrue(batches[0] <= shots);
+        assertThrows(IllegalStateException.class, () -> ring.publish(0, shots, 0, 0, GameFeed.Kind.MISS));
+        assertThrows(IllegalArgumentException.class, () -> new ShotRing(12, ShotRing.busySpin()));
+    }
+
+    @Test
+    @Timeout(20)
+    @DisplayName("Se a escrita falha, o diário para e o erro chega a quem o fecha")
+    void failingChannelStopsTheJournal() {
+        WritableByteChannel broken = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disco cheio");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ShotJournal journal = new ShotJournal(broken, 4, ShotRing.sleeping(1_000));
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 1_000_000; i++)
+                journal.record(0, i, 0, i, GameFeed.Kind.MISS);
+        });
+        IOException e = assertThrows(IOException.class, journal::close);
+        assertEquals("disco cheio", e.getMessage());
+        assertEquals(0, journal.getWritten());
+    }
+}
@@ -0,0 +1,142 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o índice espacial de navios")
+class SpatialIndexTest {
+
+    /*
+     * Fleets of the standard board laid side by side, 11 cells apart, on a
+     * board of the given number of fleets per side, some ships sunk
+     */
+    private static List<IShip> armada(Random random, int side) {
+        List<IShip> ships = new ArrayList<>();
+        FleetGenerator generator = new FleetGenerator();
+        for (int fr = 0; fr < side; fr++)
+            for (int fc = 0; fc < side; fc++)
+                for (IShip s : generator.generate(random).getShips()) {
+                    IShip moved = s.getType().build(s.getBearing(), new Position(s.getPosition().getRow() + fr * 11,
+                            s.getPosition().getColumn() + fc * 11));
+                    if (random.nextInt(4) == 0)
+                        for (IPosition p : moved.getPositions())
+                            moved.shoot(p);
+                    ships.add(moved);
+                }
+        return ships;
+    }
+
+    private static Set<IShip> within(List<IShip> ships, int top, int left, int bottom, int right) {
+        Set<IShip> within = new HashSet<>();
+        for (IShip s : ships)
+            for (IPosition p : s.getPositions())
+                if (p.getRow() >= top && p.getRow() <= bottom && p.getColumn() >= left && p.getColumn() <= right)
+                    within.add(s);
+        return within;
+    }
+
+    private static Set<IShip> withinRadius(List<IShip> ships, IPosition pos, int radius) {
+        Set<IShip> within = new HashSet<>();
+        for (IShip s : ships)
+            for (IPosition p : s.getPositions()) {
+                long dr = p.getRow() - pos.getRow();
+                long dc = p.getColumn() - pos.getColumn();
+                if (dr * dr + dc * dc <= (long) radius * radius)
+                    within.add(s);
+            }
+        return within;
+    }
+
+    private static IShip nearestFloating(List<IShip> ships, IPosition pos) {
+        IShip nearest = null;
+        int best = Integer.MAX_VALUE;
+        for (IShip s : ships)
+            if (s.stillFloating())
+                for (IPosition p : s.getPositions()) {
+                    int d = Math.max(Math.abs(p.getRow() - pos.getRow()), Math.abs(p.getColumn() - pos.getColumn()));
+                    if (d < best) {
+                        best = d;
+                        nearest = s;
+                    }
+                }
+        return nearest;
+    }
+
+    private static <T> Set<T> distinct(List<T> found) {
+        Set<T> set = new HashSet<>(found);
+        assertEquals(set.size(), found.size());
+        return set;
+    }
+
+    @Test
+    @DisplayName("As consultas dão o mesmo que percorrer todos os navios")
+    void queriesMatchBruteForce() {
+        Random random = new Random(45);
+        List<IShip> ships = armada(random, 45);
+        SpatialIndex index = new SpatialIndex(ships);
+        assertEquals(45 * 45 * ShipType.standardFleetSize(), index.size());
+        int extent = 45 * 11;
+
+        for (int i = 0; i < 200; i++) {
+            int top = random.nextInt(extent + 40) - 20;
+            int left = random.nextInt(extent + 40) - 20;
+            int bottom = top + random.nextInt(30);
+            int right = left + random.nextInt(30);
+            List<IShip> found = index.within(top, left, bottom, right).collect(Collectors.toList());
+            assertEquals(within(ships, top, left, bottom, right), distinct(found));
+
+            Position pos = new Position(random.nextInt(extent + 40) - 20, random.nextInt(extent + 40) - 20);
+            int radius = random.nextInt(25);
+            found = index.withinRadius(pos, radius).collect(Collectors.toList());
+            assertEquals(withinRadius(ships, pos, radius), distinct(found), pos + " " + radius);
+
+            IShip nearest = index.nearestFloating(pos);
+            assertSame(nearestFloating(ships, pos), nearest, pos.toString());
+        }
+        assertEquals(new HashSet<>(ships), index.within(-1, -1, extent, extent).collect(Collectors.toSet()));
+    }
+
+    @Test
+    @DisplayName("Entre navios à mesma distância, o mais próximo é o primeiro indexado")
+    void nearestFloatingTies() {
+        IShip first = new Barge(Compass.NORTH, new Position(0, 0));
+        IShip second = new Barge(Compass.NORTH, new Position(0, 4));
+        IShip far = new Caravel(Compass.EAST, new Position(9, 0));
+        SpatialIndex index = new SpatialIndex(List.of(far, first, second));
+
+        assertSame(first, index.nearestFloating(new Position(0, 2)));
+        assertSame(second, index.nearestFloating(new Position(0, 3)));
+        assertSame(far, index.nearestFloating(new Position(1000, -1000)));
+        first.shoot(new Position(0, 0));
+        assertSame(second, index.nearestFloating(new Position(0, 2)));
+        second.shoot(new Position(0, 4));
+        far.shoot(new Position(9, 0));
+        far.shoot(new Position(9, 1));
+        assertNull(index.nearestFloating(new Position(0, 2)));
+    }
+
+    @Test
+    @DisplayName("Um índice vazio não encontra navios e recusa argumentos inválidos")
+    void emptyIndexAndInvalidArguments() {
+        SpatialIndex index = SpatialIndex.of(new Fleet());
+        assertEquals(0, index.size());
+        assertEquals(0, index.within(0, 0, 9, 9).count());
+        assertEquals(0, index.withinRadius(new Position(5, 5), 100).count());
+        assertNull(index.nearestFloating(new Position(5, 5)));
+
+        assertThrows(IllegalArgumentException.class, () -> index.within(5, 0, 4, 9));
+        assertThrows(IllegalArgumentException.class, () -> index.within(0, 5, 9, 4));
+        assertThrows(IllegalArgumentException.class, () -> index.withinRadius(new Position(0, 0), -1));
+        assertThrows(NullPointerException.class, () -> new SpatialIndex(Arrays.asList((IShip) null)));
+    }
+}
@@ -116,7 +116,7 @@ class TasksTests {
         Ship s2 = null;
         try {
             s1 = Ship.buildShip("barca", Compass.NORTH, new Position(0, 0));
-            s2 = Ship.buildShip("barca", Compass.EAST, new Position(1, 1));
+            s2 = Ship.buildShip("barca", Compass.EAST, new Position(2, 2));
         } catch (Throwable ignored) {}
         if (s1 == null || s2 == null) return;
         fleet.addShip(s1);
@@ -127,7 +127,7 @@ class TasksTests {
         } catch (Throwable ignored) {}
         if (game == null) return;
 
-        Scanner sc = new Scanner("0 0\n1 1\n5 5\n");
+        Scanner sc = new Scanner("0 0\n2 2\n5 5\n");
         try {
             Tasks.firingRound(sc, game);
         } catch (RuntimeException ignored) {
@@ -0,0 +1,118 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para o torneio entre bots")
+class TournamentTest {
+
+    private static Bot random(String name) {
+        return new Bot(name, RandomShooter::new, new RandomPlacer());
+    }
+
+    private static Bot hunter(String name) {
+        return new Bot(name, HuntTargetShooter::new, new RandomPlacer());
+    }
+
+    @Test
+    @DisplayName("Num torneio todos contra todos cada par joga o número de jogos pedido")
+    void roundRobinPlaysEveryPairing() {
+        try (Tournament tournament = new Tournament(List.of(random("a"), random("b"), hunter("c")), 10, 3)) {
+            TournamentResults results = tournament.roundRobin(42);
+
+            assertEquals(30, results.getMatches());
+            double points = 0;
+            for (int bot = 0; bot < 3; bot++) {
+                assertEquals(20, results.getWins(bot) + results.getLosses(bot) + results.getDraws(bot));
+                points += results.getPoints(bot);
+                assertTrue(results.getAverageShots(bot) >= 21);
+            }
+            assertEquals(30, points, 1e-9);
+            assertEquals(2, results.ranking()[0]);
+            assertTrue(results.getRating(2) > TournamentResults.INITIAL_RATING);
+        }
+    }
+
+    @Test
+    @DisplayName("O mesmo torneio tem sempre os mesmos resultados")
+    void sameSeedSameOutcomes() {
+        List<Bot> bots = List.of(random("a"), hunter("b"), hunter("c"));
+        try (Tournament first = new Tournament(bots, 8, 1); Tournament second = new Tournament(bots, 8, 4)) {
+            TournamentResults a = first.roundRobin(7);
+            TournamentResults b = second.roundRobin(7);
+            for (int bot = 0; bot < 3; bot++) {
+                assertEquals(a.getWins(bot), b.getWins(bot));
+                assertEquals(a.getDraws(bot), b.getDraws(bot));
+                assertEquals(a.getAverageShots(bot), b.getAverageShots(bot), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Um bot que não dispõe uma frota padrão perde por falta de comparência")
+    void invalidFleetForfeits() {
+        Bot cheater = new Bot("cheater", RandomShooter::new,
+                (fleet, random) -> fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+        try (Tournament tournament = new Tournament(List.of(cheater, random("a")), 5, 2)) {
+            TournamentResults results = tournament.roundRobin(1);
+
+            assertEquals(5, results.getLosses(0));
+            assertEquals(5, results.getForfeits(0));
+            assertEquals(0, results.getForfeits(1));
+            assertTrue(Double.isNaN(results.getAverageShots(0)));
+            assertTrue(results.getRating(1) > results.getRating(0));
+        }
+    }
+
+    @Test
+    @DisplayName("No sistema suíço os bots não se repetem e o que sobra folga")
+    void swissAvoidsRematches() {
+        List<Bot> bots = List.of(random("a"), random("b"), random("c"), hunter("d"), hunter("e"));
+        try (Tournament tournament = new Tournament(bots, 1, 2)) {
+            TournamentResults results = tournament.swiss(4, 3);
+
+            assertEquals(8, results.getMatches());
+            long byes = 0;
+            for (int bot = 0; bot < bots.size(); bot++) {
+                byes += results.getByes(bot);
+                assertTrue(results.getByes(bot) <= 1);
+                assertEquals(4, results.getWins(bot) + results.getLosses(bot) + results.getDraws(bot)
+                        + results.getByes(bot));
+            }
+            assertEquals(4, byes);
+        }
+    }
+
+    @Test
+    @DisplayName("O mesmo torneio suíço tem sempre os mesmos emparelhamentos, jogado em paralelo")
+    void swissSameSeedSamePairings() {
+        List<Bot> bots = List.of(random("a"), random("b"), hunter("c"), hunter("d"), random("e"), hunter("f"), random("g"));
+        for (int run = 0; run < 3; run++)
+            try (Tournament first = new Tournament(bots, 3, 4); Tournament second = new Tournament(bots, 3, 4)) {
+                TournamentResults a = first.swiss(5, 11 + run);
+                TournamentResults b = second.swiss(5, 11 + run);
+                for (int bot = 0; bot < bots.size(); bot++) {
+                    for (int other = 0; other < bots.size(); other++)
+                        assertEquals(a.getMeetings(bot, other), b.getMeetings(bot, other));
+                    assertEquals(a.getByes(bot), b.getByes(bot));
+                    assertEquals(a.getWins(bot), b.getWins(bot));
+                    assertEquals(a.getDraws(bot), b.getDraws(bot));
+                }
+            }
+    }
+
+    @Test
+    @DisplayName("Configurações inválidas são rejeitadas")
+    void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(List.of(random("a")), 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(List.of(random("a"), random("b")), 0, 1));
+        assertThrows(NullPointerException.class, () -> new Bot(null, RandomShooter::new, new RandomPlacer()));
+        try (Tournament tournament = new Tournament(List.of(random("a"), random("b")), 1, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> tournament.swiss(0, 1));
+        }
+    }
+}
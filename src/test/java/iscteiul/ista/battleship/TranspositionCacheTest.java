@@ -0,0 +1,96 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para a cache de transposições")
+class TranspositionCacheTest {
+
+    @Test
+    @DisplayName("Guarda e devolve valores pela chave")
+    void putAndGet() {
+        TranspositionCache<String> cache = new TranspositionCache<>(4);
+        cache.put(1L, "um");
+        cache.put(-7L, "menos sete");
+        cache.put(1L, "outro um");
+
+        assertEquals("outro um", cache.get(1L));
+        assertEquals("menos sete", cache.get(-7L));
+        assertNull(cache.get(2L));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Nunca guarda mais entradas do que a capacidade")
+    void boundedSize() {
+        TranspositionCache<Integer> cache = new TranspositionCache<>(100);
+        for (int i = 0; i < 10_000; i++)
+            cache.put(i * 0x9E3779B97F4A7C15L, i);
+
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.capacity());
+        assertEquals(9_999, cache.get(9_999 * 0x9E3779B97F4A7C15L));
+    }
+
+    @Test
+    @DisplayName("O relógio poupa as entradas lidas desde a última passagem")
+    void clockSparesReferencedEntries() {
+        TranspositionCache<Integer> cache = new TranspositionCache<>(3);
+        cache.put(10L, 10);
+        cache.put(20L, 20);
+        cache.put(30L, 30);
+        cache.get(10L);
+
+        cache.put(40L, 40);
+
+        assertEquals(10, cache.get(10L));
+        assertNull(cache.get(20L));
+        assertEquals(30, cache.get(30L));
+        assertEquals(40, cache.get(40L));
+    }
+
+    @Test
+    @DisplayName("As entradas que ficam continuam a ser encontradas após despejos")
+    void agreesWithMapAfterEvictions() {
+        Random random = new Random(11);
+        TranspositionCache<Long> cache = new TranspositionCache<>(64);
+        Map<Long, Long> reference = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(256);
+            if (random.nextBoolean()) {
+                cache.put(key, key * 3);
+                reference.put(key, key * 3);
+            } else {
+                Long value = cache.get(key);
+                if (value != null)
+                    assertEquals(reference.get(key), value);
+            }
+        }
+        int found = 0;
+        for (long key = 0; key < 256; key++)
+            if (cache.get(key) != null)
+                found++;
+        assertEquals(cache.size(), found);
+    }
+
+    @Test
+    @DisplayName("Limpar esvazia a cache; capacidades e valores inválidos são rejeitados")
+    void clearAndInvalidArguments() {
+        TranspositionCache<String> cache = new TranspositionCache<>(2);
+        cache.put(5L, "cinco");
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(5L));
+        assertThrows(NullPointerException.class, () -> cache.put(1L, null));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionCache<String>(0));
+    }
+}
@@ -0,0 +1,132 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes para os hashes de Zobrist do jogo e da frota")
+class ZobristTest {
+
+    private static Fleet fleet(IShip... ships) {
+        Fleet fleet = new Fleet();
+        for (IShip s : ships)
+            assertTrue(fleet.addShip(s));
+        return fleet;
+    }
+
+    @Test
+    @DisplayName("As chaves são as mesmas em cada pedido e diferem entre camadas")
+    void stableKeys() {
+        Zobrist zobrist = Zobrist.forBoard(10);
+
+        assertSame(zobrist, Zobrist.forBoard(10));
+        assertEquals(zobrist.key(Zobrist.HIT, 3, 4), zobrist.key(Zobrist.HIT, 34));
+        assertNotEquals(zobrist.key(Zobrist.HIT, 34), zobrist.key(Zobrist.MISS, 34));
+        assertNotEquals(zobrist.key(Zobrist.MISS, 10, 0), zobrist.key(Zobrist.MISS, 0, 10));
+        assertNotEquals(zobrist.ship(ShipType.BARCA, 0, 0), zobrist.ship(null, 0, 0));
+        assertEquals(0L, zobrist.floating(ShipType.NAU, 0));
+    }
+
+    @Test
+    @DisplayName("A frota tem o mesmo hash qualquer que seja a ordem dos navios")
+    void fleetHashIgnoresOrder() {
+        Fleet a = fleet(new Barge(Compass.NORTH, new Position(0, 0)), new Caravel(Compass.EAST, new Position(5, 5)));
+        Fleet b = fleet(new Caravel(Compass.EAST, new Position(5, 5)), new Barge(Compass.NORTH, new Position(0, 0)));
+        Fleet c = fleet(new Barge(Compass.NORTH, new Position(0, 0)), new Caravel(Compass.SOUTH, new Position(5, 5)));
+
+        assertEquals(a.getHash(), b.getHash());
+        assertNotEquals(a.getHash(), c.getHash());
+        assertEquals(0L, new Fleet().getHash());
+    }
+
+    @Test
+    @DisplayName("O hash da frota acompanha a lista de navios substituída")
+    void fleetHashFollowsReplacedShips() {
+        Fleet fleet = fleet(new Barge(Compass.NORTH, new Position(0, 0)));
+        long withBarge = fleet.getHash();
+        fleet.getShips().clear();
+
+        assertEquals(0L, fleet.getHash());
+        fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0)));
+        assertEquals(withBarge, fleet.getHash());
+    }
+
+    @Test
+    @DisplayName("O jogo tem o mesmo hash qualquer que seja a ordem dos tiros")
+    void gameHashIgnoresOrder() {
+        Game a = new Game(fleet(new Caravel(Compass.EAST, new Position(5, 5))));
+        Game b = new Game(fleet(new Caravel(Compass.EAST, new Position(5, 5))));
+
+        a.fire(new Position(0, 0));
+        a.fire(new Position(5, 5));
+        b.fire(new Position(5, 5));
+        b.fire(new Position(0, 0));
+        assertEquals(a.getHash(), b.getHash());
+
+        long before = a.getHash();
+        a.fire(new Position(5, 5));
+        a.fire(new Position(-1, 3));
+        assertEquals(before, a.getHash());
+
+        assertNotNull(a.fire(new Position(5, 6)));
+        assertNotEquals(before, a.getHash());
+        assertEquals(0L, new Game(new Fleet()).getHash());
+    }
+
+    @Test
+    @DisplayName("Um acerto, um falhanço e um afundamento mudam o hash de formas diferentes")
+    void outcomesHashDifferently() {
+        Game hit = new Game(fleet(new Caravel(Compass.EAST, new Position(5, 5))));
+        Game miss = new Game(fleet(new Caravel(Compass.EAST, new Position(2, 2))));
+        Game sunk = new Game(fleet(new Barge(Compass.NORTH, new Position(5, 5))));
+        hit.fire(new Position(5, 5));
+        miss.fire(new Position(5, 5));
+        sunk.fire(new Position(5, 5));
+
+        assertNotEquals(hit.getHash(), miss.getHash());
+        assertNotEquals(hit.getHash(), sunk.getHash());
+        assertNotEquals(miss.getHash(), sunk.getHash());
+    }
+
+    @Test
+    @DisplayName("Um espectador não volta a desenhar enquanto o hash do jogo não muda")
+    void rendererSkipsUnchangedGames() throws IOException {
+        Fleet fleet = new FleetGenerator().generate(new Random(3));
+        Game game = new Game(fleet);
+        BoardRenderer.Viewer viewer = new BoardRenderer(game, fleet).newViewer(1, 1);
+        viewer.render(new StringBuilder());
+
+        game.fire(new Position(9, 9));
+        assertEquals(1, viewer.render(new StringBuilder()));
+        game.fire(new Position(9, 9));
+        StringBuilder out = new StringBuilder();
+        assertEquals(0, viewer.render(out));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    @DisplayName("Um solucionador com cache partilhada reaproveita posições já resolvidas")
+    void solverReusesSharedCache() {
+        TranspositionCache<Double> cache = new TranspositionCache<>(1024);
+        long[] blocked = BoardMask.create(10);
+        for (int cell = 0; cell < 100; cell++)
+            if (cell % 19 != 0)
+                BoardMask.set(blocked, cell);
+        ShipType[] floating = {ShipType.BARCA};
+
+        EndgameSolver first = new EndgameSolver(10, 1_000_000_000L, 1000, cache);
+        first.bestShot(blocked, BoardMask.create(10), floating);
+        long misses = cache.getMisses();
+        EndgameSolver second = new EndgameSolver(10, 1_000_000_000L, 1000, cache);
+        second.bestShot(blocked, BoardMask.create(10), floating);
+
+        assertTrue(first.isExact() && second.isExact());
+        assertEquals(first.getExpectedShots(), second.getExpectedShots(), 1e-12);
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getMisses() - misses < misses);
+    }
+}